@@ -0,0 +1,126 @@
+package sn.ism.gestion_dettes.config;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Cache de second niveau Hibernate : régions JCache servies par Caffeine (bornées dans application.conf).
+ * Le CacheManager appartient au contexte Spring et est passé à Hibernate, ce qui permet d'en publier
+ * les métriques (lectures trouvées / manquées, écritures, évictions) sur l'actuator.
+ *
+ * Cache des résultats (@Cacheable) : soldes des clients et statistiques de paiement des dettes,
+ * bornés par un budget d'octets et vidés après validation par InvalidationResultatsService.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String REGION_CLIENTS = "clients";
+    public static final String REGION_CLIENTS_TELEPHONE = "clients-telephone";
+
+    public static final String CACHE_SOLDES_CLIENTS = "soldes-clients";
+    public static final String CACHE_STATISTIQUES_DETTES = "statistiques-dettes";
+
+    private static final List<String> REGIONS = List.of(REGION_CLIENTS, REGION_CLIENTS_TELEPHONE);
+
+    // Nœud Caffeine d'une entrée pondérée (clé, valeur, poids, liens de l'ordre d'éviction), hors clé et valeur
+    private static final int OCTETS_NOEUD = 64;
+
+    /**
+     * Un gestionnaire propre au contexte (URI unique, configuration lue dans application.conf) : l'URI par défaut
+     * rendrait le même gestionnaire à tous les contextes de la JVM, qui partageraient entrées et verrous
+     * du cache de second niveau alors que chacun a sa base (contextes des tests)
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager jcacheManager() {
+        CachingProvider fournisseur = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        URI uri = URI.create("gestion-dettes:" + UUID.randomUUID());
+        return fournisseur.getCacheManager(uri, getClass().getClassLoader());
+    }
+
+    /**
+     * Une région absente de la configuration fait échouer le démarrage plutôt que d'être créée sans borne
+     */
+    @Bean
+    public HibernatePropertiesCustomizer cacheSecondNiveau(CacheManager jcacheManager) {
+        return proprietes -> {
+            proprietes.put(ConfigSettings.CACHE_MANAGER, jcacheManager);
+            proprietes.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    /**
+     * Métriques par région : cache.gets{result=hit|miss}, cache.puts, cache.evictions (statistiques JCache)
+     * et hibernate.cache.hit.ratio (statistiques Hibernate)
+     */
+    @Bean
+    public MeterBinder metriquesCacheSecondNiveau(CacheManager jcacheManager, EntityManagerFactory entityManagerFactory) {
+        return registre -> {
+            Statistics statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            for (String region : REGIONS) {
+                JCacheMetrics.monitor(registre, jcacheManager.getCache(region));
+                Gauge.builder("hibernate.cache.hit.ratio", statistiques,
+                                s -> tauxSucces(s.getDomainDataRegionStatistics(region)))
+                        .tag("region", region)
+                        .description("Part des lectures du cache de second niveau trouvées dans la région")
+                        .register(registre);
+            }
+        };
+    }
+
+    /**
+     * Caches des résultats, déclarés un à un : un nom inconnu n'est pas créé à la volée (il serait sans borne).
+     * Les métriques cache.* (dont cache.evictions et cache.eviction.weight) sont publiées par l'actuator.
+     */
+    @Bean
+    public CaffeineCacheManager cacheManager(@Value("${app.cache.resultats.octets-max:16777216}") long octetsMax) {
+        CaffeineCacheManager gestionnaire = new CaffeineCacheManager();
+        gestionnaire.setCacheNames(List.of());
+        gestionnaire.setAllowNullValues(false);
+        gestionnaire.registerCustomCache(CACHE_SOLDES_CLIENTS, cacheResultats(octetsMax / 2));
+        gestionnaire.registerCustomCache(CACHE_STATISTIQUES_DETTES, cacheResultats(octetsMax / 2));
+        return gestionnaire;
+    }
+
+    /**
+     * Chaque entrée pèse la mémoire estimée de sa clé et de sa valeur (voir EstimationOctets)
+     */
+    private static Cache<Object, Object> cacheResultats(long octetsMax) {
+        return Caffeine.newBuilder()
+                .maximumWeight(octetsMax)
+                .weigher((cle, valeur) -> (int) Math.min(Integer.MAX_VALUE,
+                        OCTETS_NOEUD + EstimationOctets.estimer(cle) + EstimationOctets.estimer(valeur)))
+                .recordStats()
+                .build();
+    }
+
+    private static double tauxSucces(CacheRegionStatistics region) {
+        long lectures = region.getHitCount() + region.getMissCount();
+        return lectures == 0 ? 0 : (double) region.getHitCount() / lectures;
+    }
+}
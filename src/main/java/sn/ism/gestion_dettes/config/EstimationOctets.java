@@ -0,0 +1,128 @@
+package sn.ism.gestion_dettes.config;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Estimation de la mémoire retenue par une entrée du cache des résultats (JVM 64 bits, références compressées) :
+ * champs de l'objet, puis objets référencés (BigDecimal, chaînes, nombres, collections, DTO imbriqués)
+ */
+final class EstimationOctets {
+
+    private static final int EN_TETE = 12;
+    private static final int REFERENCE = 4;
+    private static final int EN_TETE_TABLEAU = 16;
+    // BigDecimal : intCompact, scale, precision, références intVal et stringCache
+    private static final int OCTETS_BIG_DECIMAL = 40;
+    // BigInteger : signum, mag, champs de cache
+    private static final int OCTETS_BIG_INTEGER = 40;
+    // String : value, hash, coder, hashIsZero
+    private static final int OCTETS_CHAINE = 24;
+    private static final int PROFONDEUR_MAX = 4;
+
+    private static final ClassValue<List<Field>> CHAMPS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> champs = new ArrayList<>();
+            for (Class<?> classe = type; classe != null && classe != Object.class; classe = classe.getSuperclass()) {
+                for (Field champ : classe.getDeclaredFields()) {
+                    if (!Modifier.isStatic(champ.getModifiers())) {
+                        champ.setAccessible(true);
+                        champs.add(champ);
+                    }
+                }
+            }
+            return champs;
+        }
+    };
+
+    private EstimationOctets() {}
+
+    static long estimer(Object objet) {
+        return estimer(objet, 0);
+    }
+
+    private static long estimer(Object objet, int profondeur) {
+        if (objet == null || objet instanceof Enum<?> || objet instanceof Boolean) {
+            return 0;
+        }
+        if (objet instanceof BigDecimal nombre) {
+            // Compact si la valeur non mise à l'échelle tient dans un long ; toString() (écriture JSON)
+            // garde sa chaîne dans l'objet
+            BigInteger nonEchelonne = nombre.unscaledValue();
+            long octets = OCTETS_BIG_DECIMAL + octetsChaine(nombre.toString().length());
+            return nonEchelonne.bitLength() < Long.SIZE ? octets : octets + octetsBigInteger(nonEchelonne);
+        }
+        if (objet instanceof BigInteger nombre) {
+            return octetsBigInteger(nombre);
+        }
+        if (objet instanceof String chaine) {
+            return octetsChaine(chaine.length());
+        }
+        if (objet instanceof Long || objet instanceof Double) {
+            return aligner(EN_TETE + Long.BYTES);
+        }
+        if (objet instanceof Number || objet instanceof Character) {
+            return aligner(EN_TETE + Integer.BYTES);
+        }
+        if (objet instanceof Collection<?> elements) {
+            long octets = aligner(EN_TETE + 2 * Integer.BYTES + REFERENCE)
+                    + aligner(EN_TETE_TABLEAU + (long) elements.size() * REFERENCE);
+            for (Object element : elements) {
+                octets += estimer(element, profondeur + 1);
+            }
+            return octets;
+        }
+        if (profondeur >= PROFONDEUR_MAX || !objet.getClass().getPackageName().startsWith("sn.ism.")) {
+            return aligner(EN_TETE + REFERENCE);
+        }
+
+        long champs = EN_TETE;
+        long references = 0;
+        for (Field champ : CHAMPS.get(objet.getClass())) {
+            Class<?> type = champ.getType();
+            if (type.isPrimitive()) {
+                champs += taillePrimitif(type);
+            } else {
+                champs += REFERENCE;
+                try {
+                    references += estimer(champ.get(objet), profondeur + 1);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Champ illisible : " + champ, e);
+                }
+            }
+        }
+        return aligner(champs) + references;
+    }
+
+    private static long octetsBigInteger(BigInteger nombre) {
+        return OCTETS_BIG_INTEGER + aligner(EN_TETE_TABLEAU + (long) (nombre.bitLength() / Integer.SIZE + 1) * Integer.BYTES);
+    }
+
+    private static long octetsChaine(int longueur) {
+        // Chaînes de chiffres et de lettres latines : un octet par caractère
+        return OCTETS_CHAINE + aligner(EN_TETE_TABLEAU + longueur);
+    }
+
+    private static int taillePrimitif(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long aligner(long octets) {
+        return (octets + 7) & ~7L;
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import jakarta.validation.ConstraintViolationException;
 
@@ -56,6 +57,25 @@ public class GlobalExceptionHandler {
         ), HttpStatus.BAD_REQUEST);
     }
     
+    /**
+     * Gestion des paramètres de requête invalides (contraintes sur les paramètres des contrôleurs)
+     */
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<?> handleHandlerMethodValidationException(HandlerMethodValidationException ex) {
+        Map<String, String> errors = new HashMap<>();
+        
+        ex.getAllValidationResults().forEach(resultat -> {
+            String parametre = resultat.getMethodParameter().getParameterName();
+            resultat.getResolvableErrors().forEach(erreur -> errors.put(parametre, erreur.getDefaultMessage()));
+        });
+        
+        return new ResponseEntity<>(Map.of(
+                "success", false,
+                "message", "Paramètres invalides",
+                "errors", errors
+        ), HttpStatus.BAD_REQUEST);
+    }
+    
     /**
      * Gestion des erreurs runtime personnalisées
      */
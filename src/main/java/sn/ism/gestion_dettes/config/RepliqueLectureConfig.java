@@ -0,0 +1,77 @@
+package sn.ism.gestion_dettes.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Réplique en lecture, active seulement si app.datasource.replique.url est renseignée.
+ * Deux pools Hikari (primaire : spring.datasource.*, réplique : app.datasource.replique.*) derrière
+ * un routage lecture / écriture ; sans réplique, le DataSource auto-configuré par Spring Boot reste en place.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replique", name = "url")
+public class RepliqueLectureConfig {
+
+    private static final long DELAI_CONNEXION_REPLIQUE_MS = 1000;
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaireDataSource(DataSourceProperties proprietes) {
+        HikariDataSource source = proprietes.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        source.setPoolName("primaire");
+        return source;
+    }
+
+    /**
+     * Identifiants du primaire par défaut ; connexions en lecture seule.
+     * Attente de connexion courte par défaut (surchargeable) : une réplique morte bascule vite sur le primaire.
+     */
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("app.datasource.replique.hikari")
+    public HikariDataSource repliqueDataSource(
+            @Value("${app.datasource.replique.url}") String url,
+            @Value("${app.datasource.replique.username:${spring.datasource.username:}}") String utilisateur,
+            @Value("${app.datasource.replique.password:${spring.datasource.password:}}") String motDePasse) {
+        HikariDataSource source = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(utilisateur)
+                .password(motDePasse)
+                .build();
+        source.setPoolName("replique");
+        source.setReadOnly(true);
+        source.setConnectionTimeout(DELAI_CONNEXION_REPLIQUE_MS);
+        return source;
+    }
+
+    @Bean
+    public RoutageLectureEcritureDataSource routageLectureEcriture(
+            @Qualifier("primaireDataSource") DataSource primaire,
+            @Qualifier("repliqueDataSource") DataSource replique,
+            @Value("${app.datasource.replique.fenetre-lecture-ecritures-ms:0}") long fenetreLectureEcrituresMs,
+            @Value("${app.datasource.replique.delai-reprise-ms:30000}") long delaiRepriseMs) {
+        return new RoutageLectureEcritureDataSource(primaire, replique, fenetreLectureEcrituresMs, delaiRepriseMs);
+    }
+
+    /**
+     * DataSource utilisé par JPA et les JdbcTemplate : la connexion physique n'est choisie
+     * qu'à la première requête, une fois le drapeau readOnly de la transaction posé
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(RoutageLectureEcritureDataSource routage) {
+        return new LazyConnectionDataSourceProxy(routage);
+    }
+}
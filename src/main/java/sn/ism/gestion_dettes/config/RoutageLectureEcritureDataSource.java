@@ -0,0 +1,142 @@
+package sn.ism.gestion_dettes.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Route les transactions readOnly vers la réplique et tout le reste vers le primaire.
+ *
+ * Le drapeau readOnly n'est connu qu'une fois la transaction démarrée : ce routage doit être
+ * enveloppé dans un LazyConnectionDataSourceProxy, qui n'ouvre la connexion qu'à la première requête SQL.
+ * Une réplique injoignable est écartée pendant le délai de reprise (les lectures retombent sur le primaire).
+ * Si la fenêtre de lecture des écritures est positive, une session qui vient de valider une écriture
+ * lit le primaire pendant cette fenêtre, le temps que la réplique rattrape son retard.
+ * Une transaction readOnly qui alimente un cache sans expiration appelle exigerPrimaire() :
+ * relue sur une réplique en retard juste après l'éviction, la valeur périmée resterait en cache.
+ */
+public class RoutageLectureEcritureDataSource extends AbstractRoutingDataSource {
+
+    public enum Cible { PRIMAIRE, REPLIQUE }
+
+    private static final String ATTRIBUT_DERNIERE_ECRITURE =
+            RoutageLectureEcritureDataSource.class.getName() + ".derniereEcriture";
+
+    private static final String RESSOURCE_PRIMAIRE_EXIGE =
+            RoutageLectureEcritureDataSource.class.getName() + ".primaireExige";
+
+    private final long fenetreLectureEcrituresMs;
+    private final long delaiRepriseMs;
+
+    private volatile long repliqueEcarteeJusqua;
+
+    public RoutageLectureEcritureDataSource(DataSource primaire, DataSource replique,
+                                            long fenetreLectureEcrituresMs, long delaiRepriseMs) {
+        this.fenetreLectureEcrituresMs = fenetreLectureEcrituresMs;
+        this.delaiRepriseMs = delaiRepriseMs;
+        setTargetDataSources(Map.of(Cible.PRIMAIRE, primaire, Cible.REPLIQUE, replique));
+        setDefaultTargetDataSource(primaire);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || TransactionSynchronizationManager.hasResource(RESSOURCE_PRIMAIRE_EXIGE)
+                || System.currentTimeMillis() < repliqueEcarteeJusqua
+                || ecritureRecenteDansLaSession()) {
+            return Cible.PRIMAIRE;
+        }
+        return Cible.REPLIQUE;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return ouvrir(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return ouvrir(source -> source.getConnection(username, password));
+    }
+
+    /**
+     * Lire le primaire pour le reste de la transaction courante ; à appeler avant la première requête SQL
+     * (sans effet hors transaction ou sans réplique configurée)
+     */
+    public static void exigerPrimaire() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(RESSOURCE_PRIMAIRE_EXIGE)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(RESSOURCE_PRIMAIRE_EXIGE, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int statut) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(RESSOURCE_PRIMAIRE_EXIGE);
+            }
+        });
+    }
+
+    public boolean isRepliqueDisponible() {
+        return System.currentTimeMillis() >= repliqueEcarteeJusqua;
+    }
+
+    private Connection ouvrir(Ouverture ouverture) throws SQLException {
+        if (determineCurrentLookupKey() == Cible.REPLIQUE) {
+            try {
+                return ouverture.ouvrir(getResolvedDataSources().get(Cible.REPLIQUE));
+            } catch (SQLException e) {
+                repliqueEcarteeJusqua = System.currentTimeMillis() + delaiRepriseMs;
+            }
+        } else if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            suivreEcriture();
+        }
+        return ouverture.ouvrir(getResolvedDataSources().get(Cible.PRIMAIRE));
+    }
+
+    /**
+     * Date la session à la validation de la transaction, pas à l'ouverture de la connexion
+     */
+    private void suivreEcriture() {
+        if (fenetreLectureEcrituresMs <= 0
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || RequestContextHolder.getRequestAttributes() == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                RequestAttributes requete = RequestContextHolder.getRequestAttributes();
+                if (requete != null) {
+                    requete.setAttribute(ATTRIBUT_DERNIERE_ECRITURE, System.currentTimeMillis(),
+                            RequestAttributes.SCOPE_SESSION);
+                }
+            }
+        });
+    }
+
+    private boolean ecritureRecenteDansLaSession() {
+        if (fenetreLectureEcrituresMs <= 0) {
+            return false;
+        }
+        RequestAttributes requete = RequestContextHolder.getRequestAttributes();
+        Object derniereEcriture = requete == null ? null
+                : requete.getAttribute(ATTRIBUT_DERNIERE_ECRITURE, RequestAttributes.SCOPE_SESSION);
+        return derniereEcriture != null
+                && System.currentTimeMillis() - (Long) derniereEcriture < fenetreLectureEcrituresMs;
+    }
+
+    @FunctionalInterface
+    private interface Ouverture {
+        Connection ouvrir(DataSource source) throws SQLException;
+    }
+}
@@ -1,5 +1,6 @@
 package sn.ism.gestion_dettes.controllers;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -8,7 +9,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -18,13 +22,25 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.DebiteurDto;
+import sn.ism.gestion_dettes.dto.RapportImportDto;
+import sn.ism.gestion_dettes.dto.SuggestionTelephoneDto;
+import sn.ism.gestion_dettes.services.AnnuaireClientsService;
+import sn.ism.gestion_dettes.services.AutocompletionTelephoneService;
+import sn.ism.gestion_dettes.services.ClassementDebiteursService;
 import sn.ism.gestion_dettes.services.ClientService;
+import sn.ism.gestion_dettes.services.FormatFichier;
+import sn.ism.gestion_dettes.services.ImportClientsService;
 
 @RestController
 @RequestMapping("/clients")
@@ -34,6 +50,22 @@ public class ClientController {
     @Autowired
     private ClientService clientService;
     
+    @Autowired
+    private AutocompletionTelephoneService autocompletionService;
+    
+    @Autowired
+    private ImportClientsService importClientsService;
+    
+    @Autowired
+    private AnnuaireClientsService annuaireClientsService;
+    
+    @Autowired
+    private ClassementDebiteursService classementDebiteursService;
+    
+    private static final int LIMITE_AUTOCOMPLETION_MAX = 100;
+    private static final int LIMITE_DEBITEURS_MAX = 1000;
+    private static final String ORDRE_CURSEUR = "id croissant";
+    
     /**
      * Ajouter un nouveau client
      */
@@ -54,23 +86,78 @@ public class ClientController {
         }
     }
     
+    /**
+     * Importer des clients en flux (CSV nom,telephone,adresse ou NDJSON), avec rapport d'erreurs par ligne
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importerClients(
+            InputStream corps,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String typeContenu,
+            @RequestParam(required = false) String format) {
+        try {
+            RapportImportDto rapport = importClientsService.importer(
+                    corps, FormatFichier.depuis(format, typeContenu));
+            return new ResponseEntity<>(Map.of(
+                    "success", true,
+                    "message", rapport.getClientsImportes() + " clients importés",
+                    "data", rapport
+            ), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ), HttpStatus.BAD_REQUEST);
+        }
+    }
+    
     /**
      *  Obtenir tous les clients avec pagination
+     *  Avec after (curseur), seul l'ordre par défaut (id croissant) est accepté : un autre tri renvoie 400
+     *  approxTotal (avec withTotal=false) : estimation tirée des statistiques de la table, null si un filtre s'applique
+     *  ou si la base n'expose pas ces statistiques
      */
     @GetMapping
     public ResponseEntity<?> obtenirTousLesClients(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = ReponsesPagination.MESSAGE_TAILLE_PAGE)
+            @Max(value = ReponsesPagination.TAILLE_PAGE_MAX, message = ReponsesPagination.MESSAGE_TAILLE_PAGE) int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir,
             @RequestParam(required = false) String nom,
-            @RequestParam(required = false) String telephone) {
+            @RequestParam(required = false) String telephone,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            @RequestParam(defaultValue = "false") boolean approxTotal) {
         
         try {
+            // Pagination par curseur si demandée
+            if (after != null) {
+                if (!triDuCurseur(sortBy, sortDir)) {
+                    return ReponsesPagination.triIncompatibleAvecCurseur(ORDRE_CURSEUR);
+                }
+                return ReponsesPagination.curseur(nom != null || telephone != null
+                        ? clientService.rechercherClientsAvecFiltresApres(nom, telephone, after, size)
+                        : clientService.obtenirTousLesClientsApres(after, size));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                     Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            // Sans total : tranche sans COUNT
+            if (!withTotal) {
+                boolean filtre = nom != null || telephone != null;
+                Slice<ClientDto> tranche = filtre
+                        ? clientService.rechercherClientsAvecFiltresSansTotal(nom, telephone, pageable)
+                        : clientService.obtenirTousLesClientsSansTotal(pageable);
+                if (!approxTotal) {
+                    return ReponsesPagination.sansTotal(tranche);
+                }
+                // Estimation tirée des statistiques de la table : sans objet dès qu'un filtre s'applique
+                return ReponsesPagination.sansTotal(tranche, filtre ? null : clientService.estimerNombreClients(), true);
+            }
+            
             Page<ClientDto> clients;
             
             // Appliquer les filtres si fournis
@@ -101,16 +188,23 @@ public class ClientController {
     }
     
     /**
-     *  Obtenir tous les clients sans pagination (pour les listes déroulantes)
+     *  Obtenir tous les clients sans pagination (pour les listes déroulantes), avec ETag
      */
     @GetMapping("/simple")
-    public ResponseEntity<?> obtenirTousLesClientsSimplement() {
+    public ResponseEntity<?> obtenirTousLesClientsSimplement(WebRequest request) {
         try {
-            List<ClientDto> clients = clientService.obtenirTousLesClientsSimplement();
-            return new ResponseEntity<>(Map.of(
-                    "success", true,
-                    "data", clients
-            ), HttpStatus.OK);
+            AnnuaireClientsService.Instantane annuaire = annuaireClientsService.obtenirInstantane();
+            // Annuaire inchangé depuis la dernière lecture : 304 sans corps
+            if (request.checkNotModified(annuaire.getEtag())) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .eTag(annuaire.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .body(Map.of(
+                            "success", true,
+                            "data", annuaire.getClients()
+                    ));
         } catch (Exception e) {
             return new ResponseEntity<>(Map.of(
                     "success", false,
@@ -123,14 +217,23 @@ public class ClientController {
      *  Obtenir un client par ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> obtenirClientParId(@PathVariable Long id) {
+    public ResponseEntity<?> obtenirClientParId(@PathVariable Long id, WebRequest request) {
         try {
-            Optional<ClientDto> client = clientService.obtenirClientParId(id);
+            // La colonne version suffit à répondre 304 sans charger le client
+            Optional<String> version = clientService.obtenirVersionClient(id);
+            String etag = version.map(v -> "\"" + v + "\"").orElse(null);
+            if (etag != null && request.checkNotModified(etag)) {
+                return null;
+            }
+            Optional<ClientDto> client = etag != null ? clientService.obtenirClientParId(id) : Optional.empty();
             if (client.isPresent()) {
-                return new ResponseEntity<>(Map.of(
-                        "success", true,
-                        "data", client.get()
-                ), HttpStatus.OK);
+                return ResponseEntity.ok()
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache())
+                        .body(Map.of(
+                                "success", true,
+                                "data", client.get()
+                        ));
             } else {
                 return new ResponseEntity<>(Map.of(
                         "success", false,
@@ -173,20 +276,40 @@ public class ClientController {
     
     /**
      *  Rechercher des clients par téléphone
+     *  Avec after (curseur), seul l'ordre par défaut (id croissant) est accepté : un autre tri renvoie 400
      */
     @GetMapping("/search")
     public ResponseEntity<?> rechercherClientsParTelephone(
             @RequestParam String telephone,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = ReponsesPagination.MESSAGE_TAILLE_PAGE)
+            @Max(value = ReponsesPagination.TAILLE_PAGE_MAX, message = ReponsesPagination.MESSAGE_TAILLE_PAGE) int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
         
         try {
+            // Pagination par curseur si demandée
+            if (after != null) {
+                if (!triDuCurseur(sortBy, sortDir)) {
+                    return ReponsesPagination.triIncompatibleAvecCurseur(ORDRE_CURSEUR);
+                }
+                return ReponsesPagination.curseur(clientService.rechercherClientsAvecFiltresApres(
+                        null, telephone, after, size));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                     Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            // Sans total : tranche sans COUNT
+            if (!withTotal) {
+                return ReponsesPagination.sansTotal(clientService.rechercherClientsAvecFiltresSansTotal(
+                        null, telephone, pageable));
+            }
+            
             Page<ClientDto> clients = clientService.rechercherClientsParTelephone(telephone, pageable);
             
             return new ResponseEntity<>(Map.of(
@@ -209,6 +332,68 @@ public class ClientController {
         }
     }
     
+    /**
+     * Autocomplétion des téléphones par préfixe (index en mémoire, sans accès à la base)
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<?> autocompleterTelephone(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<SuggestionTelephoneDto> suggestions = autocompletionService.suggerer(
+                    prefix, Math.max(1, Math.min(limit, LIMITE_AUTOCOMPLETION_MAX)));
+            return new ResponseEntity<>(Map.of(
+                    "success", true,
+                    "data", suggestions
+            ), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+    
+    /**
+     * Les n clients qui doivent le plus (classement en mémoire, sans accès à la base)
+     */
+    @GetMapping("/top-debtors")
+    public ResponseEntity<?> obtenirPlusGrosDebiteurs(@RequestParam(defaultValue = "50") int n) {
+        try {
+            List<DebiteurDto> debiteurs = classementDebiteursService.obtenirPlusGrosDebiteurs(
+                    Math.max(1, Math.min(n, LIMITE_DEBITEURS_MAX)));
+            return new ResponseEntity<>(Map.of(
+                    "success", true,
+                    "data", debiteurs
+            ), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+    
+    /**
+     * Recharger le classement des débiteurs depuis les agrégats des clients
+     */
+    @PostMapping("/top-debtors/reconstruire")
+    public ResponseEntity<?> reconstruireClassementDebiteurs() {
+        try {
+            int nombreDebiteurs = classementDebiteursService.reconstruire();
+            return new ResponseEntity<>(Map.of(
+                    "success", true,
+                    "message", "Classement des débiteurs reconstruit",
+                    "data", Map.of("nombreDebiteurs", nombreDebiteurs)
+            ), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+    
     /**
      * Mettre à jour un client
      */
@@ -267,4 +452,11 @@ public class ClientController {
             ), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Le curseur ne sait reprendre que l'ordre par défaut (id croissant)
+     */
+    private static boolean triDuCurseur(String sortBy, String sortDir) {
+        return "id".equals(sortBy) && "asc".equalsIgnoreCase(sortDir);
+    }
+}
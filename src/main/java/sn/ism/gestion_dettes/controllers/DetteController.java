@@ -1,6 +1,8 @@
 package sn.ism.gestion_dettes.controllers;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -9,7 +11,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -19,13 +25,22 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.TrancheAncienneteDto;
+import sn.ism.gestion_dettes.services.AncienneteService;
 import sn.ism.gestion_dettes.services.DetteService;
+import sn.ism.gestion_dettes.services.ExportService;
+import sn.ism.gestion_dettes.services.FormatFichier;
 
 @RestController
 @RequestMapping("/dettes")
@@ -35,6 +50,14 @@ public class DetteController {
     @Autowired
     private DetteService detteService;
     
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private AncienneteService ancienneteService;
+    
+    private static final String ORDRE_CURSEUR = "id décroissant";
+    
     /**
      *  Ajouter une nouvelle dette
      */
@@ -75,31 +98,86 @@ public class DetteController {
         }
     }
     
+    /**
+     *  Exporter toutes les dettes en flux (CSV par défaut, NDJSON avec ?format=ndjson ou Accept)
+     */
+    @GetMapping("/export")
+    public void exporterDettes(
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response) throws IOException {
+        FormatFichier formatExport = FormatFichier.depuis(format, accept);
+        response.setContentType(formatExport.getTypeContenu());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, 
+                "attachment; filename=\"dettes." + formatExport.name().toLowerCase() + "\"");
+        exportService.exporterDettes(response.getOutputStream(), formatExport);
+    }
+    
     /**
      *  Obtenir toutes les dettes avec pagination et filtres
+     *  Avec after (curseur), seul l'ordre par défaut (id décroissant) est accepté : un autre tri renvoie 400
+     *  approxTotal (avec withTotal=false) : estimation tirée des statistiques de la table, null si un filtre s'applique
+     *  ou si la base n'expose pas ces statistiques
      */
     @GetMapping
     public ResponseEntity<?> obtenirToutesLesDettes(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = ReponsesPagination.MESSAGE_TAILLE_PAGE)
+            @Max(value = ReponsesPagination.TAILLE_PAGE_MAX, message = ReponsesPagination.MESSAGE_TAILLE_PAGE) int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
             @RequestParam(required = false) Long clientId,
             @RequestParam(required = false) String telephone,
             @RequestParam(required = false) BigDecimal montantMin,
-            @RequestParam(required = false) BigDecimal montantMax) {
+            @RequestParam(required = false) BigDecimal montantMax,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            @RequestParam(defaultValue = "false") boolean approxTotal) {
         
         try {
+            // Pagination par curseur si demandée
+            if (after != null) {
+                if (!triDuCurseur(sortBy, sortDir)) {
+                    return ReponsesPagination.triIncompatibleAvecCurseur(ORDRE_CURSEUR);
+                }
+                boolean filtre = clientId != null || telephone != null || montantMin != null || montantMax != null
+                        || dateFrom != null || dateTo != null;
+                return ReponsesPagination.curseur(filtre
+                        ? detteService.rechercherDettesAvecFiltresApres(clientId, telephone, 
+                                montantMin, montantMax, dateFrom, dateTo, after, size)
+                        : detteService.obtenirToutesLesDettesApres(after, size));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                     Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            // Sans total : tranche sans COUNT
+            if (!withTotal) {
+                boolean filtre = clientId != null || telephone != null || montantMin != null || montantMax != null
+                        || dateFrom != null || dateTo != null;
+                Slice<DetteDto> tranche = filtre
+                        ? detteService.rechercherDettesAvecFiltresSansTotal(clientId, telephone, 
+                                montantMin, montantMax, dateFrom, dateTo, pageable)
+                        : detteService.obtenirToutesLesDettesSansTotal(pageable);
+                if (!approxTotal) {
+                    return ReponsesPagination.sansTotal(tranche);
+                }
+                // Estimation tirée des statistiques de la table : sans objet dès qu'un filtre s'applique
+                return ReponsesPagination.sansTotal(tranche, filtre ? null : detteService.estimerNombreDettes(), true);
+            }
+            
             Page<DetteDto> dettes;
             
             // Appliquer les filtres si fournis
-            if (clientId != null || telephone != null || montantMin != null || montantMax != null) {
+            if (clientId != null || telephone != null || montantMin != null || montantMax != null
+                        || dateFrom != null || dateTo != null) {
                 dettes = detteService.rechercherDettesAvecFiltres(clientId, telephone, 
-                        montantMin, montantMax, pageable);
+                        montantMin, montantMax, dateFrom, dateTo, pageable);
             } else {
                 dettes = detteService.obtenirToutesLesDettes(pageable);
             }
@@ -126,20 +204,38 @@ public class DetteController {
     
     /**
      *  Lister les dettes d'un client avec pagination
+     *  Avec after (curseur), seul l'ordre par défaut (id décroissant) est accepté : un autre tri renvoie 400
      */
     @GetMapping("/client/{clientId}")
     public ResponseEntity<?> listerDettesClient(
             @PathVariable Long clientId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = ReponsesPagination.MESSAGE_TAILLE_PAGE)
+            @Max(value = ReponsesPagination.TAILLE_PAGE_MAX, message = ReponsesPagination.MESSAGE_TAILLE_PAGE) int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
         
         try {
+            // Pagination par curseur si demandée
+            if (after != null) {
+                if (!triDuCurseur(sortBy, sortDir)) {
+                    return ReponsesPagination.triIncompatibleAvecCurseur(ORDRE_CURSEUR);
+                }
+                return ReponsesPagination.curseur(detteService.listerDettesClientApres(clientId, after, size));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                     Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            // Sans total : tranche sans COUNT
+            if (!withTotal) {
+                return ReponsesPagination.sansTotal(detteService.listerDettesClientSansTotal(clientId, pageable));
+            }
+            
             Page<DetteDto> dettes = detteService.listerDettesClient(clientId, pageable);
             
             return new ResponseEntity<>(Map.of(
@@ -164,20 +260,40 @@ public class DetteController {
     
     /**
      *  Rechercher des dettes par téléphone du client
+     *  Avec after (curseur), seul l'ordre par défaut (id décroissant) est accepté : un autre tri renvoie 400
      */
     @GetMapping("/search-by-phone")
     public ResponseEntity<?> rechercherDettesParTelephone(
             @RequestParam String telephone,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = ReponsesPagination.MESSAGE_TAILLE_PAGE)
+            @Max(value = ReponsesPagination.TAILLE_PAGE_MAX, message = ReponsesPagination.MESSAGE_TAILLE_PAGE) int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
         
         try {
+            // Pagination par curseur si demandée
+            if (after != null) {
+                if (!triDuCurseur(sortBy, sortDir)) {
+                    return ReponsesPagination.triIncompatibleAvecCurseur(ORDRE_CURSEUR);
+                }
+                return ReponsesPagination.curseur(detteService.rechercherDettesAvecFiltresApres(
+                        null, telephone, null, null, null, null, after, size));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                     Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            // Sans total : tranche sans COUNT
+            if (!withTotal) {
+                return ReponsesPagination.sansTotal(detteService.rechercherDettesAvecFiltresSansTotal(
+                        null, telephone, null, null, null, null, pageable));
+            }
+            
             Page<DetteDto> dettes = detteService.listerDettesAvecFiltreTelephone(telephone, pageable);
             
             return new ResponseEntity<>(Map.of(
@@ -204,14 +320,23 @@ public class DetteController {
      *  Obtenir une dette par ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> obtenirDetteParId(@PathVariable Long id) {
+    public ResponseEntity<?> obtenirDetteParId(@PathVariable Long id, WebRequest request) {
         try {
-            Optional<DetteDto> dette = detteService.obtenirDetteParId(id);
+            // Versions de la dette et de son client : 304 si aucune des deux n'a bougé
+            Optional<String> version = detteService.obtenirVersionDette(id);
+            String etag = version.map(v -> "\"" + v + "\"").orElse(null);
+            if (etag != null && request.checkNotModified(etag)) {
+                return null;
+            }
+            Optional<DetteDto> dette = etag != null ? detteService.obtenirDetteParId(id) : Optional.empty();
             if (dette.isPresent()) {
-                return new ResponseEntity<>(Map.of(
-                        "success", true,
-                        "data", dette.get()
-                ), HttpStatus.OK);
+                return ResponseEntity.ok()
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache())
+                        .body(Map.of(
+                                "success", true,
+                                "data", dette.get()
+                        ));
             } else {
                 return new ResponseEntity<>(Map.of(
                         "success", false,
@@ -228,20 +353,39 @@ public class DetteController {
     
     /**
      *  Obtenir les dettes non payées
+     *  Avec after (curseur), seul l'ordre par défaut (id décroissant) est accepté : un autre tri renvoie 400
      */
     @GetMapping("/non-payees")
     public ResponseEntity<?> obtenirDettesNonPayees(
+            @RequestParam(required = false) Long clientId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = ReponsesPagination.MESSAGE_TAILLE_PAGE)
+            @Max(value = ReponsesPagination.TAILLE_PAGE_MAX, message = ReponsesPagination.MESSAGE_TAILLE_PAGE) int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
         
         try {
+            // Pagination par curseur si demandée
+            if (after != null) {
+                if (!triDuCurseur(sortBy, sortDir)) {
+                    return ReponsesPagination.triIncompatibleAvecCurseur(ORDRE_CURSEUR);
+                }
+                return ReponsesPagination.curseur(detteService.obtenirDettesNonPayeesApres(clientId, after, size));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                     Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
-            Page<DetteDto> dettes = detteService.obtenirDettesNonPayees(pageable);
+            // Sans total : tranche sans COUNT
+            if (!withTotal) {
+                return ReponsesPagination.sansTotal(detteService.obtenirDettesNonPayeesSansTotal(clientId, pageable));
+            }
+            
+            Page<DetteDto> dettes = detteService.obtenirDettesNonPayees(clientId, pageable);
             
             return new ResponseEntity<>(Map.of(
                     "success", true,
@@ -265,20 +409,39 @@ public class DetteController {
     
     /**
      *  Obtenir les dettes payées
+     *  Avec after (curseur), seul l'ordre par défaut (id décroissant) est accepté : un autre tri renvoie 400
      */
     @GetMapping("/payees")
     public ResponseEntity<?> obtenirDettesPayees(
+            @RequestParam(required = false) Long clientId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = ReponsesPagination.MESSAGE_TAILLE_PAGE)
+            @Max(value = ReponsesPagination.TAILLE_PAGE_MAX, message = ReponsesPagination.MESSAGE_TAILLE_PAGE) int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
         
         try {
+            // Pagination par curseur si demandée
+            if (after != null) {
+                if (!triDuCurseur(sortBy, sortDir)) {
+                    return ReponsesPagination.triIncompatibleAvecCurseur(ORDRE_CURSEUR);
+                }
+                return ReponsesPagination.curseur(detteService.obtenirDettesPayeesApres(clientId, after, size));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                     Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
-            Page<DetteDto> dettes = detteService.obtenirDettesPayees(pageable);
+            // Sans total : tranche sans COUNT
+            if (!withTotal) {
+                return ReponsesPagination.sansTotal(detteService.obtenirDettesPayeesSansTotal(clientId, pageable));
+            }
+            
+            Page<DetteDto> dettes = detteService.obtenirDettesPayees(clientId, pageable);
             
             return new ResponseEntity<>(Map.of(
                     "success", true,
@@ -397,6 +560,44 @@ public class DetteController {
         }
     }
     
+    /**
+     *  Obtenir l'ancienneté des créances de tout le portefeuille
+     */
+    @GetMapping("/aging")
+    public ResponseEntity<?> obtenirAnciennete() {
+        try {
+            List<TrancheAncienneteDto> tranches = ancienneteService.obtenirAnciennete();
+            return new ResponseEntity<>(Map.of(
+                    "success", true,
+                    "data", tranches
+            ), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+    
+    /**
+     *  Obtenir l'ancienneté des créances d'un client
+     */
+    @GetMapping("/client/{clientId}/aging")
+    public ResponseEntity<?> obtenirAncienneteClient(@PathVariable Long clientId) {
+        try {
+            List<TrancheAncienneteDto> tranches = ancienneteService.obtenirAncienneteClient(clientId);
+            return new ResponseEntity<>(Map.of(
+                    "success", true,
+                    "data", tranches
+            ), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ), HttpStatus.BAD_REQUEST);
+        }
+    }
+    
     /**
      *  Vérifier si une dette existe
      */
@@ -415,4 +616,11 @@ public class DetteController {
             ), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Le curseur ne sait reprendre que l'ordre par défaut (id décroissant)
+     */
+    private static boolean triDuCurseur(String sortBy, String sortDir) {
+        return "id".equals(sortBy) && "desc".equalsIgnoreCase(sortDir);
+    }
+}
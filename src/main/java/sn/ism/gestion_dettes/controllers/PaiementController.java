@@ -1,6 +1,9 @@
 package sn.ism.gestion_dettes.controllers;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -9,7 +12,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -19,12 +26,21 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import sn.ism.gestion_dettes.dto.PaiementDto;
+import sn.ism.gestion_dettes.dto.RapportLotPaiementsDto;
+import sn.ism.gestion_dettes.services.ExportService;
+import sn.ism.gestion_dettes.services.FormatFichier;
+import sn.ism.gestion_dettes.services.LotPaiementsService;
 import sn.ism.gestion_dettes.services.PaiementService;
 
 @RestController
@@ -35,6 +51,14 @@ public class PaiementController {
     @Autowired
     private PaiementService paiementService;
     
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private LotPaiementsService lotPaiementsService;
+    
+    private static final String ORDRE_CURSEUR = "dateCreation puis id décroissants";
+    
     /**
      *  Ajouter un paiement à une dette
      */
@@ -55,6 +79,26 @@ public class PaiementController {
         }
     }
     
+    /**
+     *  Enregistrer un lot de paiements (rapport d'erreurs par ligne)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> enregistrerLotPaiements(@RequestBody List<PaiementDto> paiements) {
+        try {
+            RapportLotPaiementsDto rapport = lotPaiementsService.enregistrer(paiements);
+            return new ResponseEntity<>(Map.of(
+                    "success", true,
+                    "message", rapport.getPaiementsEnregistres() + " paiements enregistrés",
+                    "data", rapport
+            ), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ), HttpStatus.BAD_REQUEST);
+        }
+    }
+    
     /**
      *  Payer une dette complètement
      */
@@ -71,7 +115,17 @@ public class PaiementController {
                 ), HttpStatus.BAD_REQUEST);
             }
             
-            PaiementDto paiement = paiementService.payerDetteCompletement(detteId, datePaiement);
+            LocalDate date;
+            try {
+                date = LocalDate.parse(datePaiement.trim());
+            } catch (DateTimeParseException e) {
+                return new ResponseEntity<>(Map.of(
+                        "success", false,
+                        "message", "La date de paiement doit être au format AAAA-MM-JJ"
+                ), HttpStatus.BAD_REQUEST);
+            }
+            
+            PaiementDto paiement = paiementService.payerDetteCompletement(detteId, date);
             return new ResponseEntity<>(Map.of(
                     "success", true,
                     "message", "Dette payée complètement avec succès",
@@ -85,31 +139,86 @@ public class PaiementController {
         }
     }
     
+    /**
+     *  Exporter tous les paiements en flux (CSV par défaut, NDJSON avec ?format=ndjson ou Accept)
+     */
+    @GetMapping("/export")
+    public void exporterPaiements(
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response) throws IOException {
+        FormatFichier formatExport = FormatFichier.depuis(format, accept);
+        response.setContentType(formatExport.getTypeContenu());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, 
+                "attachment; filename=\"paiements." + formatExport.name().toLowerCase() + "\"");
+        exportService.exporterPaiements(response.getOutputStream(), formatExport);
+    }
+    
     /**
      *  Obtenir tous les paiements avec pagination et filtres
+     *  Avec after (curseur), seul l'ordre par défaut (dateCreation puis id décroissants) est accepté : un autre tri renvoie 400
+     *  approxTotal (avec withTotal=false) : estimation tirée des statistiques de la table, null si un filtre s'applique
+     *  ou si la base n'expose pas ces statistiques
      */
     @GetMapping
     public ResponseEntity<?> obtenirTousLesPaiements(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = ReponsesPagination.MESSAGE_TAILLE_PAGE)
+            @Max(value = ReponsesPagination.TAILLE_PAGE_MAX, message = ReponsesPagination.MESSAGE_TAILLE_PAGE) int size,
             @RequestParam(defaultValue = "dateCreation") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
             @RequestParam(required = false) String telephone,
             @RequestParam(required = false) Long detteId,
             @RequestParam(required = false) BigDecimal montantMin,
-            @RequestParam(required = false) BigDecimal montantMax) {
+            @RequestParam(required = false) BigDecimal montantMax,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            @RequestParam(defaultValue = "false") boolean approxTotal) {
         
         try {
+            // Pagination par curseur si demandée
+            if (after != null) {
+                if (!triDuCurseur(sortBy, sortDir)) {
+                    return ReponsesPagination.triIncompatibleAvecCurseur(ORDRE_CURSEUR);
+                }
+                boolean filtre = telephone != null || detteId != null || montantMin != null || montantMax != null
+                        || dateFrom != null || dateTo != null;
+                return ReponsesPagination.curseur(filtre
+                        ? paiementService.rechercherPaiementsAvecFiltresApres(telephone, detteId, 
+                                montantMin, montantMax, dateFrom, dateTo, after, size)
+                        : paiementService.obtenirTousLesPaiementsApres(after, size));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                     Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            // Sans total : tranche sans COUNT
+            if (!withTotal) {
+                boolean filtre = telephone != null || detteId != null || montantMin != null || montantMax != null
+                        || dateFrom != null || dateTo != null;
+                Slice<PaiementDto> tranche = filtre
+                        ? paiementService.rechercherPaiementsAvecFiltresSansTotal(telephone, detteId, 
+                                montantMin, montantMax, dateFrom, dateTo, pageable)
+                        : paiementService.obtenirTousLesPaiementsSansTotal(pageable);
+                if (!approxTotal) {
+                    return ReponsesPagination.sansTotal(tranche);
+                }
+                // Estimation tirée des statistiques de la table : sans objet dès qu'un filtre s'applique
+                return ReponsesPagination.sansTotal(tranche, filtre ? null : paiementService.estimerNombrePaiements(), true);
+            }
+            
             Page<PaiementDto> paiements;
             
             // Appliquer les filtres si fournis
-            if (telephone != null || detteId != null || montantMin != null || montantMax != null) {
+            if (telephone != null || detteId != null || montantMin != null || montantMax != null
+                        || dateFrom != null || dateTo != null) {
                 paiements = paiementService.rechercherPaiementsAvecFiltres(
-                        telephone, detteId, montantMin, montantMax, pageable);
+                        telephone, detteId, montantMin, montantMax, dateFrom, dateTo, pageable);
             } else {
                 paiements = paiementService.obtenirTousLesPaiements(pageable);
             }
@@ -136,20 +245,38 @@ public class PaiementController {
     
     /**
      *  Obtenir les paiements d'une dette avec pagination
+     *  Avec after (curseur), seul l'ordre par défaut (dateCreation puis id décroissants) est accepté : un autre tri renvoie 400
      */
     @GetMapping("/dette/{detteId}")
     public ResponseEntity<?> obtenirPaiementsDette(
             @PathVariable Long detteId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = ReponsesPagination.MESSAGE_TAILLE_PAGE)
+            @Max(value = ReponsesPagination.TAILLE_PAGE_MAX, message = ReponsesPagination.MESSAGE_TAILLE_PAGE) int size,
             @RequestParam(defaultValue = "dateCreation") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
         
         try {
+            // Pagination par curseur si demandée
+            if (after != null) {
+                if (!triDuCurseur(sortBy, sortDir)) {
+                    return ReponsesPagination.triIncompatibleAvecCurseur(ORDRE_CURSEUR);
+                }
+                return ReponsesPagination.curseur(paiementService.obtenirPaiementsDetteApres(detteId, after, size));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                     Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            // Sans total : tranche sans COUNT
+            if (!withTotal) {
+                return ReponsesPagination.sansTotal(paiementService.obtenirPaiementsDetteSansTotal(detteId, pageable));
+            }
+            
             Page<PaiementDto> paiements = paiementService.obtenirPaiementsDette(detteId, pageable);
             
             return new ResponseEntity<>(Map.of(
@@ -176,13 +303,22 @@ public class PaiementController {
      * Obtenir les paiements d'une dette (sans pagination)
      */
     @GetMapping("/dette/{detteId}/simple")
-    public ResponseEntity<?> obtenirPaiementsDetteSimple(@PathVariable Long detteId) {
+    public ResponseEntity<?> obtenirPaiementsDetteSimple(@PathVariable Long detteId, WebRequest request) {
         try {
+            // Vide si la dette n'existe pas : obtenirPaiementsDetteOrdonnes lève alors l'erreur habituelle
+            String etag = paiementService.obtenirVersionPaiementsDette(detteId)
+                    .map(v -> "\"" + v + "\"").orElse(null);
+            if (etag != null && request.checkNotModified(etag)) {
+                return null;
+            }
             List<PaiementDto> paiements = paiementService.obtenirPaiementsDetteOrdonnes(detteId);
-            return new ResponseEntity<>(Map.of(
-                    "success", true,
-                    "data", paiements
-            ), HttpStatus.OK);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(Map.of(
+                            "success", true,
+                            "data", paiements
+                    ));
         } catch (Exception e) {
             return new ResponseEntity<>(Map.of(
                     "success", false,
@@ -193,20 +329,40 @@ public class PaiementController {
     
     /**
      * Rechercher des paiements par téléphone du client
+     *  Avec after (curseur), seul l'ordre par défaut (dateCreation puis id décroissants) est accepté : un autre tri renvoie 400
      */
     @GetMapping("/search-by-phone")
     public ResponseEntity<?> rechercherPaiementsParTelephone(
             @RequestParam String telephone,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = ReponsesPagination.MESSAGE_TAILLE_PAGE)
+            @Max(value = ReponsesPagination.TAILLE_PAGE_MAX, message = ReponsesPagination.MESSAGE_TAILLE_PAGE) int size,
             @RequestParam(defaultValue = "dateCreation") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
         
         try {
+            // Pagination par curseur si demandée
+            if (after != null) {
+                if (!triDuCurseur(sortBy, sortDir)) {
+                    return ReponsesPagination.triIncompatibleAvecCurseur(ORDRE_CURSEUR);
+                }
+                return ReponsesPagination.curseur(paiementService.rechercherPaiementsAvecFiltresApres(
+                        telephone, null, null, null, null, null, after, size));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                     Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            // Sans total : tranche sans COUNT
+            if (!withTotal) {
+                return ReponsesPagination.sansTotal(paiementService.rechercherPaiementsAvecFiltresSansTotal(
+                        telephone, null, null, null, null, null, pageable));
+            }
+            
             Page<PaiementDto> paiements = paiementService.rechercherPaiementsParTelephone(telephone, pageable);
             
             return new ResponseEntity<>(Map.of(
@@ -352,4 +508,11 @@ public class PaiementController {
             ), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Le curseur ne sait reprendre que l'ordre par défaut (dateCreation puis id décroissants)
+     */
+    private static boolean triDuCurseur(String sortBy, String sortDir) {
+        return "dateCreation".equals(sortBy) && "desc".equalsIgnoreCase(sortDir);
+    }
+}
@@ -0,0 +1,74 @@
+package sn.ism.gestion_dettes.controllers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import sn.ism.gestion_dettes.dto.PageCurseurDto;
+
+/**
+ * Réponses communes des listes paginées par curseur (after) ou sans total (withTotal=false)
+ */
+final class ReponsesPagination {
+
+    // Taille de page acceptée par les listes : size + 1 lignes sont lues pour savoir s'il y a une suite
+    static final int TAILLE_PAGE_MAX = 1000;
+    static final String MESSAGE_TAILLE_PAGE = "size doit être compris entre 1 et " + TAILLE_PAGE_MAX;
+
+    private ReponsesPagination() {}
+
+    /**
+     * Refuser un tri autre que l'ordre suivi par le curseur
+     */
+    static ResponseEntity<?> triIncompatibleAvecCurseur(String ordreCurseur) {
+        return new ResponseEntity<>(Map.of(
+                "success", false,
+                "message", "La pagination par curseur (after) suit l'ordre " + ordreCurseur + " : "
+                        + "sortBy et sortDir ne peuvent pas être modifiés"
+        ), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Construire la réponse d'une page obtenue par curseur
+     */
+    static ResponseEntity<?> curseur(PageCurseurDto<?> page) {
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("size", page.getSize());
+        pagination.put("hasNext", page.hasNext());
+        pagination.put("nextCursor", page.getNextCursor());
+        return new ResponseEntity<>(Map.of(
+                "success", true,
+                "data", page.getContent(),
+                "pagination", pagination
+        ), HttpStatus.OK);
+    }
+
+    /**
+     * Construire la réponse d'une tranche sans total
+     */
+    static ResponseEntity<?> sansTotal(Slice<?> tranche) {
+        return sansTotal(tranche, null, false);
+    }
+
+    /**
+     * Avec totalApproximatifDemande, approxTotalElements figure dans la réponse, null si aucune estimation n'existe
+     */
+    static ResponseEntity<?> sansTotal(Slice<?> tranche, Long totalApproximatif, boolean totalApproximatifDemande) {
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("currentPage", tranche.getNumber());
+        pagination.put("size", tranche.getSize());
+        pagination.put("hasNext", tranche.hasNext());
+        pagination.put("hasPrevious", tranche.hasPrevious());
+        if (totalApproximatifDemande) {
+            pagination.put("approxTotalElements", totalApproximatif);
+        }
+        return new ResponseEntity<>(Map.of(
+                "success", true,
+                "data", tranche.getContent(),
+                "pagination", pagination
+        ), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,63 @@
+package sn.ism.gestion_dettes.controllers;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import sn.ism.gestion_dettes.dto.TableauDeBordDto;
+import sn.ism.gestion_dettes.services.TableauDeBordService;
+
+@RestController
+@RequestMapping("/dashboard")
+@CrossOrigin(origins = "*")
+public class TableauDeBordController {
+    
+    @Autowired
+    private TableauDeBordService tableauDeBordService;
+    
+    /**
+     *  Obtenir le tableau de bord du portefeuille
+     */
+    @GetMapping
+    public ResponseEntity<?> obtenirTableauDeBord() {
+        try {
+            TableauDeBordDto tableau = tableauDeBordService.obtenirTableauDeBord();
+            return new ResponseEntity<>(Map.of(
+                    "success", true,
+                    "data", tableau
+            ), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+    
+    /**
+     *  Recalculer le tableau de bord depuis les dettes et paiements (les écritures attendent la fin du recalcul)
+     */
+    @PostMapping("/reconstruire")
+    public ResponseEntity<?> reconstruireTableauDeBord() {
+        try {
+            TableauDeBordDto tableau = tableauDeBordService.reconstruire();
+            return new ResponseEntity<>(Map.of(
+                    "success", true,
+                    "message", "Tableau de bord reconstruit",
+                    "data", tableau
+            ), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package sn.ism.gestion_dettes.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Agrégats des paiements d'une dette, calculés en base en une requête (montants nuls sans paiement)
+ */
+public class AgregatsPaiementsDto {
+    
+    private long nombrePaiements;
+    private BigDecimal montantTotal;
+    private BigDecimal montantMin;
+    private BigDecimal montantMax;
+    private BigDecimal montantDette;
+    private BigDecimal montantRestant;
+    
+    public AgregatsPaiementsDto(Long nombrePaiements, BigDecimal montantTotal, BigDecimal montantMin,
+                                BigDecimal montantMax, BigDecimal montantDette, BigDecimal montantRestant) {
+        this.nombrePaiements = nombrePaiements;
+        this.montantTotal = montantTotal != null ? montantTotal : BigDecimal.ZERO;
+        this.montantMin = montantMin != null ? montantMin : BigDecimal.ZERO;
+        this.montantMax = montantMax != null ? montantMax : BigDecimal.ZERO;
+        this.montantDette = montantDette;
+        this.montantRestant = montantRestant;
+    }
+    
+    // Getters
+    public long getNombrePaiements() { return nombrePaiements; }
+    public BigDecimal getMontantTotal() { return montantTotal; }
+    public BigDecimal getMontantMin() { return montantMin; }
+    public BigDecimal getMontantMax() { return montantMax; }
+    public BigDecimal getMontantDette() { return montantDette; }
+    public BigDecimal getMontantRestant() { return montantRestant; }
+    
+    /**
+     * Montant moyen = total / nombre, arrondi au centime (AVG SQL renverrait un double)
+     */
+    public BigDecimal getMontantMoyen() {
+        return nombrePaiements == 0 ? BigDecimal.ZERO :
+                montantTotal.divide(BigDecimal.valueOf(nombrePaiements), 2, RoundingMode.HALF_UP);
+    }
+}
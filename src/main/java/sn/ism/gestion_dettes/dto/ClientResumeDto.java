@@ -0,0 +1,36 @@
+package sn.ism.gestion_dettes.dto;
+
+public class ClientResumeDto {
+    
+    private Long id;
+    private String nom;
+    private String telephone;
+    
+    // Constructeurs
+    public ClientResumeDto() {}
+    
+    public ClientResumeDto(Long id, String nom, String telephone) {
+        this.id = id;
+        this.nom = nom;
+        this.telephone = telephone;
+    }
+    
+    // Getters et Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getNom() { return nom; }
+    public void setNom(String nom) { this.nom = nom; }
+    
+    public String getTelephone() { return telephone; }
+    public void setTelephone(String telephone) { this.telephone = telephone; }
+    
+    @Override
+    public String toString() {
+        return "ClientResumeDto{" +
+                "id=" + id +
+                ", nom='" + nom + '\'' +
+                ", telephone='" + telephone + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,76 @@
+package sn.ism.gestion_dettes.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Curseur opaque de pagination par clé (clé de tri, id)
+ */
+public class Curseur {
+    
+    private static final String SEPARATEUR = "|";
+    
+    private final String cle;
+    private final Long id;
+    
+    // Constructeurs
+    public Curseur(String cle, Long id) {
+        this.cle = cle;
+        this.id = id;
+    }
+    
+    /**
+     * Encoder un curseur dont la clé de tri est l'id lui-même
+     */
+    public static String encoder(Long id) {
+        return encoder(null, id);
+    }
+    
+    /**
+     * Encoder un curseur (clé de tri, id) en chaîne opaque
+     */
+    public static String encoder(Object cle, Long id) {
+        String brut = (cle != null ? cle.toString() : "") + SEPARATEUR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Décoder un curseur ; une valeur vide désigne la première page
+     */
+    public static Curseur decoder(String valeur) {
+        if (valeur == null || valeur.isBlank()) {
+            return new Curseur(null, null);
+        }
+        try {
+            String brut = new String(Base64.getUrlDecoder().decode(valeur), StandardCharsets.UTF_8);
+            int position = brut.lastIndexOf(SEPARATEUR);
+            if (position < 0) {
+                throw new IllegalArgumentException("Curseur invalide");
+            }
+            String cle = brut.substring(0, position);
+            Long id = Long.valueOf(brut.substring(position + 1));
+            return new Curseur(cle.isEmpty() ? null : cle, id);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur invalide: " + valeur);
+        }
+    }
+    
+    // Getters
+    public String getCle() { return cle; }
+    public Long getId() { return id; }
+    
+    public LocalDateTime getCleDateTime() {
+        try {
+            return cle != null ? LocalDateTime.parse(cle) : null;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Curseur invalide: " + cle);
+        }
+    }
+    
+    public boolean isPremierePage() {
+        return id == null;
+    }
+}
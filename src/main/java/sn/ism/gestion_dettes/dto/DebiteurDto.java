@@ -0,0 +1,41 @@
+package sn.ism.gestion_dettes.dto;
+
+import java.math.BigDecimal;
+
+public class DebiteurDto {
+    
+    private Long clientId;
+    private String nom;
+    private String telephone;
+    private BigDecimal montantRestant;
+    
+    // Constructeurs
+    public DebiteurDto() {}
+    
+    public DebiteurDto(Long clientId, BigDecimal montantRestant) {
+        this.clientId = clientId;
+        this.montantRestant = montantRestant;
+    }
+    
+    // Getters et Setters
+    public Long getClientId() { return clientId; }
+    public void setClientId(Long clientId) { this.clientId = clientId; }
+    
+    public String getNom() { return nom; }
+    public void setNom(String nom) { this.nom = nom; }
+    
+    public String getTelephone() { return telephone; }
+    public void setTelephone(String telephone) { this.telephone = telephone; }
+    
+    public BigDecimal getMontantRestant() { return montantRestant; }
+    public void setMontantRestant(BigDecimal montantRestant) { this.montantRestant = montantRestant; }
+    
+    @Override
+    public String toString() {
+        return "DebiteurDto{" +
+                "clientId=" + clientId +
+                ", nom='" + nom + '\'' +
+                ", montantRestant=" + montantRestant +
+                '}';
+    }
+}
@@ -1,17 +1,18 @@
 package sn.ism.gestion_dettes.dto;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 import jakarta.validation.constraints.DecimalMin;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import sn.ism.gestion_dettes.entities.TrancheAnciennete;
 
 public class DetteDto {
     
     private Long id;
     
-    @NotBlank(message = "La date est obligatoire")
-    private String date;
+    @NotNull(message = "La date est obligatoire")
+    private LocalDate date;
     
     @NotNull(message = "Le montant de la dette est obligatoire")
     @DecimalMin(value = "0.01", message = "Le montant de la dette doit être positif")
@@ -26,10 +27,13 @@ public class DetteDto {
     private String clientNom;
     private String clientTelephone;
     
+    // Lecture seule : tranche d'ancienneté tenue en base
+    private TrancheAnciennete tranche;
+    
     // Constructeurs
     public DetteDto() {}
     
-    public DetteDto(String date, BigDecimal montantDette, Long clientId) {
+    public DetteDto(LocalDate date, BigDecimal montantDette, Long clientId) {
         this.date = date;
         this.montantDette = montantDette;
         this.clientId = clientId;
@@ -37,8 +41,8 @@ public class DetteDto {
         calculerMontantRestant();
     }
     
-    public DetteDto(Long id, String date, BigDecimal montantDette, BigDecimal montantPaye, 
-                   Long clientId, String clientNom, String clientTelephone) {
+    public DetteDto(Long id, LocalDate date, BigDecimal montantDette, BigDecimal montantPaye, 
+                   Long clientId, String clientNom, String clientTelephone, TrancheAnciennete tranche) {
         this.id = id;
         this.date = date;
         this.montantDette = montantDette;
@@ -46,6 +50,7 @@ public class DetteDto {
         this.clientId = clientId;
         this.clientNom = clientNom;
         this.clientTelephone = clientTelephone;
+        this.tranche = tranche;
         calculerMontantRestant();
     }
     
@@ -53,8 +58,8 @@ public class DetteDto {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     
-    public String getDate() { return date; }
-    public void setDate(String date) { this.date = date; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
     
     public BigDecimal getMontantDette() { return montantDette; }
     public void setMontantDette(BigDecimal montantDette) { 
@@ -80,6 +85,9 @@ public class DetteDto {
     public String getClientTelephone() { return clientTelephone; }
     public void setClientTelephone(String clientTelephone) { this.clientTelephone = clientTelephone; }
     
+    public TrancheAnciennete getTranche() { return tranche; }
+    public void setTranche(TrancheAnciennete tranche) { this.tranche = tranche; }
+    
     // Méthode utilitaire
     private void calculerMontantRestant() {
         if (montantDette != null && montantPaye != null) {
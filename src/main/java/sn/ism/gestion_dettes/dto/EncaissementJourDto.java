@@ -0,0 +1,39 @@
+package sn.ism.gestion_dettes.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class EncaissementJourDto {
+    
+    private LocalDate jour;
+    private BigDecimal montant;
+    private long nombrePaiements;
+    
+    // Constructeurs
+    public EncaissementJourDto() {}
+    
+    public EncaissementJourDto(LocalDate jour, BigDecimal montant, Long nombrePaiements) {
+        this.jour = jour;
+        this.montant = montant != null ? montant : BigDecimal.ZERO;
+        this.nombrePaiements = nombrePaiements != null ? nombrePaiements : 0;
+    }
+    
+    // Getters et Setters
+    public LocalDate getJour() { return jour; }
+    public void setJour(LocalDate jour) { this.jour = jour; }
+    
+    public BigDecimal getMontant() { return montant; }
+    public void setMontant(BigDecimal montant) { this.montant = montant; }
+    
+    public long getNombrePaiements() { return nombrePaiements; }
+    public void setNombrePaiements(long nombrePaiements) { this.nombrePaiements = nombrePaiements; }
+    
+    @Override
+    public String toString() {
+        return "EncaissementJourDto{" +
+                "jour=" + jour +
+                ", montant=" + montant +
+                ", nombrePaiements=" + nombrePaiements +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package sn.ism.gestion_dettes.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page obtenue par pagination par clé : pas de total, seulement le curseur suivant
+ */
+public class PageCurseurDto<T> {
+    
+    private final List<T> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor;
+    
+    // Constructeurs
+    public PageCurseurDto(List<T> content, int size, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+    
+    /**
+     * Construire la page à partir de size + 1 lignes lues : la ligne en trop indique la suite
+     */
+    public static <T> PageCurseurDto<T> depuisLignes(List<T> lignes, int size, 
+                                                    Function<T, String> curseur) {
+        boolean hasNext = lignes.size() > size;
+        List<T> content = hasNext ? lignes.subList(0, size) : lignes;
+        String nextCursor = hasNext ? curseur.apply(content.get(content.size() - 1)) : null;
+        return new PageCurseurDto<>(content, size, hasNext, nextCursor);
+    }
+    
+    // Getters
+    public List<T> getContent() { return content; }
+    public int getSize() { return size; }
+    public boolean hasNext() { return hasNext; }
+    public String getNextCursor() { return nextCursor; }
+}
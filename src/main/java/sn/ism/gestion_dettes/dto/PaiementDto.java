@@ -1,10 +1,10 @@
 package sn.ism.gestion_dettes.dto;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import jakarta.validation.constraints.DecimalMin;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 public class PaiementDto {
@@ -15,8 +15,8 @@ public class PaiementDto {
     @DecimalMin(value = "0.01", message = "Le montant du paiement doit être positif")
     private BigDecimal montant;
     
-    @NotBlank(message = "La date du paiement est obligatoire")
-    private String datePaiement;
+    @NotNull(message = "La date du paiement est obligatoire")
+    private LocalDate datePaiement;
     
     private LocalDateTime dateCreation;
     
@@ -30,13 +30,13 @@ public class PaiementDto {
     // Constructeurs
     public PaiementDto() {}
     
-    public PaiementDto(BigDecimal montant, String datePaiement, Long detteId) {
+    public PaiementDto(BigDecimal montant, LocalDate datePaiement, Long detteId) {
         this.montant = montant;
         this.datePaiement = datePaiement;
         this.detteId = detteId;
     }
     
-    public PaiementDto(Long id, BigDecimal montant, String datePaiement, 
+    public PaiementDto(Long id, BigDecimal montant, LocalDate datePaiement, 
                       LocalDateTime dateCreation, Long detteId, 
                       String clientTelephone, String clientNom) {
         this.id = id;
@@ -48,6 +48,14 @@ public class PaiementDto {
         this.clientNom = clientNom;
     }
     
+    public PaiementDto(Long id, BigDecimal montant, LocalDate datePaiement, 
+                      LocalDateTime dateCreation, Long detteId, 
+                      String clientTelephone, String clientNom, 
+                      BigDecimal montantDetteTotal) {
+        this(id, montant, datePaiement, dateCreation, detteId, clientTelephone, clientNom);
+        this.montantDetteTotal = montantDetteTotal;
+    }
+    
     // Getters et Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -55,8 +63,8 @@ public class PaiementDto {
     public BigDecimal getMontant() { return montant; }
     public void setMontant(BigDecimal montant) { this.montant = montant; }
     
-    public String getDatePaiement() { return datePaiement; }
-    public void setDatePaiement(String datePaiement) { this.datePaiement = datePaiement; }
+    public LocalDate getDatePaiement() { return datePaiement; }
+    public void setDatePaiement(LocalDate datePaiement) { this.datePaiement = datePaiement; }
     
     public LocalDateTime getDateCreation() { return dateCreation; }
     public void setDateCreation(LocalDateTime dateCreation) { this.dateCreation = dateCreation; }
@@ -0,0 +1,64 @@
+package sn.ism.gestion_dettes.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RapportImportDto {
+    
+    // Au-delà, les erreurs sont comptées mais plus détaillées
+    public static final int ERREURS_MAX = 1000;
+    
+    private long lignesLues;
+    private long clientsImportes;
+    private long nombreErreurs;
+    private boolean erreursTronquees;
+    private List<ErreurLigne> erreurs = new ArrayList<>();
+    
+    // Getters
+    public long getLignesLues() { return lignesLues; }
+    public long getClientsImportes() { return clientsImportes; }
+    public long getNombreErreurs() { return nombreErreurs; }
+    public boolean isErreursTronquees() { return erreursTronquees; }
+    public List<ErreurLigne> getErreurs() { return erreurs; }
+    
+    // Méthodes utilitaires
+    public void ajouterLigneLue() {
+        lignesLues++;
+    }
+    
+    public void ajouterClientsImportes(long nombre) {
+        clientsImportes += nombre;
+    }
+    
+    public void ajouterErreur(long ligne, String message) {
+        nombreErreurs++;
+        if (erreurs.size() < ERREURS_MAX) {
+            erreurs.add(new ErreurLigne(ligne, message));
+        } else {
+            erreursTronquees = true;
+        }
+    }
+    
+    // Erreur rattachée à un numéro de ligne du fichier
+    public static class ErreurLigne {
+        private final long ligne;
+        private final String message;
+        
+        public ErreurLigne(long ligne, String message) {
+            this.ligne = ligne;
+            this.message = message;
+        }
+        
+        public long getLigne() { return ligne; }
+        public String getMessage() { return message; }
+    }
+    
+    @Override
+    public String toString() {
+        return "RapportImportDto{" +
+                "lignesLues=" + lignesLues +
+                ", clientsImportes=" + clientsImportes +
+                ", nombreErreurs=" + nombreErreurs +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+package sn.ism.gestion_dettes.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RapportLotPaiementsDto {
+    
+    private long lignesRecues;
+    private long paiementsEnregistres;
+    private BigDecimal montantTotal = BigDecimal.ZERO;
+    private long nombreErreurs;
+    private boolean erreursTronquees;
+    private List<RapportImportDto.ErreurLigne> erreurs = new ArrayList<>();
+    
+    public RapportLotPaiementsDto(long lignesRecues) {
+        this.lignesRecues = lignesRecues;
+    }
+    
+    // Getters
+    public long getLignesRecues() { return lignesRecues; }
+    public long getPaiementsEnregistres() { return paiementsEnregistres; }
+    public BigDecimal getMontantTotal() { return montantTotal; }
+    public long getNombreErreurs() { return nombreErreurs; }
+    public boolean isErreursTronquees() { return erreursTronquees; }
+    public List<RapportImportDto.ErreurLigne> getErreurs() { return erreurs; }
+    
+    // Méthodes utilitaires
+    public void ajouterPaiement(BigDecimal montant) {
+        paiementsEnregistres++;
+        montantTotal = montantTotal.add(montant);
+    }
+    
+    public void ajouterErreur(long ligne, String message) {
+        nombreErreurs++;
+        if (erreurs.size() < RapportImportDto.ERREURS_MAX) {
+            erreurs.add(new RapportImportDto.ErreurLigne(ligne, message));
+        } else {
+            erreursTronquees = true;
+        }
+    }
+    
+    public void fusionner(RapportLotPaiementsDto autre) {
+        paiementsEnregistres += autre.paiementsEnregistres;
+        montantTotal = montantTotal.add(autre.montantTotal);
+        autre.erreurs.forEach(erreur -> ajouterErreur(erreur.getLigne(), erreur.getMessage()));
+    }
+    
+    @Override
+    public String toString() {
+        return "RapportLotPaiementsDto{" +
+                "lignesRecues=" + lignesRecues +
+                ", paiementsEnregistres=" + paiementsEnregistres +
+                ", montantTotal=" + montantTotal +
+                ", nombreErreurs=" + nombreErreurs +
+                '}';
+    }
+}
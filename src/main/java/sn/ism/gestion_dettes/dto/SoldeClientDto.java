@@ -0,0 +1,56 @@
+package sn.ism.gestion_dettes.dto;
+
+import java.math.BigDecimal;
+
+public class SoldeClientDto {
+    
+    private Long clientId;
+    private BigDecimal totalDettes;
+    private BigDecimal totalRestant;
+    private long nombreDettes;
+    private long nombreDettesPayees;
+    
+    // Constructeurs
+    public SoldeClientDto() {}
+    
+    public SoldeClientDto(Long clientId, BigDecimal totalDettes, BigDecimal totalRestant, 
+                          long nombreDettes, long nombreDettesPayees) {
+        this.clientId = clientId;
+        this.totalDettes = totalDettes;
+        this.totalRestant = totalRestant;
+        this.nombreDettes = nombreDettes;
+        this.nombreDettesPayees = nombreDettesPayees;
+    }
+    
+    // Getters et Setters
+    public Long getClientId() { return clientId; }
+    public void setClientId(Long clientId) { this.clientId = clientId; }
+    
+    public BigDecimal getTotalDettes() { return totalDettes; }
+    public void setTotalDettes(BigDecimal totalDettes) { this.totalDettes = totalDettes; }
+    
+    public BigDecimal getTotalRestant() { return totalRestant; }
+    public void setTotalRestant(BigDecimal totalRestant) { this.totalRestant = totalRestant; }
+    
+    public long getNombreDettes() { return nombreDettes; }
+    public void setNombreDettes(long nombreDettes) { this.nombreDettes = nombreDettes; }
+    
+    public long getNombreDettesPayees() { return nombreDettesPayees; }
+    public void setNombreDettesPayees(long nombreDettesPayees) { this.nombreDettesPayees = nombreDettesPayees; }
+    
+    // Méthode utilitaire
+    public BigDecimal getTotalPaye() {
+        return totalDettes.subtract(totalRestant);
+    }
+    
+    @Override
+    public String toString() {
+        return "SoldeClientDto{" +
+                "clientId=" + clientId +
+                ", totalDettes=" + totalDettes +
+                ", totalRestant=" + totalRestant +
+                ", nombreDettes=" + nombreDettes +
+                ", nombreDettesPayees=" + nombreDettesPayees +
+                '}';
+    }
+}
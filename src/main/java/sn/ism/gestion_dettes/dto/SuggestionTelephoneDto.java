@@ -0,0 +1,30 @@
+package sn.ism.gestion_dettes.dto;
+
+public class SuggestionTelephoneDto {
+    
+    private Long clientId;
+    private String telephone;
+    
+    // Constructeurs
+    public SuggestionTelephoneDto() {}
+    
+    public SuggestionTelephoneDto(Long clientId, String telephone) {
+        this.clientId = clientId;
+        this.telephone = telephone;
+    }
+    
+    // Getters et Setters
+    public Long getClientId() { return clientId; }
+    public void setClientId(Long clientId) { this.clientId = clientId; }
+    
+    public String getTelephone() { return telephone; }
+    public void setTelephone(String telephone) { this.telephone = telephone; }
+    
+    @Override
+    public String toString() {
+        return "SuggestionTelephoneDto{" +
+                "clientId=" + clientId +
+                ", telephone='" + telephone + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,68 @@
+package sn.ism.gestion_dettes.dto;
+
+import java.math.BigDecimal;
+
+public class TableauDeBordDto {
+    
+    private BigDecimal totalDettes;
+    private BigDecimal totalRestant;
+    private long nombreDettes;
+    private long nombreDettesSoldees;
+    private EncaissementJourDto encaissementsDuJour;
+    
+    // Constructeurs
+    public TableauDeBordDto() {}
+    
+    // Sommes SQL : nulles quand aucune ligne n'est agrégée
+    public TableauDeBordDto(BigDecimal totalDettes, BigDecimal totalRestant, 
+                            Long nombreDettes, Long nombreDettesSoldees) {
+        this.totalDettes = totalDettes != null ? totalDettes : BigDecimal.ZERO;
+        this.totalRestant = totalRestant != null ? totalRestant : BigDecimal.ZERO;
+        this.nombreDettes = nombreDettes != null ? nombreDettes : 0;
+        this.nombreDettesSoldees = nombreDettesSoldees != null ? nombreDettesSoldees : 0;
+    }
+    
+    /**
+     * Ajouter les agrégats d'une autre partie du portefeuille
+     */
+    public TableauDeBordDto fusionner(TableauDeBordDto autre) {
+        return new TableauDeBordDto(totalDettes.add(autre.totalDettes), totalRestant.add(autre.totalRestant),
+                nombreDettes + autre.nombreDettes, nombreDettesSoldees + autre.nombreDettesSoldees);
+    }
+    
+    // Getters et Setters
+    public BigDecimal getTotalDettes() { return totalDettes; }
+    public void setTotalDettes(BigDecimal totalDettes) { this.totalDettes = totalDettes; }
+    
+    public BigDecimal getTotalRestant() { return totalRestant; }
+    public void setTotalRestant(BigDecimal totalRestant) { this.totalRestant = totalRestant; }
+    
+    public long getNombreDettes() { return nombreDettes; }
+    public void setNombreDettes(long nombreDettes) { this.nombreDettes = nombreDettes; }
+    
+    public long getNombreDettesSoldees() { return nombreDettesSoldees; }
+    public void setNombreDettesSoldees(long nombreDettesSoldees) { this.nombreDettesSoldees = nombreDettesSoldees; }
+    
+    public EncaissementJourDto getEncaissementsDuJour() { return encaissementsDuJour; }
+    public void setEncaissementsDuJour(EncaissementJourDto encaissementsDuJour) { this.encaissementsDuJour = encaissementsDuJour; }
+    
+    // Méthodes utilitaires
+    public BigDecimal getTotalEncaisse() {
+        return totalDettes.subtract(totalRestant);
+    }
+    
+    public long getNombreDettesEnCours() {
+        return nombreDettes - nombreDettesSoldees;
+    }
+    
+    @Override
+    public String toString() {
+        return "TableauDeBordDto{" +
+                "totalDettes=" + totalDettes +
+                ", totalRestant=" + totalRestant +
+                ", nombreDettes=" + nombreDettes +
+                ", nombreDettesSoldees=" + nombreDettesSoldees +
+                ", encaissementsDuJour=" + encaissementsDuJour +
+                '}';
+    }
+}
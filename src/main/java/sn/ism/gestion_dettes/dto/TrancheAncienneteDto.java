@@ -0,0 +1,45 @@
+package sn.ism.gestion_dettes.dto;
+
+import java.math.BigDecimal;
+
+import sn.ism.gestion_dettes.entities.TrancheAnciennete;
+
+public class TrancheAncienneteDto {
+    
+    private TrancheAnciennete tranche;
+    private BigDecimal montantRestant;
+    private long nombreDettes;
+    
+    // Constructeurs
+    public TrancheAncienneteDto() {}
+    
+    public TrancheAncienneteDto(TrancheAnciennete tranche, BigDecimal montantRestant, Long nombreDettes) {
+        this.tranche = tranche;
+        this.montantRestant = montantRestant != null ? montantRestant : BigDecimal.ZERO;
+        this.nombreDettes = nombreDettes != null ? nombreDettes : 0;
+    }
+    
+    // Getters et Setters
+    public TrancheAnciennete getTranche() { return tranche; }
+    public void setTranche(TrancheAnciennete tranche) { this.tranche = tranche; }
+    
+    public BigDecimal getMontantRestant() { return montantRestant; }
+    public void setMontantRestant(BigDecimal montantRestant) { this.montantRestant = montantRestant; }
+    
+    public long getNombreDettes() { return nombreDettes; }
+    public void setNombreDettes(long nombreDettes) { this.nombreDettes = nombreDettes; }
+    
+    // Méthode utilitaire
+    public String getLibelle() {
+        return tranche.getLibelle();
+    }
+    
+    @Override
+    public String toString() {
+        return "TrancheAncienneteDto{" +
+                "tranche=" + tranche +
+                ", montantRestant=" + montantRestant +
+                ", nombreDettes=" + nombreDettes +
+                '}';
+    }
+}
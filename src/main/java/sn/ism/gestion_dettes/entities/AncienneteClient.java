@@ -0,0 +1,88 @@
+package sn.ism.gestion_dettes.entities;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Restant dû et nombre de dettes en cours d'un client dans une tranche d'ancienneté.
+ * Écrit uniquement par incréments SQL (AncienneteClientRepository).
+ */
+@Entity
+@Table(name = "anciennete_clients", indexes = {
+        @Index(name = "idx_anciennete_clients_tranche", columnList = "tranche, montant_restant, nombre_dettes")
+})
+@IdClass(AncienneteClient.AncienneteClientId.class)
+public class AncienneteClient {
+    
+    @Id
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+    
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 12)
+    private TrancheAnciennete tranche;
+    
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal montantRestant = BigDecimal.ZERO;
+    
+    @Column(nullable = false)
+    private long nombreDettes;
+    
+    // Constructeurs
+    public AncienneteClient() {}
+    
+    // Getters
+    public Long getClientId() { return clientId; }
+    public TrancheAnciennete getTranche() { return tranche; }
+    public BigDecimal getMontantRestant() { return montantRestant; }
+    public long getNombreDettes() { return nombreDettes; }
+    
+    /**
+     * Clé composite (client, tranche)
+     */
+    public static class AncienneteClientId implements Serializable {
+        private Long clientId;
+        private TrancheAnciennete tranche;
+        
+        public AncienneteClientId() {}
+        
+        public AncienneteClientId(Long clientId, TrancheAnciennete tranche) {
+            this.clientId = clientId;
+            this.tranche = tranche;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof AncienneteClientId)) return false;
+            AncienneteClientId autre = (AncienneteClientId) o;
+            return Objects.equals(clientId, autre.clientId) && tranche == autre.tranche;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(clientId, tranche);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "AncienneteClient{" +
+                "clientId=" + clientId +
+                ", tranche=" + tranche +
+                ", montantRestant=" + montantRestant +
+                ", nombreDettes=" + nombreDettes +
+                '}';
+    }
+}
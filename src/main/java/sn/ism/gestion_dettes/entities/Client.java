@@ -3,11 +3,21 @@ package sn.ism.gestion_dettes.entities;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.ArrayList;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import sn.ism.gestion_dettes.config.CacheConfig;
+
 @Entity
 @Table(name = "clients")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.REGION_CLIENTS)
+@NaturalIdCache(region = CacheConfig.REGION_CLIENTS_TELEPHONE)
 public class Client {
     
     @Id
@@ -18,6 +28,7 @@ public class Client {
     @NotBlank(message = "Le nom est obligatoire")
     private String nom;
     
+    @NaturalId(mutable = true)
     @Column(nullable = false, unique = true)
     @NotBlank(message = "Le téléphone est obligatoire")
     @Pattern(regexp = "^[0-9+\\-\\s()]+$", message = "Format de téléphone invalide")
@@ -27,6 +38,25 @@ public class Client {
     @NotBlank(message = "L'adresse est obligatoire")
     private String adresse;
     
+    // Agrégats des dettes du client, tenus à jour par incréments SQL (jamais par l'entité).
+    // Ils ne sont pas lus depuis l'entité, dont la copie en cache peut être en retard : voir SoldeClientService.
+    @Column(nullable = false, updatable = false, precision = 15, scale = 2)
+    private BigDecimal totalDettes = BigDecimal.ZERO;
+    
+    @Column(nullable = false, updatable = false, precision = 15, scale = 2)
+    private BigDecimal totalRestant = BigDecimal.ZERO;
+    
+    @Column(nullable = false, updatable = false)
+    private long nombreDettes;
+    
+    @Column(nullable = false, updatable = false)
+    private long nombreDettesPayees;
+    
+    // Incrémentée à chaque écriture de l'entité (les agrégats SQL n'y touchent pas) : sert d'ETag
+    @Version
+    @Column(nullable = false)
+    private long version;
+    
     @OneToMany(mappedBy = "client", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Dette> dettes = new ArrayList<>();
     
@@ -72,6 +102,10 @@ public class Client {
         this.adresse = adresse;
     }
     
+    public long getVersion() {
+        return version;
+    }
+    
     public List<Dette> getDettes() {
         return dettes;
     }
@@ -0,0 +1,116 @@
+package sn.ism.gestion_dettes.entities;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+/**
+ * Entrée de l'index des trigrammes de téléphone : un trigramme présent dans le téléphone d'un client
+ */
+@Entity
+@Table(name = "client_trigrammes", indexes = {
+        @Index(name = "idx_client_trigrammes_trigramme", columnList = "trigramme, client_id")
+})
+@IdClass(ClientTrigramme.ClientTrigrammeId.class)
+public class ClientTrigramme implements Persistable<ClientTrigramme.ClientTrigrammeId> {
+    
+    @Id
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+    
+    @Id
+    @Column(nullable = false, length = 3)
+    private String trigramme;
+    
+    // Les entrées sont toujours insérées, jamais fusionnées
+    @Transient
+    private boolean nouveau = true;
+    
+    // Constructeurs
+    public ClientTrigramme() {}
+    
+    public ClientTrigramme(Long clientId, String trigramme) {
+        this.clientId = clientId;
+        this.trigramme = trigramme;
+    }
+    
+    // Getters et Setters
+    public Long getClientId() {
+        return clientId;
+    }
+    
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+    
+    public String getTrigramme() {
+        return trigramme;
+    }
+    
+    public void setTrigramme(String trigramme) {
+        this.trigramme = trigramme;
+    }
+    
+    @Override
+    public ClientTrigrammeId getId() {
+        return new ClientTrigrammeId(clientId, trigramme);
+    }
+    
+    @Override
+    public boolean isNew() {
+        return nouveau;
+    }
+    
+    @PostLoad
+    @PostPersist
+    private void marquerPersiste() {
+        this.nouveau = false;
+    }
+    
+    /**
+     * Clé composite (client, trigramme)
+     */
+    public static class ClientTrigrammeId implements Serializable {
+        private Long clientId;
+        private String trigramme;
+        
+        public ClientTrigrammeId() {}
+        
+        public ClientTrigrammeId(Long clientId, String trigramme) {
+            this.clientId = clientId;
+            this.trigramme = trigramme;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ClientTrigrammeId)) return false;
+            ClientTrigrammeId autre = (ClientTrigrammeId) o;
+            return Objects.equals(clientId, autre.clientId) && Objects.equals(trigramme, autre.trigramme);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(clientId, trigramme);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "ClientTrigramme{" +
+                "clientId=" + clientId +
+                ", trigramme='" + trigramme + '\'' +
+                '}';
+    }
+}
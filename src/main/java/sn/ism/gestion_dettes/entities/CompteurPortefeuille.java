@@ -0,0 +1,54 @@
+package sn.ism.gestion_dettes.entities;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Agrégats de tout le portefeuille, répartis sur quelques tranches (lignes) que le tableau de bord additionne :
+ * les transactions concurrentes n'attendent pas toutes le verrou d'une même ligne.
+ * Écrit uniquement par incréments SQL (CompteurPortefeuilleRepository).
+ */
+@Entity
+@Table(name = "compteurs_portefeuille")
+public class CompteurPortefeuille {
+    
+    @Id
+    private Integer tranche;
+    
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalDettes = BigDecimal.ZERO;
+    
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalRestant = BigDecimal.ZERO;
+    
+    @Column(nullable = false)
+    private long nombreDettes;
+    
+    @Column(nullable = false)
+    private long nombreDettesSoldees;
+    
+    // Constructeurs
+    public CompteurPortefeuille() {}
+    
+    // Getters
+    public Integer getTranche() { return tranche; }
+    public BigDecimal getTotalDettes() { return totalDettes; }
+    public BigDecimal getTotalRestant() { return totalRestant; }
+    public long getNombreDettes() { return nombreDettes; }
+    public long getNombreDettesSoldees() { return nombreDettesSoldees; }
+    
+    @Override
+    public String toString() {
+        return "CompteurPortefeuille{" +
+                "tranche=" + tranche +
+                ", totalDettes=" + totalDettes +
+                ", totalRestant=" + totalRestant +
+                ", nombreDettes=" + nombreDettes +
+                ", nombreDettesSoldees=" + nombreDettesSoldees +
+                '}';
+    }
+}
@@ -1,15 +1,20 @@
 package sn.ism.gestion_dettes.entities;
 
 import jakarta.persistence.*;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.DecimalMin;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.ArrayList;
 
 @Entity
-@Table(name = "dettes")
+@Table(name = "dettes", indexes = {
+        @Index(name = "idx_dettes_date", columnList = "date, id"),
+        @Index(name = "idx_dettes_statut", columnList = "statut, id"),
+        @Index(name = "idx_dettes_statut_client", columnList = "statut, client_id, id"),
+        @Index(name = "idx_dettes_tranche_date", columnList = "tranche, date")
+})
 public class Dette {
     
     @Id
@@ -17,20 +22,37 @@ public class Dette {
     private Long id;
     
     @Column(nullable = false)
-    @NotBlank(message = "La date est obligatoire")
-    private String date;
+    @NotNull(message = "La date est obligatoire")
+    private LocalDate date;
     
-    @Column(nullable = false, precision = 10, scale = 2)
+    // Montants fixés à la construction, modifiés ensuite en base par DetteRepository (mises à jour atomiques) :
+    // l'entité n'expose aucun mutateur, un changement en mémoire ne serait jamais écrit
+    @Column(nullable = false, updatable = false, precision = 10, scale = 2)
     @NotNull(message = "Le montant de la dette est obligatoire")
     @DecimalMin(value = "0.01", message = "Le montant de la dette doit être positif")
     private BigDecimal montantDette;
     
-    @Column(nullable = false, precision = 10, scale = 2)
+    @Column(nullable = false, updatable = false, precision = 10, scale = 2)
     private BigDecimal montantPaye = BigDecimal.ZERO;
     
-    @Column(nullable = false, precision = 10, scale = 2)
+    @Column(nullable = false, updatable = false, precision = 10, scale = 2)
     private BigDecimal montantRestant;
     
+    // Suit montantRestant : recalculé par l'entité, puis par les mêmes mises à jour atomiques
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 10)
+    private StatutDette statut = StatutDette.EN_COURS;
+    
+    // Tranche d'ancienneté à la création, avancée ensuite par AncienneteService (mises à jour atomiques)
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 12)
+    private TrancheAnciennete tranche = TrancheAnciennete.JOURS_0_30;
+    
+    // Incrémentée à chaque écriture, y compris par les mises à jour atomiques des montants et de la tranche : sert d'ETag
+    @Version
+    @Column(nullable = false)
+    private long version;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id", nullable = false)
     @NotNull(message = "Le client est obligatoire")
@@ -44,8 +66,8 @@ public class Dette {
         calculerMontantRestant();
     }
     
-    public Dette(String date, BigDecimal montantDette, Client client) {
-        this.date = date;
+    public Dette(LocalDate date, BigDecimal montantDette, Client client) {
+        setDate(date);
         this.montantDette = montantDette;
         this.client = client;
         this.montantPaye = BigDecimal.ZERO;
@@ -61,38 +83,39 @@ public class Dette {
         this.id = id;
     }
     
-    public String getDate() {
+    public LocalDate getDate() {
         return date;
     }
     
-    public void setDate(String date) {
+    public void setDate(LocalDate date) {
         this.date = date;
+        if (date != null) {
+            this.tranche = TrancheAnciennete.pourDate(date, LocalDate.now());
+        }
     }
     
     public BigDecimal getMontantDette() {
         return montantDette;
     }
     
-    public void setMontantDette(BigDecimal montantDette) {
-        this.montantDette = montantDette;
-        calculerMontantRestant();
-    }
-    
     public BigDecimal getMontantPaye() {
         return montantPaye;
     }
     
-    public void setMontantPaye(BigDecimal montantPaye) {
-        this.montantPaye = montantPaye;
-        calculerMontantRestant();
-    }
-    
     public BigDecimal getMontantRestant() {
         return montantRestant;
     }
     
-    public void setMontantRestant(BigDecimal montantRestant) {
-        this.montantRestant = montantRestant;
+    public StatutDette getStatut() {
+        return statut;
+    }
+    
+    public TrancheAnciennete getTranche() {
+        return tranche;
+    }
+    
+    public long getVersion() {
+        return version;
     }
     
     public Client getClient() {
@@ -107,40 +130,14 @@ public class Dette {
         return paiements;
     }
     
-    public void setPaiements(List<Paiement> paiements) {
-        this.paiements = paiements;
-        calculerMontantPaye();
-    }
-    
     // Méthodes utilitaires
-    public void addPaiement(Paiement paiement) {
-        paiements.add(paiement);
-        paiement.setDette(this);
-        calculerMontantPaye();
-    }
-    
-    public void removePaiement(Paiement paiement) {
-        paiements.remove(paiement);
-        paiement.setDette(null);
-        calculerMontantPaye();
-    }
-    
     /**
-     * Calcule automatiquement le montant payé = somme des paiements
-     */
-    public void calculerMontantPaye() {
-        this.montantPaye = paiements.stream()
-                .map(Paiement::getMontant)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        calculerMontantRestant();
-    }
-    
-    /**
-     * Calcule automatiquement le montant restant = montantDette - montantPaye
+     * Calcule automatiquement le montant restant = montantDette - montantPaye, et le statut qui en découle
      */
     private void calculerMontantRestant() {
         if (montantDette != null && montantPaye != null) {
             this.montantRestant = montantDette.subtract(montantPaye);
+            this.statut = StatutDette.depuisMontantRestant(montantRestant);
         }
     }
     
@@ -154,7 +151,7 @@ public class Dette {
     @PrePersist
     @PreUpdate
     private void beforeSave() {
-        calculerMontantPaye();
+        calculerMontantRestant();
     }
     
     @Override
@@ -165,6 +162,7 @@ public class Dette {
                 ", montantDette=" + montantDette +
                 ", montantPaye=" + montantPaye +
                 ", montantRestant=" + montantRestant +
+                ", statut=" + statut +
                 '}';
     }
 }
\ No newline at end of file
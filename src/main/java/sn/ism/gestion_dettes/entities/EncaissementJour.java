@@ -0,0 +1,83 @@
+package sn.ism.gestion_dettes.entities;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Encaissements d'un jour de paiement, répartis en tranches comme CompteurPortefeuille.
+ * Écrit uniquement par incréments SQL (EncaissementJourRepository).
+ */
+@Entity
+@Table(name = "encaissements_jour")
+@IdClass(EncaissementJour.EncaissementJourId.class)
+public class EncaissementJour {
+    
+    @Id
+    @Column(nullable = false)
+    private LocalDate jour;
+    
+    @Id
+    @Column(nullable = false)
+    private Integer tranche;
+    
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal montant = BigDecimal.ZERO;
+    
+    @Column(nullable = false)
+    private long nombrePaiements;
+    
+    // Constructeurs
+    public EncaissementJour() {}
+    
+    // Getters
+    public LocalDate getJour() { return jour; }
+    public Integer getTranche() { return tranche; }
+    public BigDecimal getMontant() { return montant; }
+    public long getNombrePaiements() { return nombrePaiements; }
+    
+    /**
+     * Clé composite (jour, tranche)
+     */
+    public static class EncaissementJourId implements Serializable {
+        private LocalDate jour;
+        private Integer tranche;
+        
+        public EncaissementJourId() {}
+        
+        public EncaissementJourId(LocalDate jour, Integer tranche) {
+            this.jour = jour;
+            this.tranche = tranche;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EncaissementJourId)) return false;
+            EncaissementJourId autre = (EncaissementJourId) o;
+            return Objects.equals(jour, autre.jour) && Objects.equals(tranche, autre.tranche);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(jour, tranche);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "EncaissementJour{" +
+                "jour=" + jour +
+                ", tranche=" + tranche +
+                ", montant=" + montant +
+                ", nombrePaiements=" + nombrePaiements +
+                '}';
+    }
+}
@@ -1,6 +1,7 @@
 package sn.ism.gestion_dettes.entities;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import jakarta.persistence.Column;
@@ -9,16 +10,21 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.DecimalMin;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
-@Table(name = "paiements")
+@Table(name = "paiements", indexes = {
+        @Index(name = "idx_paiements_date_creation", columnList = "date_creation, id"),
+        @Index(name = "idx_paiements_dette_date_creation", columnList = "dette_id, date_creation, id"),
+        @Index(name = "idx_paiements_date_paiement", columnList = "date_paiement, id")
+})
 public class Paiement {
     
     @Id
@@ -31,12 +37,17 @@ public class Paiement {
     private BigDecimal montant;
     
     @Column(nullable = false)
-    @NotBlank(message = "La date du paiement est obligatoire")
-    private String datePaiement;
+    @NotNull(message = "La date du paiement est obligatoire")
+    private LocalDate datePaiement;
     
     @Column(nullable = false, updatable = false)
     private LocalDateTime dateCreation;
     
+    // Incrémentée à chaque modification du paiement : sert d'ETag (avec la dette) à la liste des paiements
+    @Version
+    @Column(nullable = false)
+    private long version;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "dette_id", nullable = false)
     @NotNull(message = "La dette est obligatoire")
@@ -47,7 +58,7 @@ public class Paiement {
         this.dateCreation = LocalDateTime.now();
     }
     
-    public Paiement(BigDecimal montant, String datePaiement, Dette dette) {
+    public Paiement(BigDecimal montant, LocalDate datePaiement, Dette dette) {
         this.montant = montant;
         this.datePaiement = datePaiement;
         this.dette = dette;
@@ -71,11 +82,11 @@ public class Paiement {
         this.montant = montant;
     }
     
-    public String getDatePaiement() {
+    public LocalDate getDatePaiement() {
         return datePaiement;
     }
     
-    public void setDatePaiement(String datePaiement) {
+    public void setDatePaiement(LocalDate datePaiement) {
         this.datePaiement = datePaiement;
     }
     
@@ -87,6 +98,10 @@ public class Paiement {
         this.dateCreation = dateCreation;
     }
     
+    public long getVersion() {
+        return version;
+    }
+    
     public Dette getDette() {
         return dette;
     }
@@ -0,0 +1,15 @@
+package sn.ism.gestion_dettes.entities;
+
+import java.math.BigDecimal;
+
+/**
+ * État de règlement d'une dette, tenu à jour avec le montant restant
+ */
+public enum StatutDette {
+    EN_COURS,
+    SOLDEE;
+    
+    public static StatutDette depuisMontantRestant(BigDecimal montantRestant) {
+        return montantRestant.signum() <= 0 ? SOLDEE : EN_COURS;
+    }
+}
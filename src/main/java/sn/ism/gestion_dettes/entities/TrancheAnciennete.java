@@ -0,0 +1,54 @@
+package sn.ism.gestion_dettes.entities;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Tranche d'ancienneté d'une dette selon les jours écoulés depuis sa date
+ */
+public enum TrancheAnciennete {
+    JOURS_0_30(0, "0-30"),
+    JOURS_31_60(31, "31-60"),
+    JOURS_61_90(61, "61-90"),
+    PLUS_DE_90(91, "90+");
+    
+    private final int joursMin;
+    private final String libelle;
+    
+    TrancheAnciennete(int joursMin, String libelle) {
+        this.joursMin = joursMin;
+        this.libelle = libelle;
+    }
+    
+    public String getLibelle() {
+        return libelle;
+    }
+    
+    /**
+     * Tranche d'une dette datée de date au jour donné (une date future compte pour 0 jour)
+     */
+    public static TrancheAnciennete pourDate(LocalDate date, LocalDate aujourdhui) {
+        long jours = ChronoUnit.DAYS.between(date, aujourdhui);
+        TrancheAnciennete tranche = JOURS_0_30;
+        for (TrancheAnciennete candidate : values()) {
+            if (jours >= candidate.joursMin) {
+                tranche = candidate;
+            }
+        }
+        return tranche;
+    }
+    
+    /**
+     * Date au plus tard des dettes qui ont atteint cette tranche au jour donné
+     */
+    public LocalDate dateLimite(LocalDate aujourdhui) {
+        return aujourdhui.minusDays(joursMin);
+    }
+    
+    /**
+     * Tranche suivante (null pour la dernière)
+     */
+    public TrancheAnciennete suivante() {
+        return ordinal() + 1 < values().length ? values()[ordinal() + 1] : null;
+    }
+}
@@ -0,0 +1,53 @@
+package sn.ism.gestion_dettes.events;
+
+/**
+ * Événement publié par ClientService à chaque écriture sur un client
+ */
+public class ClientModifieEvent {
+    
+    public enum Type { AJOUT, MODIFICATION, SUPPRESSION }
+    
+    private final Type type;
+    private final Long clientId;
+    private final String nom;
+    private final String telephone;
+    private final String ancienTelephone;
+    
+    // Constructeurs
+    public ClientModifieEvent(Type type, Long clientId, String nom, String telephone, String ancienTelephone) {
+        this.type = type;
+        this.clientId = clientId;
+        this.nom = nom;
+        this.telephone = telephone;
+        this.ancienTelephone = ancienTelephone;
+    }
+    
+    public static ClientModifieEvent ajout(Long clientId, String nom, String telephone) {
+        return new ClientModifieEvent(Type.AJOUT, clientId, nom, telephone, null);
+    }
+    
+    public static ClientModifieEvent modification(Long clientId, String nom, String telephone, 
+                                                 String ancienTelephone) {
+        return new ClientModifieEvent(Type.MODIFICATION, clientId, nom, telephone, ancienTelephone);
+    }
+    
+    public static ClientModifieEvent suppression(Long clientId, String telephone) {
+        return new ClientModifieEvent(Type.SUPPRESSION, clientId, null, telephone, null);
+    }
+    
+    // Getters
+    public Type getType() { return type; }
+    public Long getClientId() { return clientId; }
+    public String getNom() { return nom; }
+    public String getTelephone() { return telephone; }
+    public String getAncienTelephone() { return ancienTelephone; }
+    
+    @Override
+    public String toString() {
+        return "ClientModifieEvent{" +
+                "type=" + type +
+                ", clientId=" + clientId +
+                ", telephone='" + telephone + '\'' +
+                '}';
+    }
+}
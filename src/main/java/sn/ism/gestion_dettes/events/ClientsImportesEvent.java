@@ -0,0 +1,29 @@
+package sn.ism.gestion_dettes.events;
+
+import java.util.Map;
+
+/**
+ * Événement publié à chaque lot de clients importés (id client -> téléphone, id client -> nom)
+ */
+public class ClientsImportesEvent {
+    
+    private final Map<Long, String> telephones;
+    private final Map<Long, String> noms;
+    
+    // Constructeurs
+    public ClientsImportesEvent(Map<Long, String> telephones, Map<Long, String> noms) {
+        this.telephones = telephones;
+        this.noms = noms;
+    }
+    
+    // Getters
+    public Map<Long, String> getTelephones() { return telephones; }
+    public Map<Long, String> getNoms() { return noms; }
+    
+    @Override
+    public String toString() {
+        return "ClientsImportesEvent{" +
+                "nombreClients=" + telephones.size() +
+                '}';
+    }
+}
@@ -0,0 +1,44 @@
+package sn.ism.gestion_dettes.events;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Événement publié (dans la transaction) à chaque paiement enregistré ou annulé :
+ * il porte l'écart à appliquer aux encaissements du jour de paiement
+ */
+public class EncaissementEvent {
+    
+    private final LocalDate jour;
+    private final BigDecimal deltaMontant;
+    private final int deltaNombrePaiements;
+    
+    // Constructeurs
+    private EncaissementEvent(LocalDate jour, BigDecimal deltaMontant, int deltaNombrePaiements) {
+        this.jour = jour;
+        this.deltaMontant = deltaMontant;
+        this.deltaNombrePaiements = deltaNombrePaiements;
+    }
+    
+    public static EncaissementEvent enregistrement(LocalDate jour, BigDecimal montant) {
+        return new EncaissementEvent(jour, montant, 1);
+    }
+    
+    public static EncaissementEvent annulation(LocalDate jour, BigDecimal montant) {
+        return new EncaissementEvent(jour, montant.negate(), -1);
+    }
+    
+    // Getters
+    public LocalDate getJour() { return jour; }
+    public BigDecimal getDeltaMontant() { return deltaMontant; }
+    public int getDeltaNombrePaiements() { return deltaNombrePaiements; }
+    
+    @Override
+    public String toString() {
+        return "EncaissementEvent{" +
+                "jour=" + jour +
+                ", deltaMontant=" + deltaMontant +
+                ", deltaNombrePaiements=" + deltaNombrePaiements +
+                '}';
+    }
+}
@@ -0,0 +1,131 @@
+package sn.ism.gestion_dettes.events;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sn.ism.gestion_dettes.entities.TrancheAnciennete;
+
+/**
+ * Événement publié (dans la transaction) à chaque écriture modifiant le solde d'une dette :
+ * il porte les écarts à appliquer aux agrégats du client et de la tranche d'ancienneté de la dette
+ */
+public class MouvementSoldeEvent {
+    
+    private final Long clientId;
+    private final List<Long> detteIds;
+    private final TrancheAnciennete tranche;
+    private final BigDecimal deltaMontantDette;
+    private final BigDecimal deltaMontantRestant;
+    private final int deltaNombreDettes;
+    private final int deltaNombreDettesPayees;
+    
+    // Constructeurs : un état absent (null) signifie dette inexistante avant ou après l'écriture
+    private MouvementSoldeEvent(Long clientId, Long detteId, TrancheAnciennete tranche,
+                                BigDecimal montantAvant, BigDecimal restantAvant, 
+                                BigDecimal montantApres, BigDecimal restantApres) {
+        this.clientId = clientId;
+        this.detteIds = List.of(detteId);
+        this.tranche = tranche;
+        this.deltaMontantDette = valeur(montantApres).subtract(valeur(montantAvant));
+        this.deltaMontantRestant = valeur(restantApres).subtract(valeur(restantAvant));
+        this.deltaNombreDettes = (montantApres != null ? 1 : 0) - (montantAvant != null ? 1 : 0);
+        this.deltaNombreDettesPayees = (estPayee(restantApres) ? 1 : 0) - (estPayee(restantAvant) ? 1 : 0);
+    }
+    
+    private MouvementSoldeEvent(Long clientId, List<Long> detteIds, TrancheAnciennete tranche, BigDecimal deltaMontantDette, 
+                                BigDecimal deltaMontantRestant, int deltaNombreDettes, int deltaNombreDettesPayees) {
+        this.clientId = clientId;
+        this.detteIds = detteIds;
+        this.tranche = tranche;
+        this.deltaMontantDette = deltaMontantDette;
+        this.deltaMontantRestant = deltaMontantRestant;
+        this.deltaNombreDettes = deltaNombreDettes;
+        this.deltaNombreDettesPayees = deltaNombreDettesPayees;
+    }
+    
+    public static MouvementSoldeEvent creation(Long clientId, Long detteId, TrancheAnciennete tranche,
+                                               BigDecimal montantDette, BigDecimal montantRestant) {
+        return new MouvementSoldeEvent(clientId, detteId, tranche, null, null, montantDette, montantRestant);
+    }
+    
+    public static MouvementSoldeEvent modification(Long clientId, Long detteId, TrancheAnciennete tranche,
+                                                   BigDecimal montantAvant, BigDecimal restantAvant, 
+                                                   BigDecimal montantApres, BigDecimal restantApres) {
+        return new MouvementSoldeEvent(clientId, detteId, tranche, montantAvant, restantAvant, montantApres, restantApres);
+    }
+    
+    public static MouvementSoldeEvent suppression(Long clientId, Long detteId, TrancheAnciennete tranche,
+                                                  BigDecimal montantDette, BigDecimal montantRestant) {
+        return new MouvementSoldeEvent(clientId, detteId, tranche, montantDette, montantRestant, null, null);
+    }
+    
+    /**
+     * Cumuler des mouvements par client et tranche (écritures en lot : une mise à jour par couple),
+     * en gardant les ids des dettes concernées
+     */
+    public static List<MouvementSoldeEvent> cumulerParClient(List<MouvementSoldeEvent> mouvements) {
+        Map<List<Object>, MouvementSoldeEvent> cumuls = new LinkedHashMap<>();
+        Map<List<Object>, List<Long>> detteIds = new HashMap<>();
+        for (MouvementSoldeEvent mouvement : mouvements) {
+            List<Object> cle = List.of(mouvement.getClientId(), mouvement.getTranche());
+            cumuls.merge(cle, mouvement, MouvementSoldeEvent::ajouter);
+            detteIds.computeIfAbsent(cle, c -> new ArrayList<>()).addAll(mouvement.detteIds);
+        }
+        List<MouvementSoldeEvent> resultat = new ArrayList<>(cumuls.size());
+        cumuls.forEach((cle, cumul) -> resultat.add(new MouvementSoldeEvent(cumul.clientId, detteIds.get(cle),
+                cumul.tranche, cumul.deltaMontantDette, cumul.deltaMontantRestant,
+                cumul.deltaNombreDettes, cumul.deltaNombreDettesPayees)));
+        return resultat;
+    }
+    
+    private MouvementSoldeEvent ajouter(MouvementSoldeEvent autre) {
+        return new MouvementSoldeEvent(clientId, List.of(), tranche,
+                deltaMontantDette.add(autre.deltaMontantDette),
+                deltaMontantRestant.add(autre.deltaMontantRestant),
+                deltaNombreDettes + autre.deltaNombreDettes,
+                deltaNombreDettesPayees + autre.deltaNombreDettesPayees);
+    }
+    
+    private static BigDecimal valeur(BigDecimal montant) {
+        return montant != null ? montant : BigDecimal.ZERO;
+    }
+    
+    private static boolean estPayee(BigDecimal montantRestant) {
+        return montantRestant != null && montantRestant.signum() <= 0;
+    }
+    
+    /**
+     * Vrai si l'écriture ne change aucun agrégat
+     */
+    public boolean estNul() {
+        return deltaMontantDette.signum() == 0 && deltaMontantRestant.signum() == 0 
+                && deltaNombreDettes == 0 && deltaNombreDettesPayees == 0;
+    }
+    
+    // Getters
+    public Long getClientId() { return clientId; }
+    public List<Long> getDetteIds() { return detteIds; }
+    public TrancheAnciennete getTranche() { return tranche; }
+    public BigDecimal getDeltaMontantDette() { return deltaMontantDette; }
+    public BigDecimal getDeltaMontantRestant() { return deltaMontantRestant; }
+    public int getDeltaNombreDettes() { return deltaNombreDettes; }
+    public int getDeltaNombreDettesPayees() { return deltaNombreDettesPayees; }
+    public int getDeltaNombreDettesEnCours() { return deltaNombreDettes - deltaNombreDettesPayees; }
+    
+    @Override
+    public String toString() {
+        return "MouvementSoldeEvent{" +
+                "clientId=" + clientId +
+                ", detteIds=" + detteIds +
+                ", tranche=" + tranche +
+                ", deltaMontantDette=" + deltaMontantDette +
+                ", deltaMontantRestant=" + deltaMontantRestant +
+                ", deltaNombreDettes=" + deltaNombreDettes +
+                ", deltaNombreDettesPayees=" + deltaNombreDettesPayees +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+package sn.ism.gestion_dettes.repositories;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.QueryHint;
+import sn.ism.gestion_dettes.dto.TrancheAncienneteDto;
+import sn.ism.gestion_dettes.entities.AncienneteClient;
+
+@Repository
+public interface AncienneteClientRepository 
+        extends JpaRepository<AncienneteClient, AncienneteClient.AncienneteClientId> {
+    
+    /**
+     * Tranches de tout le portefeuille (parcours de l'index tranche, montant_restant, nombre_dettes)
+     */
+    @Query("SELECT new sn.ism.gestion_dettes.dto.TrancheAncienneteDto(" +
+           "a.tranche, SUM(a.montantRestant), SUM(a.nombreDettes)) " +
+           "FROM AncienneteClient a GROUP BY a.tranche")
+    List<TrancheAncienneteDto> sommerParTranche();
+    
+    @Query("SELECT new sn.ism.gestion_dettes.dto.TrancheAncienneteDto(a.tranche, a.montantRestant, a.nombreDettes) " +
+           "FROM AncienneteClient a WHERE a.clientId = :clientId")
+    List<TrancheAncienneteDto> findByClientId(@Param("clientId") Long clientId);
+    
+    /**
+     * Appliquer des écarts à une tranche d'un client, créée au premier écart (incrément atomique)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "anciennete_clients"))
+    @Query(value = "INSERT INTO anciennete_clients (client_id, tranche, montant_restant, nombre_dettes) " +
+           "VALUES (:clientId, :tranche, :deltaMontantRestant, :deltaNombreDettes) " +
+           "ON DUPLICATE KEY UPDATE " +
+           "montant_restant = montant_restant + :deltaMontantRestant, " +
+           "nombre_dettes = nombre_dettes + :deltaNombreDettes", nativeQuery = true)
+    int appliquerEcarts(@Param("clientId") Long clientId,
+                        @Param("tranche") String tranche,
+                        @Param("deltaMontantRestant") BigDecimal deltaMontantRestant,
+                        @Param("deltaNombreDettes") long deltaNombreDettes);
+    
+    /**
+     * Recalculer toutes les tranches à partir des dettes (table vidée au préalable)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "anciennete_clients"))
+    @Query(value = "INSERT INTO anciennete_clients (client_id, tranche, montant_restant, nombre_dettes) " +
+           "SELECT client_id, tranche, SUM(montant_restant), SUM(CASE WHEN statut = 'EN_COURS' THEN 1 ELSE 0 END) " +
+           "FROM dettes GROUP BY client_id, tranche", nativeQuery = true)
+    int recalculerDepuisDettes();
+}
@@ -1,31 +1,177 @@
 package sn.ism.gestion_dettes.repositories;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.ClientResumeDto;
+import sn.ism.gestion_dettes.dto.SoldeClientDto;
 import sn.ism.gestion_dettes.entities.Client;
 
 @Repository
-public interface ClientRepository extends JpaRepository<Client, Long> {
+public interface ClientRepository extends JpaRepository<Client, Long>, ClientRepositoryCustom {
     
-    Optional<Client> findByTelephone(String telephone);
+    /**
+     * Projection ClientDto
+     */
+    String SELECT_CLIENT_DTO = "SELECT new sn.ism.gestion_dettes.dto.ClientDto(" +
+            "c.id, c.nom, c.telephone, c.adresse) FROM Client c ";
     
-    boolean existsByTelephone(String telephone);
+    @Query("SELECT c.telephone FROM Client c WHERE c.telephone IN :telephones")
+    List<String> findTelephonesExistants(@Param("telephones") Collection<String> telephones);
     
     @Query("SELECT c FROM Client c WHERE c.telephone LIKE %:telephone%")
     Page<Client> findByTelephoneContaining(@Param("telephone") String telephone, Pageable pageable);
     
+    @Query(value = "SELECT c FROM Client c WHERE c.id IN " + ClientTrigrammeRepository.CLIENTS_AVEC_TRIGRAMMES + 
+           " AND c.telephone LIKE %:telephone%",
+           countQuery = "SELECT COUNT(c) FROM Client c WHERE c.id IN " + ClientTrigrammeRepository.CLIENTS_AVEC_TRIGRAMMES + 
+           " AND c.telephone LIKE %:telephone%")
+    Page<Client> findByTelephoneContainingIndexe(@Param("telephone") String telephone,
+                                                @Param("trigramme") String trigramme,
+                                                Pageable pageable);
+    
     @Query("SELECT c FROM Client c WHERE " +
            "(:nom IS NULL OR LOWER(c.nom) LIKE LOWER(CONCAT('%', :nom, '%'))) AND " +
            "(:telephone IS NULL OR c.telephone LIKE %:telephone%)")
     Page<Client> findClientsWithFilters(@Param("nom") String nom, 
                                        @Param("telephone") String telephone, 
                                        Pageable pageable);
+    
+    // Pagination par clé : ordre id croissant, pageable sans tri (size + 1 lignes)
+    
+    @Query(SELECT_CLIENT_DTO + "WHERE (:apresId IS NULL OR c.id > :apresId) ORDER BY c.id ASC")
+    List<ClientDto> findDtosApres(@Param("apresId") Long apresId, Pageable pageable);
+    
+    @Query("SELECT new sn.ism.gestion_dettes.dto.ClientResumeDto(c.id, c.nom, c.telephone) FROM Client c " +
+           "WHERE (:apresId IS NULL OR c.id > :apresId) ORDER BY c.id ASC")
+    List<ClientResumeDto> findResumesApres(@Param("apresId") Long apresId, Pageable pageable);
+    
+    @Query(SELECT_CLIENT_DTO + "WHERE " +
+           "(:nom IS NULL OR LOWER(c.nom) LIKE LOWER(CONCAT('%', :nom, '%'))) AND " +
+           "(:telephone IS NULL OR c.telephone LIKE %:telephone%) AND " +
+           "(:apresId IS NULL OR c.id > :apresId) ORDER BY c.id ASC")
+    List<ClientDto> findClientsWithFiltersApres(@Param("nom") String nom, 
+                                               @Param("telephone") String telephone, 
+                                               @Param("apresId") Long apresId,
+                                               Pageable pageable);
+    
+    @Query(SELECT_CLIENT_DTO + "WHERE c.id IN " + ClientTrigrammeRepository.CLIENTS_AVEC_TRIGRAMMES + " AND " +
+           "(:nom IS NULL OR LOWER(c.nom) LIKE LOWER(CONCAT('%', :nom, '%'))) AND " +
+           "c.telephone LIKE %:telephone% AND " +
+           "(:apresId IS NULL OR c.id > :apresId) ORDER BY c.id ASC")
+    List<ClientDto> findClientsWithFiltersApresIndexe(@Param("nom") String nom, 
+                                                     @Param("telephone") String telephone, 
+                                                     @Param("trigramme") String trigramme,
+                                                     @Param("apresId") Long apresId,
+                                                     Pageable pageable);
+    
+    // Sans total : Slice (size + 1 lignes, pas de COUNT)
+    
+    @Query(SELECT_CLIENT_DTO)
+    Slice<ClientDto> findAllDtosSansTotal(Pageable pageable);
+    
+    @Query(SELECT_CLIENT_DTO + "WHERE " +
+           "(:nom IS NULL OR LOWER(c.nom) LIKE LOWER(CONCAT('%', :nom, '%'))) AND " +
+           "(:telephone IS NULL OR c.telephone LIKE %:telephone%)")
+    Slice<ClientDto> findClientsWithFiltersSansTotal(@Param("nom") String nom, 
+                                                    @Param("telephone") String telephone, 
+                                                    Pageable pageable);
+    
+    @Query(SELECT_CLIENT_DTO + "WHERE c.id IN " + ClientTrigrammeRepository.CLIENTS_AVEC_TRIGRAMMES + " AND " +
+           "(:nom IS NULL OR LOWER(c.nom) LIKE LOWER(CONCAT('%', :nom, '%'))) AND " +
+           "c.telephone LIKE %:telephone%")
+    Slice<ClientDto> findClientsWithFiltersSansTotalIndexe(@Param("nom") String nom, 
+                                                          @Param("telephone") String telephone, 
+                                                          @Param("trigramme") String trigramme,
+                                                          Pageable pageable);
+    
+    /**
+     * Nombre approximatif de clients d'après les statistiques de la table (MySQL)
+     */
+    @Query(value = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+           "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'clients'", nativeQuery = true)
+    Long estimerNombreClients();
+    
+    /**
+     * Version d'un client (ETag de GET /clients/{id}), lue sans passer par le cache de second niveau
+     */
+    @Query("SELECT CAST(c.version AS String) FROM Client c WHERE c.id = :id")
+    Optional<String> findVersionById(@Param("id") Long id);
+    
+    // Agrégats des dettes par client
+    
+    @Query("SELECT new sn.ism.gestion_dettes.dto.SoldeClientDto(" +
+           "c.id, c.totalDettes, c.totalRestant, c.nombreDettes, c.nombreDettesPayees) " +
+           "FROM Client c WHERE c.id = :clientId")
+    Optional<SoldeClientDto> findSoldeById(@Param("clientId") Long clientId);
+    
+    @Query("SELECT new sn.ism.gestion_dettes.dto.SoldeClientDto(" +
+           "c.id, c.totalDettes, c.totalRestant, c.nombreDettes, c.nombreDettesPayees) " +
+           "FROM Client c WHERE c.id IN :clientIds")
+    List<SoldeClientDto> findSoldesByIds(@Param("clientIds") Collection<Long> clientIds);
+    
+    /**
+     * Clients qui doivent encore (montant restant positif), par id croissant
+     */
+    @Query("SELECT new sn.ism.gestion_dettes.dto.SoldeClientDto(" +
+           "c.id, c.totalDettes, c.totalRestant, c.nombreDettes, c.nombreDettesPayees) " +
+           "FROM Client c WHERE c.totalRestant > 0 AND (:apresId IS NULL OR c.id > :apresId) ORDER BY c.id ASC")
+    List<SoldeClientDto> findSoldesDebiteursApres(@Param("apresId") Long apresId, Pageable pageable);
+    
+    /**
+     * Appliquer des écarts aux agrégats (incrément atomique, sans relire la ligne).
+     * En SQL natif sur un espace de requête propre : les clients du cache de second niveau ne sont pas évincés
+     * à chaque écriture sur une dette (les agrégats ne sont jamais lus depuis l'entité).
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "soldes_clients"))
+    @Query(value = "UPDATE clients SET " +
+           "total_dettes = total_dettes + :deltaMontantDette, " +
+           "total_restant = total_restant + :deltaMontantRestant, " +
+           "nombre_dettes = nombre_dettes + :deltaNombreDettes, " +
+           "nombre_dettes_payees = nombre_dettes_payees + :deltaNombreDettesPayees " +
+           "WHERE id = :clientId", nativeQuery = true)
+    int appliquerMouvementSolde(@Param("clientId") Long clientId,
+                                @Param("deltaMontantDette") BigDecimal deltaMontantDette,
+                                @Param("deltaMontantRestant") BigDecimal deltaMontantRestant,
+                                @Param("deltaNombreDettes") long deltaNombreDettes,
+                                @Param("deltaNombreDettesPayees") long deltaNombreDettesPayees);
+    
+    /**
+     * Clients dont les agrégats ne correspondent plus à leurs dettes
+     */
+    @Query("SELECT c.id FROM Client c LEFT JOIN c.dettes d " +
+           "GROUP BY c.id, c.totalDettes, c.totalRestant, c.nombreDettes, c.nombreDettesPayees " +
+           "HAVING c.totalDettes <> COALESCE(SUM(d.montantDette), 0) " +
+           "OR c.totalRestant <> COALESCE(SUM(d.montantRestant), 0) " +
+           "OR c.nombreDettes <> COUNT(d) " +
+           "OR c.nombreDettesPayees <> SUM(CASE WHEN d.montantRestant <= 0 THEN 1 ELSE 0 END)")
+    List<Long> findClientsAvecSoldeIncoherent();
+    
+    /**
+     * Recalculer les agrégats depuis les dettes
+     */
+    @Modifying
+    @Query("UPDATE Client c SET " +
+           "c.totalDettes = (SELECT COALESCE(SUM(d.montantDette), 0) FROM Dette d WHERE d.client.id = c.id), " +
+           "c.totalRestant = (SELECT COALESCE(SUM(d.montantRestant), 0) FROM Dette d WHERE d.client.id = c.id), " +
+           "c.nombreDettes = (SELECT COUNT(d) FROM Dette d WHERE d.client.id = c.id), " +
+           "c.nombreDettesPayees = (SELECT COUNT(d) FROM Dette d WHERE d.client.id = c.id AND d.montantRestant <= 0) " +
+           "WHERE c.id IN :clientIds")
+    int recalculerSoldes(@Param("clientIds") Collection<Long> clientIds);
 }
-
@@ -0,0 +1,24 @@
+package sn.ism.gestion_dettes.repositories;
+
+import java.util.List;
+import java.util.Optional;
+
+import sn.ism.gestion_dettes.entities.Client;
+
+/**
+ * Écritures de masse sur les clients (hors du contexte de persistance) et recherches par téléphone
+ */
+public interface ClientRepositoryCustom {
+    
+    /**
+     * Client par téléphone (@NaturalId) : résolu par le cache de second niveau avant la base
+     */
+    Optional<Client> findByTelephone(String telephone);
+    
+    boolean existsByTelephone(String telephone);
+    
+    /**
+     * Insérer des clients en un seul batch JDBC, renvoie les ids générés dans l'ordre de la liste
+     */
+    List<Long> insererParLot(List<Client> clients);
+}
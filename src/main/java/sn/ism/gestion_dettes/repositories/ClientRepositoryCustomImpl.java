@@ -0,0 +1,66 @@
+package sn.ism.gestion_dettes.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import sn.ism.gestion_dettes.entities.Client;
+
+public class ClientRepositoryCustomImpl implements ClientRepositoryCustom {
+    
+    private static final String INSERT_CLIENT = "INSERT INTO clients " +
+            "(nom, telephone, adresse, total_dettes, total_restant, nombre_dettes, nombre_dettes_payees, version) " +
+            "VALUES (?, ?, ?, 0, 0, 0, 0, 0)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public Optional<Client> findByTelephone(String telephone) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Client.class).loadOptional(telephone);
+    }
+    
+    @Override
+    public boolean existsByTelephone(String telephone) {
+        return findByTelephone(telephone).isPresent();
+    }
+    
+    @Override
+    public List<Long> insererParLot(List<Client> clients) {
+        KeyHolder cles = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connexion -> connexion.prepareStatement(INSERT_CLIENT, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Client client = clients.get(i);
+                        ps.setString(1, client.getNom());
+                        ps.setString(2, client.getTelephone());
+                        ps.setString(3, client.getAdresse());
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return clients.size();
+                    }
+                },
+                cles);
+        return cles.getKeyList().stream()
+                .map(ligne -> ((Number) ligne.values().iterator().next()).longValue())
+                .collect(Collectors.toList());
+    }
+}
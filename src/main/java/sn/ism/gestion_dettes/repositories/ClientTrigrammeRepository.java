@@ -0,0 +1,32 @@
+package sn.ism.gestion_dettes.repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import sn.ism.gestion_dettes.entities.ClientTrigramme;
+
+@Repository
+public interface ClientTrigrammeRepository 
+        extends JpaRepository<ClientTrigramme, ClientTrigramme.ClientTrigrammeId>, ClientTrigrammeRepositoryCustom {
+    
+    /**
+     * Sous-requête : clients dont le téléphone contient le trigramme choisi (le plus rare de la recherche) ;
+     * le LIKE de la requête englobante vérifie ensuite la sous-chaîne complète
+     */
+    String CLIENTS_AVEC_TRIGRAMMES = "(SELECT t.clientId FROM ClientTrigramme t WHERE t.trigramme = :trigramme)";
+    
+    /**
+     * Nombre de clients par trigramme : [trigramme, nombre]
+     */
+    @Query("SELECT t.trigramme, COUNT(t) FROM ClientTrigramme t GROUP BY t.trigramme")
+    List<Object[]> compterClientsParTrigramme();
+    
+    @Modifying
+    @Query("DELETE FROM ClientTrigramme t WHERE t.clientId = :clientId")
+    int deleteByClientId(@Param("clientId") Long clientId);
+}
@@ -0,0 +1,16 @@
+package sn.ism.gestion_dettes.repositories;
+
+import java.util.List;
+
+import sn.ism.gestion_dettes.entities.ClientTrigramme;
+
+/**
+ * Écritures de masse sur l'index des trigrammes, hors du contexte de persistance
+ */
+public interface ClientTrigrammeRepositoryCustom {
+    
+    /**
+     * Insérer des entrées en un seul batch JDBC
+     */
+    void insererParLot(List<ClientTrigramme> entrees);
+}
@@ -0,0 +1,24 @@
+package sn.ism.gestion_dettes.repositories;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import sn.ism.gestion_dettes.entities.ClientTrigramme;
+
+public class ClientTrigrammeRepositoryCustomImpl implements ClientTrigrammeRepositoryCustom {
+    
+    private static final String INSERT_TRIGRAMME = "INSERT INTO client_trigrammes (client_id, trigramme) VALUES (?, ?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void insererParLot(List<ClientTrigramme> entrees) {
+        jdbcTemplate.batchUpdate(INSERT_TRIGRAMME, entrees, entrees.size(), (ps, entree) -> {
+            ps.setLong(1, entree.getClientId());
+            ps.setString(2, entree.getTrigramme());
+        });
+    }
+}
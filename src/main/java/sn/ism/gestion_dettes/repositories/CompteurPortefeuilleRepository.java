@@ -0,0 +1,48 @@
+package sn.ism.gestion_dettes.repositories;
+
+import java.math.BigDecimal;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.QueryHint;
+import sn.ism.gestion_dettes.dto.TableauDeBordDto;
+import sn.ism.gestion_dettes.entities.CompteurPortefeuille;
+
+@Repository
+public interface CompteurPortefeuilleRepository extends JpaRepository<CompteurPortefeuille, Integer> {
+    
+    /**
+     * Somme des tranches (quelques lignes, quel que soit le nombre de dettes)
+     */
+    @Query("SELECT new sn.ism.gestion_dettes.dto.TableauDeBordDto(" +
+           "SUM(c.totalDettes), SUM(c.totalRestant), SUM(c.nombreDettes), SUM(c.nombreDettesSoldees)) " +
+           "FROM CompteurPortefeuille c")
+    TableauDeBordDto sommerTranches();
+    
+    /**
+     * Appliquer des écarts à une tranche, créée au premier écart (incrément atomique).
+     * Les écarts sont repris par leurs paramètres : VALUES() est déprécié depuis MySQL 8.0.20
+     * et l'alias de ligne (INSERT ... AS n) n'est pas compris par H2.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "compteurs_portefeuille"))
+    @Query(value = "INSERT INTO compteurs_portefeuille " +
+           "(tranche, total_dettes, total_restant, nombre_dettes, nombre_dettes_soldees) " +
+           "VALUES (:tranche, :deltaMontantDette, :deltaMontantRestant, :deltaNombreDettes, :deltaNombreDettesSoldees) " +
+           "ON DUPLICATE KEY UPDATE " +
+           "total_dettes = total_dettes + :deltaMontantDette, " +
+           "total_restant = total_restant + :deltaMontantRestant, " +
+           "nombre_dettes = nombre_dettes + :deltaNombreDettes, " +
+           "nombre_dettes_soldees = nombre_dettes_soldees + :deltaNombreDettesSoldees", nativeQuery = true)
+    int appliquerEcarts(@Param("tranche") int tranche,
+                        @Param("deltaMontantDette") BigDecimal deltaMontantDette,
+                        @Param("deltaMontantRestant") BigDecimal deltaMontantRestant,
+                        @Param("deltaNombreDettes") long deltaNombreDettes,
+                        @Param("deltaNombreDettesSoldees") long deltaNombreDettesSoldees);
+}
@@ -1,54 +1,313 @@
 package sn.ism.gestion_dettes.repositories;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.TableauDeBordDto;
 import sn.ism.gestion_dettes.entities.Client;
 import sn.ism.gestion_dettes.entities.Dette;
+import sn.ism.gestion_dettes.entities.TrancheAnciennete;
 
 @Repository
-public interface DetteRepository extends JpaRepository<Dette, Long> {
+public interface DetteRepository extends JpaRepository<Dette, Long>, DetteRepositoryCustom {
+    
+    // Lignes lues par aller-retour lors des exports en flux
+    String TAILLE_FETCH_EXPORT = "1000";
+    
+    /**
+     * Projection DetteDto avec le client joint (évite un SELECT par client)
+     */
+    String SELECT_DETTE_DTO = "SELECT new sn.ism.gestion_dettes.dto.DetteDto(" +
+            "d.id, d.date, d.montantDette, d.montantPaye, c.id, c.nom, c.telephone, d.tranche) " +
+            "FROM Dette d JOIN d.client c ";
+    
+    /**
+     * Filtres sur le statut persisté (index statut, id et statut, client_id, id), client facultatif
+     */
+    String DETTES_EN_COURS = "d.statut = sn.ism.gestion_dettes.entities.StatutDette.EN_COURS " +
+            "AND (:clientId IS NULL OR d.client.id = :clientId)";
+    String DETTES_SOLDEES = "d.statut = sn.ism.gestion_dettes.entities.StatutDette.SOLDEE " +
+            "AND (:clientId IS NULL OR d.client.id = :clientId)";
+    
+    // Fin du CASE qui recalcule le statut dans les mises à jour atomiques (WHEN nouveau restant <= 0)
+    String STATUT_SELON = "THEN sn.ism.gestion_dettes.entities.StatutDette.SOLDEE " +
+            "ELSE sn.ism.gestion_dettes.entities.StatutDette.EN_COURS END";
     
     List<Dette> findByClient(Client client);
     
     Page<Dette> findByClient(Client client, Pageable pageable);
     
-    @Query("SELECT d FROM Dette d WHERE d.client.telephone LIKE %:telephone%")
-    Page<Dette> findByClientTelephoneContaining(@Param("telephone") String telephone, 
-                                               Pageable pageable);
+    @Query(value = SELECT_DETTE_DTO,
+           countQuery = "SELECT COUNT(d) FROM Dette d")
+    Page<DetteDto> findAllDtos(Pageable pageable);
+    
+    @Query(SELECT_DETTE_DTO + "WHERE d.id = :id")
+    Optional<DetteDto> findDtoById(@Param("id") Long id);
+    
+    /**
+     * Version d'une dette et de son client (ETag de GET /dettes/{id}) : le DTO reprend le nom et le téléphone du client
+     */
+    @Query("SELECT CONCAT(CAST(d.version AS String), '-', CAST(c.version AS String)) " +
+           "FROM Dette d JOIN d.client c WHERE d.id = :id")
+    Optional<String> findVersionById(@Param("id") Long id);
+    
+    @Query(value = SELECT_DETTE_DTO + "WHERE c.id = :clientId",
+           countQuery = "SELECT COUNT(d) FROM Dette d WHERE d.client.id = :clientId")
+    Page<DetteDto> findDtosByClientId(@Param("clientId") Long clientId, Pageable pageable);
+    
+    @Query(value = SELECT_DETTE_DTO + "WHERE c.telephone LIKE %:telephone%",
+           countQuery = "SELECT COUNT(d) FROM Dette d JOIN d.client c WHERE c.telephone LIKE %:telephone%")
+    Page<DetteDto> findByClientTelephoneContaining(@Param("telephone") String telephone, 
+                                                  Pageable pageable);
+    
+    @Query(value = SELECT_DETTE_DTO + "WHERE c.id IN " + ClientTrigrammeRepository.CLIENTS_AVEC_TRIGRAMMES + 
+           " AND c.telephone LIKE %:telephone%",
+           countQuery = "SELECT COUNT(d) FROM Dette d JOIN d.client c WHERE c.id IN " + 
+           ClientTrigrammeRepository.CLIENTS_AVEC_TRIGRAMMES + " AND c.telephone LIKE %:telephone%")
+    Page<DetteDto> findByClientTelephoneContainingIndexe(@Param("telephone") String telephone,
+                                                        @Param("trigramme") String trigramme,
+                                                        Pageable pageable);
     
     @Query("SELECT d FROM Dette d WHERE d.client = :client AND d.client.telephone LIKE %:telephone%")
     Page<Dette> findByClientAndTelephoneFilter(@Param("client") Client client, 
                                              @Param("telephone") String telephone, 
                                              Pageable pageable);
     
-    @Query("SELECT d FROM Dette d WHERE " +
-           "(:clientId IS NULL OR d.client.id = :clientId) AND " +
-           "(:telephone IS NULL OR d.client.telephone LIKE %:telephone%) AND " +
+    @Query(value = SELECT_DETTE_DTO + "WHERE " +
+           "(:clientId IS NULL OR c.id = :clientId) AND " +
+           "(:telephone IS NULL OR c.telephone LIKE %:telephone%) AND " +
+           "(:montantMin IS NULL OR d.montantDette >= :montantMin) AND " +
+           "(:montantMax IS NULL OR d.montantDette <= :montantMax) AND " +
+           "(:dateFrom IS NULL OR d.date >= :dateFrom) AND " +
+           "(:dateTo IS NULL OR d.date <= :dateTo)",
+           countQuery = "SELECT COUNT(d) FROM Dette d JOIN d.client c WHERE " +
+           "(:clientId IS NULL OR c.id = :clientId) AND " +
+           "(:telephone IS NULL OR c.telephone LIKE %:telephone%) AND " +
+           "(:montantMin IS NULL OR d.montantDette >= :montantMin) AND " +
+           "(:montantMax IS NULL OR d.montantDette <= :montantMax) AND " +
+           "(:dateFrom IS NULL OR d.date >= :dateFrom) AND " +
+           "(:dateTo IS NULL OR d.date <= :dateTo)")
+    Page<DetteDto> findDettesWithFilters(@Param("clientId") Long clientId,
+                                        @Param("telephone") String telephone,
+                                        @Param("montantMin") BigDecimal montantMin,
+                                        @Param("montantMax") BigDecimal montantMax,
+                                        @Param("dateFrom") LocalDate dateFrom,
+                                        @Param("dateTo") LocalDate dateTo,
+                                        Pageable pageable);
+    
+    @Query(value = SELECT_DETTE_DTO + "WHERE " + DETTES_EN_COURS,
+           countQuery = "SELECT COUNT(d) FROM Dette d WHERE " + DETTES_EN_COURS)
+    Page<DetteDto> findDettesNonPayees(@Param("clientId") Long clientId, Pageable pageable);
+    
+    @Query(value = SELECT_DETTE_DTO + "WHERE " + DETTES_SOLDEES,
+           countQuery = "SELECT COUNT(d) FROM Dette d WHERE " + DETTES_SOLDEES)
+    Page<DetteDto> findDettesPayees(@Param("clientId") Long clientId, Pageable pageable);
+    
+    // Pagination par clé : ordre id décroissant, pageable sans tri (size + 1 lignes)
+    
+    @Query(SELECT_DETTE_DTO + "WHERE (:apresId IS NULL OR d.id < :apresId) ORDER BY d.id DESC")
+    List<DetteDto> findDtosApres(@Param("apresId") Long apresId, Pageable pageable);
+    
+    @Query(SELECT_DETTE_DTO + "WHERE " +
+           "(:clientId IS NULL OR c.id = :clientId) AND " +
+           "(:telephone IS NULL OR c.telephone LIKE %:telephone%) AND " +
+           "(:montantMin IS NULL OR d.montantDette >= :montantMin) AND " +
+           "(:montantMax IS NULL OR d.montantDette <= :montantMax) AND " +
+           "(:dateFrom IS NULL OR d.date >= :dateFrom) AND " +
+           "(:dateTo IS NULL OR d.date <= :dateTo) AND " +
+           "(:apresId IS NULL OR d.id < :apresId) ORDER BY d.id DESC")
+    List<DetteDto> findDettesWithFiltersApres(@Param("clientId") Long clientId,
+                                             @Param("telephone") String telephone,
+                                             @Param("montantMin") BigDecimal montantMin,
+                                             @Param("montantMax") BigDecimal montantMax,
+                                             @Param("dateFrom") LocalDate dateFrom,
+                                             @Param("dateTo") LocalDate dateTo,
+                                             @Param("apresId") Long apresId,
+                                             Pageable pageable);
+    
+    @Query(SELECT_DETTE_DTO + "WHERE c.id IN " + ClientTrigrammeRepository.CLIENTS_AVEC_TRIGRAMMES + " AND " +
+           "(:clientId IS NULL OR c.id = :clientId) AND " +
+           "c.telephone LIKE %:telephone% AND " +
+           "(:montantMin IS NULL OR d.montantDette >= :montantMin) AND " +
+           "(:montantMax IS NULL OR d.montantDette <= :montantMax) AND " +
+           "(:dateFrom IS NULL OR d.date >= :dateFrom) AND " +
+           "(:dateTo IS NULL OR d.date <= :dateTo) AND " +
+           "(:apresId IS NULL OR d.id < :apresId) ORDER BY d.id DESC")
+    List<DetteDto> findDettesWithFiltersApresIndexe(@Param("clientId") Long clientId,
+                                                   @Param("telephone") String telephone,
+                                                   @Param("trigramme") String trigramme,
+                                                   @Param("montantMin") BigDecimal montantMin,
+                                                   @Param("montantMax") BigDecimal montantMax,
+                                                   @Param("dateFrom") LocalDate dateFrom,
+                                                   @Param("dateTo") LocalDate dateTo,
+                                                   @Param("apresId") Long apresId,
+                                                   Pageable pageable);
+    
+    @Query(SELECT_DETTE_DTO + "WHERE " + DETTES_EN_COURS + " AND " +
+           "(:apresId IS NULL OR d.id < :apresId) ORDER BY d.id DESC")
+    List<DetteDto> findDettesNonPayeesApres(@Param("clientId") Long clientId,
+                                           @Param("apresId") Long apresId, Pageable pageable);
+    
+    @Query(SELECT_DETTE_DTO + "WHERE " + DETTES_SOLDEES + " AND " +
+           "(:apresId IS NULL OR d.id < :apresId) ORDER BY d.id DESC")
+    List<DetteDto> findDettesPayeesApres(@Param("clientId") Long clientId,
+                                        @Param("apresId") Long apresId, Pageable pageable);
+    
+    // Sans total : Slice (size + 1 lignes, pas de COUNT)
+    
+    @Query(SELECT_DETTE_DTO)
+    Slice<DetteDto> findAllDtosSansTotal(Pageable pageable);
+    
+    @Query(SELECT_DETTE_DTO + "WHERE " +
+           "(:clientId IS NULL OR c.id = :clientId) AND " +
+           "(:telephone IS NULL OR c.telephone LIKE %:telephone%) AND " +
            "(:montantMin IS NULL OR d.montantDette >= :montantMin) AND " +
-           "(:montantMax IS NULL OR d.montantDette <= :montantMax)")
-    Page<Dette> findDettesWithFilters(@Param("clientId") Long clientId,
-                                     @Param("telephone") String telephone,
-                                     @Param("montantMin") BigDecimal montantMin,
-                                     @Param("montantMax") BigDecimal montantMax,
-                                     Pageable pageable);
+           "(:montantMax IS NULL OR d.montantDette <= :montantMax) AND " +
+           "(:dateFrom IS NULL OR d.date >= :dateFrom) AND " +
+           "(:dateTo IS NULL OR d.date <= :dateTo)")
+    Slice<DetteDto> findDettesWithFiltersSansTotal(@Param("clientId") Long clientId,
+                                                  @Param("telephone") String telephone,
+                                                  @Param("montantMin") BigDecimal montantMin,
+                                                  @Param("montantMax") BigDecimal montantMax,
+                                                  @Param("dateFrom") LocalDate dateFrom,
+                                                  @Param("dateTo") LocalDate dateTo,
+                                                  Pageable pageable);
     
-    @Query("SELECT d FROM Dette d WHERE d.montantRestant > 0")
-    Page<Dette> findDettesNonPayees(Pageable pageable);
+    @Query(SELECT_DETTE_DTO + "WHERE c.id IN " + ClientTrigrammeRepository.CLIENTS_AVEC_TRIGRAMMES + " AND " +
+           "(:clientId IS NULL OR c.id = :clientId) AND " +
+           "c.telephone LIKE %:telephone% AND " +
+           "(:montantMin IS NULL OR d.montantDette >= :montantMin) AND " +
+           "(:montantMax IS NULL OR d.montantDette <= :montantMax) AND " +
+           "(:dateFrom IS NULL OR d.date >= :dateFrom) AND " +
+           "(:dateTo IS NULL OR d.date <= :dateTo)")
+    Slice<DetteDto> findDettesWithFiltersSansTotalIndexe(@Param("clientId") Long clientId,
+                                                        @Param("telephone") String telephone,
+                                                        @Param("trigramme") String trigramme,
+                                                        @Param("montantMin") BigDecimal montantMin,
+                                                        @Param("montantMax") BigDecimal montantMax,
+                                                        @Param("dateFrom") LocalDate dateFrom,
+                                                        @Param("dateTo") LocalDate dateTo,
+                                                        Pageable pageable);
     
-    @Query("SELECT d FROM Dette d WHERE d.montantRestant = 0")
-    Page<Dette> findDettesPayees(Pageable pageable);
+    @Query(SELECT_DETTE_DTO + "WHERE " + DETTES_EN_COURS)
+    Slice<DetteDto> findDettesNonPayeesSansTotal(@Param("clientId") Long clientId, Pageable pageable);
+    
+    @Query(SELECT_DETTE_DTO + "WHERE " + DETTES_SOLDEES)
+    Slice<DetteDto> findDettesPayeesSansTotal(@Param("clientId") Long clientId, Pageable pageable);
+    
+    /**
+     * Nombre approximatif de dettes d'après les statistiques de la table (MySQL)
+     */
+    @Query(value = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+           "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'dettes'", nativeQuery = true)
+    Long estimerNombreDettes();
     
     @Query("SELECT SUM(d.montantDette) FROM Dette d WHERE d.client = :client")
     BigDecimal getTotalDetteByClient(@Param("client") Client client);
     
     @Query("SELECT SUM(d.montantRestant) FROM Dette d WHERE d.client = :client")
     BigDecimal getMontantRestantByClient(@Param("client") Client client);
+    
+    // Reconstruction du tableau de bord par intervalles d'ids
+    
+    @Query("SELECT MAX(d.id) FROM Dette d")
+    Long findIdMax();
+    
+    @Query("SELECT new sn.ism.gestion_dettes.dto.TableauDeBordDto(" +
+           "SUM(d.montantDette), SUM(d.montantRestant), COUNT(d), " +
+           "SUM(CASE WHEN d.statut = sn.ism.gestion_dettes.entities.StatutDette.SOLDEE THEN 1 ELSE 0 END)) " +
+           "FROM Dette d WHERE d.id BETWEEN :debut AND :fin")
+    TableauDeBordDto agregerIntervalle(@Param("debut") Long debut, @Param("fin") Long fin);
+    
+    // Écritures atomiques sur les montants (colonnes non modifiables par l'entité), qui incrémentent la version.
+    // Le statut est affecté en premier : MySQL évalue les SET dans l'ordre avec les valeurs déjà modifiées
+    
+    /**
+     * Débiter un paiement : n'affecte la ligne que si le restant le couvre (0 sinon)
+     */
+    @Modifying
+    @Query("UPDATE Dette d SET d.statut = CASE WHEN d.montantRestant - :montant <= 0 " + STATUT_SELON + ", " +
+           "d.montantPaye = d.montantPaye + :montant, " +
+           "d.montantRestant = d.montantRestant - :montant, d.version = d.version + 1 " +
+           "WHERE d.id = :id AND d.montantRestant >= :montant")
+    int debiterPaiement(@Param("id") Long id, @Param("montant") BigDecimal montant);
+    
+    /**
+     * Annuler tout ou partie d'un paiement (toujours possible)
+     */
+    @Modifying
+    @Query("UPDATE Dette d SET d.statut = CASE WHEN d.montantRestant + :montant <= 0 " + STATUT_SELON + ", " +
+           "d.montantPaye = d.montantPaye - :montant, " +
+           "d.montantRestant = d.montantRestant + :montant, d.version = d.version + 1 WHERE d.id = :id")
+    int crediterPaiement(@Param("id") Long id, @Param("montant") BigDecimal montant);
+    
+    /**
+     * Changer le montant de la dette en recalculant le restant à partir du payé en base
+     */
+    @Modifying
+    @Query("UPDATE Dette d SET d.statut = CASE WHEN :montantDette - d.montantPaye <= 0 " + STATUT_SELON + ", " +
+           "d.montantDette = :montantDette, " +
+           "d.montantRestant = :montantDette - d.montantPaye, d.version = d.version + 1 WHERE d.id = :id")
+    int modifierMontantDette(@Param("id") Long id, @Param("montantDette") BigDecimal montantDette);
+    
+    /**
+     * Changer la tranche d'ancienneté (date de la dette modifiée)
+     */
+    @Modifying
+    @Query("UPDATE Dette d SET d.tranche = :tranche, d.version = d.version + 1 WHERE d.id = :id")
+    int modifierTranche(@Param("id") Long id, @Param("tranche") TrancheAnciennete tranche);
+    
+    /**
+     * Avancer d'un coup la tranche de plusieurs dettes
+     */
+    @Modifying
+    @Query("UPDATE Dette d SET d.tranche = :tranche, d.version = d.version + 1 WHERE d.id IN :ids")
+    int modifierTranches(@Param("ids") Collection<Long> ids, @Param("tranche") TrancheAnciennete tranche);
+    
+    /**
+     * Dettes restées dans une tranche qu'elles ont dépassée (index tranche, date), verrouillées dans l'ordre des ids
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Dette d WHERE d.tranche = :tranche AND d.date <= :dateLimite ORDER BY d.id")
+    List<Dette> findAVieillirPourMiseAJour(@Param("tranche") TrancheAnciennete tranche,
+                                          @Param("dateLimite") LocalDate dateLimite, Pageable pageable);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Dette d WHERE d.id = :id")
+    Optional<Dette> findByIdPourMiseAJour(@Param("id") Long id);
+    
+    // Verrous pris dans l'ordre des ids : deux lots concurrents ne peuvent pas s'interbloquer
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Dette d WHERE d.id IN :ids ORDER BY d.id")
+    List<Dette> findAllByIdPourMiseAJour(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Toutes les dettes en flux, lues par paquets de TAILLE_FETCH_EXPORT lignes (export)
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TAILLE_FETCH_EXPORT),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_DETTE_DTO + "ORDER BY d.id")
+    Stream<DetteDto> streamDtosPourExport();
 }
@@ -0,0 +1,23 @@
+package sn.ism.gestion_dettes.repositories;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import sn.ism.gestion_dettes.entities.Dette;
+
+/**
+ * Écritures de masse sur les dettes, hors du contexte de persistance
+ */
+public interface DetteRepositoryCustom {
+    
+    /**
+     * Insérer des dettes en un seul batch JDBC, renvoie les ids générés dans l'ordre de la liste
+     */
+    List<Long> insererParLot(List<Dette> dettes);
+    
+    /**
+     * Débiter plusieurs dettes (id dette -> montant) en un seul batch JDBC
+     */
+    void debiterParLot(Map<Long, BigDecimal> montantsParDette);
+}
@@ -0,0 +1,77 @@
+package sn.ism.gestion_dettes.repositories;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import sn.ism.gestion_dettes.entities.Dette;
+
+/**
+ * Les ids restent en AUTO_INCREMENT : un batch JDBC (réécrit en INSERT multi-lignes par MySQL
+ * avec rewriteBatchedStatements) renvoie tout de même les clés générées, sans table de génération
+ * qui demanderait une seconde connexion par transaction.
+ */
+public class DetteRepositoryCustomImpl implements DetteRepositoryCustom {
+    
+    private static final String INSERT_DETTE = "INSERT INTO dettes " +
+            "(date, montant_dette, montant_paye, montant_restant, statut, tranche, client_id, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+    
+    private static final String DEBITER_DETTE = "UPDATE dettes " +
+            "SET statut = CASE WHEN montant_restant - ? <= 0 THEN 'SOLDEE' ELSE 'EN_COURS' END, " +
+            "montant_paye = montant_paye + ?, montant_restant = montant_restant - ?, version = version + 1 WHERE id = ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public List<Long> insererParLot(List<Dette> dettes) {
+        KeyHolder cles = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connexion -> connexion.prepareStatement(INSERT_DETTE, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Dette dette = dettes.get(i);
+                        ps.setDate(1, Date.valueOf(dette.getDate()));
+                        ps.setBigDecimal(2, dette.getMontantDette());
+                        ps.setBigDecimal(3, dette.getMontantPaye());
+                        ps.setBigDecimal(4, dette.getMontantRestant());
+                        ps.setString(5, dette.getStatut().name());
+                        ps.setString(6, dette.getTranche().name());
+                        ps.setLong(7, dette.getClient().getId());
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return dettes.size();
+                    }
+                },
+                cles);
+        // Nom de colonne propre au pilote (id, ID, GENERATED_KEY) : une seule clé par ligne
+        return cles.getKeyList().stream()
+                .map(ligne -> ((Number) ligne.values().iterator().next()).longValue())
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public void debiterParLot(Map<Long, BigDecimal> montantsParDette) {
+        List<Map.Entry<Long, BigDecimal>> debits = new ArrayList<>(montantsParDette.entrySet());
+        jdbcTemplate.batchUpdate(DEBITER_DETTE, debits, debits.size(), (ps, debit) -> {
+            ps.setBigDecimal(1, debit.getValue());
+            ps.setBigDecimal(2, debit.getValue());
+            ps.setBigDecimal(3, debit.getValue());
+            ps.setLong(4, debit.getKey());
+        });
+    }
+}
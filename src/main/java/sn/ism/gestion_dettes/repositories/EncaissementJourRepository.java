@@ -0,0 +1,45 @@
+package sn.ism.gestion_dettes.repositories;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.QueryHint;
+import sn.ism.gestion_dettes.dto.EncaissementJourDto;
+import sn.ism.gestion_dettes.entities.EncaissementJour;
+
+@Repository
+public interface EncaissementJourRepository 
+        extends JpaRepository<EncaissementJour, EncaissementJour.EncaissementJourId> {
+    
+    /**
+     * Encaissements d'un jour, toutes tranches additionnées (vide si aucun paiement ce jour)
+     */
+    @Query("SELECT new sn.ism.gestion_dettes.dto.EncaissementJourDto(" +
+           "e.jour, SUM(e.montant), SUM(e.nombrePaiements)) " +
+           "FROM EncaissementJour e WHERE e.jour = :jour GROUP BY e.jour")
+    Optional<EncaissementJourDto> sommerJour(@Param("jour") LocalDate jour);
+    
+    /**
+     * Appliquer des écarts à une tranche d'un jour, créée au premier écart (incrément atomique)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "encaissements_jour"))
+    @Query(value = "INSERT INTO encaissements_jour (jour, tranche, montant, nombre_paiements) " +
+           "VALUES (:jour, :tranche, :deltaMontant, :deltaNombrePaiements) " +
+           "ON DUPLICATE KEY UPDATE " +
+           "montant = montant + :deltaMontant, " +
+           "nombre_paiements = nombre_paiements + :deltaNombrePaiements", nativeQuery = true)
+    int appliquerEcarts(@Param("jour") LocalDate jour,
+                        @Param("tranche") int tranche,
+                        @Param("deltaMontant") BigDecimal deltaMontant,
+                        @Param("deltaNombrePaiements") long deltaNombrePaiements);
+}
@@ -1,46 +1,233 @@
 package sn.ism.gestion_dettes.repositories;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import sn.ism.gestion_dettes.dto.AgregatsPaiementsDto;
+import sn.ism.gestion_dettes.dto.EncaissementJourDto;
+import sn.ism.gestion_dettes.dto.PaiementDto;
 import sn.ism.gestion_dettes.entities.Dette;
 import sn.ism.gestion_dettes.entities.Paiement;
 
 @Repository
-public interface PaiementRepository extends JpaRepository<Paiement, Long> {
+public interface PaiementRepository extends JpaRepository<Paiement, Long>, PaiementRepositoryCustom {
+    
+    // Lignes lues par aller-retour lors des exports en flux
+    String TAILLE_FETCH_EXPORT = "1000";
+    
+    /**
+     * Projection PaiementDto avec la dette et le client joints en une seule requête
+     */
+    String SELECT_PAIEMENT_DTO = "SELECT new sn.ism.gestion_dettes.dto.PaiementDto(" +
+            "p.id, p.montant, p.datePaiement, p.dateCreation, d.id, c.telephone, c.nom, d.montantDette) " +
+            "FROM Paiement p JOIN p.dette d JOIN d.client c ";
     
     List<Paiement> findByDette(Dette dette);
     
     Page<Paiement> findByDette(Dette dette, Pageable pageable);
     
-    @Query("SELECT p FROM Paiement p WHERE p.dette.client.telephone LIKE %:telephone%")
-    Page<Paiement> findByClientTelephoneContaining(@Param("telephone") String telephone, 
-                                                  Pageable pageable);
+    @Query(value = SELECT_PAIEMENT_DTO,
+           countQuery = "SELECT COUNT(p) FROM Paiement p")
+    Page<PaiementDto> findAllDtos(Pageable pageable);
+    
+    @Query(SELECT_PAIEMENT_DTO + "WHERE p.id = :id")
+    Optional<PaiementDto> findDtoById(@Param("id") Long id);
+    
+    /**
+     * Empreinte des paiements d'une dette (ETag de GET /paiements/dette/{detteId}/simple).
+     * Un ajout ou une suppression change le nombre ou l'ID max, une modification change la somme des versions.
+     */
+    @Query("SELECT CONCAT(CAST(d.version AS String), '-', CAST(c.version AS String), '-', " +
+           "CAST(COUNT(p) AS String), '-', CAST(COALESCE(MAX(p.id), 0) AS String), '-', " +
+           "CAST(COALESCE(SUM(p.version), 0) AS String)) " +
+           "FROM Dette d JOIN d.client c LEFT JOIN d.paiements p " +
+           "WHERE d.id = :detteId GROUP BY d.version, c.version")
+    Optional<String> findVersionPaiementsByDetteId(@Param("detteId") Long detteId);
+    
+    @Query(value = SELECT_PAIEMENT_DTO + "WHERE c.telephone LIKE %:telephone%",
+           countQuery = "SELECT COUNT(p) FROM Paiement p JOIN p.dette d JOIN d.client c " +
+           "WHERE c.telephone LIKE %:telephone%")
+    Page<PaiementDto> findByClientTelephoneContaining(@Param("telephone") String telephone, 
+                                                     Pageable pageable);
+    
+    @Query(value = SELECT_PAIEMENT_DTO + "WHERE c.id IN " + ClientTrigrammeRepository.CLIENTS_AVEC_TRIGRAMMES + 
+           " AND c.telephone LIKE %:telephone%",
+           countQuery = "SELECT COUNT(p) FROM Paiement p JOIN p.dette d JOIN d.client c WHERE c.id IN " + 
+           ClientTrigrammeRepository.CLIENTS_AVEC_TRIGRAMMES + " AND c.telephone LIKE %:telephone%")
+    Page<PaiementDto> findByClientTelephoneContainingIndexe(@Param("telephone") String telephone,
+                                                           @Param("trigramme") String trigramme,
+                                                           Pageable pageable);
     
-    @Query("SELECT p FROM Paiement p WHERE p.dette.id = :detteId")
-    Page<Paiement> findByDetteId(@Param("detteId") Long detteId, Pageable pageable);
+    @Query(value = SELECT_PAIEMENT_DTO + "WHERE d.id = :detteId",
+           countQuery = "SELECT COUNT(p) FROM Paiement p WHERE p.dette.id = :detteId")
+    Page<PaiementDto> findByDetteId(@Param("detteId") Long detteId, Pageable pageable);
+    
+    @Query(value = SELECT_PAIEMENT_DTO + "WHERE " +
+           "(:telephone IS NULL OR c.telephone LIKE %:telephone%) AND " +
+           "(:detteId IS NULL OR d.id = :detteId) AND " +
+           "(:montantMin IS NULL OR p.montant >= :montantMin) AND " +
+           "(:montantMax IS NULL OR p.montant <= :montantMax) AND " +
+           "(:dateFrom IS NULL OR p.datePaiement >= :dateFrom) AND " +
+           "(:dateTo IS NULL OR p.datePaiement <= :dateTo)",
+           countQuery = "SELECT COUNT(p) FROM Paiement p JOIN p.dette d JOIN d.client c WHERE " +
+           "(:telephone IS NULL OR c.telephone LIKE %:telephone%) AND " +
+           "(:detteId IS NULL OR d.id = :detteId) AND " +
+           "(:montantMin IS NULL OR p.montant >= :montantMin) AND " +
+           "(:montantMax IS NULL OR p.montant <= :montantMax) AND " +
+           "(:dateFrom IS NULL OR p.datePaiement >= :dateFrom) AND " +
+           "(:dateTo IS NULL OR p.datePaiement <= :dateTo)")
+    Page<PaiementDto> findPaiementsWithFilters(@Param("telephone") String telephone,
+                                              @Param("detteId") Long detteId,
+                                              @Param("montantMin") BigDecimal montantMin,
+                                              @Param("montantMax") BigDecimal montantMax,
+                                              @Param("dateFrom") LocalDate dateFrom,
+                                              @Param("dateTo") LocalDate dateTo,
+                                              Pageable pageable);
+    
+    // Pagination par clé : ordre (dateCreation, id) décroissant, pageable sans tri (size + 1 lignes)
+    
+    @Query(SELECT_PAIEMENT_DTO + "WHERE (:apresDate IS NULL OR p.dateCreation < :apresDate OR " +
+           "(p.dateCreation = :apresDate AND p.id < :apresId)) " +
+           "ORDER BY p.dateCreation DESC, p.id DESC")
+    List<PaiementDto> findDtosApres(@Param("apresDate") LocalDateTime apresDate,
+                                   @Param("apresId") Long apresId,
+                                   Pageable pageable);
+    
+    @Query(SELECT_PAIEMENT_DTO + "WHERE " +
+           "(:telephone IS NULL OR c.telephone LIKE %:telephone%) AND " +
+           "(:detteId IS NULL OR d.id = :detteId) AND " +
+           "(:montantMin IS NULL OR p.montant >= :montantMin) AND " +
+           "(:montantMax IS NULL OR p.montant <= :montantMax) AND " +
+           "(:dateFrom IS NULL OR p.datePaiement >= :dateFrom) AND " +
+           "(:dateTo IS NULL OR p.datePaiement <= :dateTo) AND " +
+           "(:apresDate IS NULL OR p.dateCreation < :apresDate OR " +
+           "(p.dateCreation = :apresDate AND p.id < :apresId)) " +
+           "ORDER BY p.dateCreation DESC, p.id DESC")
+    List<PaiementDto> findPaiementsWithFiltersApres(@Param("telephone") String telephone,
+                                                   @Param("detteId") Long detteId,
+                                                   @Param("montantMin") BigDecimal montantMin,
+                                                   @Param("montantMax") BigDecimal montantMax,
+                                                   @Param("dateFrom") LocalDate dateFrom,
+                                                   @Param("dateTo") LocalDate dateTo,
+                                                   @Param("apresDate") LocalDateTime apresDate,
+                                                   @Param("apresId") Long apresId,
+                                                   Pageable pageable);
     
-    @Query("SELECT p FROM Paiement p WHERE " +
-           "(:telephone IS NULL OR p.dette.client.telephone LIKE %:telephone%) AND " +
-           "(:detteId IS NULL OR p.dette.id = :detteId) AND " +
+    @Query(SELECT_PAIEMENT_DTO + "WHERE c.id IN " + ClientTrigrammeRepository.CLIENTS_AVEC_TRIGRAMMES + " AND " +
+           "c.telephone LIKE %:telephone% AND " +
+           "(:detteId IS NULL OR d.id = :detteId) AND " +
            "(:montantMin IS NULL OR p.montant >= :montantMin) AND " +
-           "(:montantMax IS NULL OR p.montant <= :montantMax)")
-    Page<Paiement> findPaiementsWithFilters(@Param("telephone") String telephone,
-                                           @Param("detteId") Long detteId,
-                                           @Param("montantMin") BigDecimal montantMin,
-                                           @Param("montantMax") BigDecimal montantMax,
-                                           Pageable pageable);
+           "(:montantMax IS NULL OR p.montant <= :montantMax) AND " +
+           "(:dateFrom IS NULL OR p.datePaiement >= :dateFrom) AND " +
+           "(:dateTo IS NULL OR p.datePaiement <= :dateTo) AND " +
+           "(:apresDate IS NULL OR p.dateCreation < :apresDate OR " +
+           "(p.dateCreation = :apresDate AND p.id < :apresId)) " +
+           "ORDER BY p.dateCreation DESC, p.id DESC")
+    List<PaiementDto> findPaiementsWithFiltersApresIndexe(@Param("telephone") String telephone,
+                                                         @Param("trigramme") String trigramme,
+                                                         @Param("detteId") Long detteId,
+                                                         @Param("montantMin") BigDecimal montantMin,
+                                                         @Param("montantMax") BigDecimal montantMax,
+                                                         @Param("dateFrom") LocalDate dateFrom,
+                                                         @Param("dateTo") LocalDate dateTo,
+                                                         @Param("apresDate") LocalDateTime apresDate,
+                                                         @Param("apresId") Long apresId,
+                                                         Pageable pageable);
+    
+    // Sans total : Slice (size + 1 lignes, pas de COUNT)
+    
+    @Query(SELECT_PAIEMENT_DTO)
+    Slice<PaiementDto> findAllDtosSansTotal(Pageable pageable);
+    
+    @Query(SELECT_PAIEMENT_DTO + "WHERE " +
+           "(:telephone IS NULL OR c.telephone LIKE %:telephone%) AND " +
+           "(:detteId IS NULL OR d.id = :detteId) AND " +
+           "(:montantMin IS NULL OR p.montant >= :montantMin) AND " +
+           "(:montantMax IS NULL OR p.montant <= :montantMax) AND " +
+           "(:dateFrom IS NULL OR p.datePaiement >= :dateFrom) AND " +
+           "(:dateTo IS NULL OR p.datePaiement <= :dateTo)")
+    Slice<PaiementDto> findPaiementsWithFiltersSansTotal(@Param("telephone") String telephone,
+                                                        @Param("detteId") Long detteId,
+                                                        @Param("montantMin") BigDecimal montantMin,
+                                                        @Param("montantMax") BigDecimal montantMax,
+                                                        @Param("dateFrom") LocalDate dateFrom,
+                                                        @Param("dateTo") LocalDate dateTo,
+                                                        Pageable pageable);
+    
+    @Query(SELECT_PAIEMENT_DTO + "WHERE c.id IN " + ClientTrigrammeRepository.CLIENTS_AVEC_TRIGRAMMES + " AND " +
+           "c.telephone LIKE %:telephone% AND " +
+           "(:detteId IS NULL OR d.id = :detteId) AND " +
+           "(:montantMin IS NULL OR p.montant >= :montantMin) AND " +
+           "(:montantMax IS NULL OR p.montant <= :montantMax) AND " +
+           "(:dateFrom IS NULL OR p.datePaiement >= :dateFrom) AND " +
+           "(:dateTo IS NULL OR p.datePaiement <= :dateTo)")
+    Slice<PaiementDto> findPaiementsWithFiltersSansTotalIndexe(@Param("telephone") String telephone,
+                                                              @Param("trigramme") String trigramme,
+                                                              @Param("detteId") Long detteId,
+                                                              @Param("montantMin") BigDecimal montantMin,
+                                                              @Param("montantMax") BigDecimal montantMax,
+                                                              @Param("dateFrom") LocalDate dateFrom,
+                                                              @Param("dateTo") LocalDate dateTo,
+                                                              Pageable pageable);
+    
+    /**
+     * Nombre approximatif de paiements d'après les statistiques de la table (MySQL)
+     */
+    @Query(value = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+           "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'paiements'", nativeQuery = true)
+    Long estimerNombrePaiements();
     
     @Query("SELECT SUM(p.montant) FROM Paiement p WHERE p.dette = :dette")
     BigDecimal getTotalPaiementsByDette(@Param("dette") Dette dette);
     
+    // Reconstruction du tableau de bord par intervalles d'ids
+    
+    @Query("SELECT MAX(p.id) FROM Paiement p")
+    Long findIdMax();
+    
+    @Query("SELECT new sn.ism.gestion_dettes.dto.EncaissementJourDto(p.datePaiement, SUM(p.montant), COUNT(p)) " +
+           "FROM Paiement p WHERE p.id BETWEEN :debut AND :fin GROUP BY p.datePaiement")
+    List<EncaissementJourDto> agregerEncaissementsIntervalle(@Param("debut") Long debut, @Param("fin") Long fin);
+    
+    /**
+     * Nombre, total, minimum et maximum des paiements d'une dette avec ses montants (vide si la dette n'existe pas)
+     */
+    @Query("SELECT new sn.ism.gestion_dettes.dto.AgregatsPaiementsDto(" +
+           "COUNT(p), SUM(p.montant), MIN(p.montant), MAX(p.montant), d.montantDette, d.montantRestant) " +
+           "FROM Dette d LEFT JOIN d.paiements p WHERE d.id = :detteId " +
+           "GROUP BY d.id, d.montantDette, d.montantRestant")
+    Optional<AgregatsPaiementsDto> findAgregatsByDetteId(@Param("detteId") Long detteId);
+    
     @Query("SELECT p FROM Paiement p WHERE p.dette = :dette ORDER BY p.dateCreation DESC")
     List<Paiement> findByDetteOrderByDateCreationDesc(@Param("dette") Dette dette);
-}
\ No newline at end of file
+    
+    @Query(SELECT_PAIEMENT_DTO + "WHERE d.id = :detteId ORDER BY p.dateCreation DESC")
+    List<PaiementDto> findDtosByDetteIdOrderByDateCreationDesc(@Param("detteId") Long detteId);
+    
+    /**
+     * Toutes les paiements en flux, lues par paquets de TAILLE_FETCH_EXPORT lignes (export)
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TAILLE_FETCH_EXPORT),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_PAIEMENT_DTO + "ORDER BY p.id")
+    Stream<PaiementDto> streamDtosPourExport();
+}
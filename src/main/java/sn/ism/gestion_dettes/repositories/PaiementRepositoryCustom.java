@@ -0,0 +1,16 @@
+package sn.ism.gestion_dettes.repositories;
+
+import java.util.List;
+
+import sn.ism.gestion_dettes.entities.Paiement;
+
+/**
+ * Écritures de masse sur les paiements, hors du contexte de persistance
+ */
+public interface PaiementRepositoryCustom {
+    
+    /**
+     * Insérer des paiements en un seul batch JDBC
+     */
+    void insererParLot(List<Paiement> paiements);
+}
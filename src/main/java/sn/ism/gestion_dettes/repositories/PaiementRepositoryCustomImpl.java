@@ -0,0 +1,29 @@
+package sn.ism.gestion_dettes.repositories;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import sn.ism.gestion_dettes.entities.Paiement;
+
+public class PaiementRepositoryCustomImpl implements PaiementRepositoryCustom {
+    
+    private static final String INSERT_PAIEMENT = "INSERT INTO paiements " +
+            "(montant, date_paiement, date_creation, dette_id, version) VALUES (?, ?, ?, ?, 0)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void insererParLot(List<Paiement> paiements) {
+        jdbcTemplate.batchUpdate(INSERT_PAIEMENT, paiements, paiements.size(), (ps, paiement) -> {
+            ps.setBigDecimal(1, paiement.getMontant());
+            ps.setDate(2, Date.valueOf(paiement.getDatePaiement()));
+            ps.setTimestamp(3, Timestamp.valueOf(paiement.getDateCreation()));
+            ps.setLong(4, paiement.getDette().getId());
+        });
+    }
+}
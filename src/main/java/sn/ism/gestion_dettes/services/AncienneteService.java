@@ -0,0 +1,176 @@
+package sn.ism.gestion_dettes.services;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import sn.ism.gestion_dettes.dto.TrancheAncienneteDto;
+import sn.ism.gestion_dettes.entities.Dette;
+import sn.ism.gestion_dettes.entities.StatutDette;
+import sn.ism.gestion_dettes.entities.TrancheAnciennete;
+import sn.ism.gestion_dettes.events.MouvementSoldeEvent;
+import sn.ism.gestion_dettes.repositories.AncienneteClientRepository;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+
+/**
+ * Ancienneté des créances (0-30, 31-60, 61-90, 90+ jours) par client et sur tout le portefeuille.
+ * Chaque dette porte sa tranche ; les totaux par client et tranche sont tenus dans la transaction
+ * des écritures, et une tâche quotidienne ne déplace que les dettes qui changent de tranche.
+ */
+@Service
+@Transactional
+public class AncienneteService {
+
+    private static final int TAILLE_LOT = 1000;
+
+    @Autowired
+    private AncienneteClientRepository ancienneteRepository;
+
+    @Autowired
+    private DetteRepository detteRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Appliquer le mouvement à la tranche de la dette, dans la transaction de l'écriture
+     */
+    @EventListener
+    public void surMouvementSolde(MouvementSoldeEvent event) {
+        if (event.getDeltaMontantRestant().signum() == 0 && event.getDeltaNombreDettesEnCours() == 0) {
+            return;
+        }
+        ancienneteRepository.appliquerEcarts(event.getClientId(), event.getTranche().name(),
+                event.getDeltaMontantRestant(), event.getDeltaNombreDettesEnCours());
+    }
+
+    /**
+     * Ancienneté de tout le portefeuille (les quatre tranches, vides comprises)
+     */
+    @Transactional(readOnly = true)
+    public List<TrancheAncienneteDto> obtenirAnciennete() {
+        return completer(ancienneteRepository.sommerParTranche());
+    }
+
+    /**
+     * Ancienneté des créances d'un client
+     */
+    @Transactional(readOnly = true)
+    public List<TrancheAncienneteDto> obtenirAncienneteClient(Long clientId) {
+        if (!clientRepository.existsById(clientId)) {
+            throw new RuntimeException("Client non trouvé avec ID: " + clientId);
+        }
+        return completer(ancienneteRepository.findByClientId(clientId));
+    }
+
+    /**
+     * Avancer les dettes qui ont franchi une limite de tranche (chaque jour après minuit, rattrape les jours manqués).
+     * Par lots verrouillés dans l'ordre des ids, une transaction par lot ; renvoie le nombre de dettes déplacées.
+     */
+    @Scheduled(cron = "${app.anciennete.cron:0 5 0 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int vieillirDettes() {
+        LocalDate aujourdhui = LocalDate.now();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int deplacees = 0;
+        for (TrancheAnciennete tranche : TrancheAnciennete.values()) {
+            TrancheAnciennete suivante = tranche.suivante();
+            if (suivante == null) {
+                break;
+            }
+            int lot;
+            do {
+                lot = transaction.execute(status -> vieillirLot(tranche, suivante.dateLimite(aujourdhui), aujourdhui));
+                deplacees += lot;
+            } while (lot == TAILLE_LOT);
+        }
+        return deplacees;
+    }
+
+    // Les dettes déplacées quittent le critère de recherche : chaque lot reprend depuis le début
+    private int vieillirLot(TrancheAnciennete tranche, LocalDate dateLimite, LocalDate aujourdhui) {
+        List<Dette> dettes = detteRepository.findAVieillirPourMiseAJour(tranche, dateLimite, PageRequest.of(0, TAILLE_LOT));
+
+        // Une dette en retard de plusieurs jours peut sauter directement plusieurs tranches
+        Map<TrancheAnciennete, List<Long>> idsParTranche = new EnumMap<>(TrancheAnciennete.class);
+        Map<List<Object>, BigDecimal> restants = new LinkedHashMap<>();
+        Map<List<Object>, Long> enCours = new LinkedHashMap<>();
+        for (Dette dette : dettes) {
+            TrancheAnciennete nouvelle = TrancheAnciennete.pourDate(dette.getDate(), aujourdhui);
+            idsParTranche.computeIfAbsent(nouvelle, t -> new ArrayList<>()).add(dette.getId());
+            long ouverte = dette.getStatut() == StatutDette.EN_COURS ? 1 : 0;
+            Long clientId = dette.getClient().getId();
+            restants.merge(List.of(clientId, tranche), dette.getMontantRestant().negate(), BigDecimal::add);
+            enCours.merge(List.of(clientId, tranche), -ouverte, Long::sum);
+            restants.merge(List.of(clientId, nouvelle), dette.getMontantRestant(), BigDecimal::add);
+            enCours.merge(List.of(clientId, nouvelle), ouverte, Long::sum);
+        }
+
+        idsParTranche.forEach((nouvelle, ids) -> detteRepository.modifierTranches(ids, nouvelle));
+        restants.forEach((cle, restant) -> {
+            long nombre = enCours.get(cle);
+            if (restant.signum() != 0 || nombre != 0) {
+                ancienneteRepository.appliquerEcarts((Long) cle.get(0), ((TrancheAnciennete) cle.get(1)).name(),
+                        restant, nombre);
+            }
+        });
+        return dettes.size();
+    }
+
+    /**
+     * Recalculer toutes les tranches depuis les dettes (hors trafic)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<TrancheAncienneteDto> reconstruire() {
+        vieillirDettes();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            ancienneteRepository.deleteAllInBatch();
+            ancienneteRepository.recalculerDepuisDettes();
+        });
+        return obtenirAnciennete();
+    }
+
+    /**
+     * Rattraper l'ancienneté au démarrage, et la construire si elle est vide alors que des dettes existent
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void initialiserAnciennete() {
+        if (ancienneteRepository.count() == 0 && detteRepository.count() > 0) {
+            reconstruire();
+        } else {
+            vieillirDettes();
+        }
+    }
+
+    // Les quatre tranches dans l'ordre, à zéro quand aucune ligne n'existe
+    private static List<TrancheAncienneteDto> completer(List<TrancheAncienneteDto> lignes) {
+        Map<TrancheAnciennete, TrancheAncienneteDto> parTranche = lignes.stream()
+                .collect(Collectors.toMap(TrancheAncienneteDto::getTranche, ligne -> ligne));
+        List<TrancheAncienneteDto> tranches = new ArrayList<>();
+        for (TrancheAnciennete tranche : TrancheAnciennete.values()) {
+            tranches.add(parTranche.getOrDefault(tranche, new TrancheAncienneteDto(tranche, BigDecimal.ZERO, 0L)));
+        }
+        return tranches;
+    }
+}
@@ -0,0 +1,206 @@
+package sn.ism.gestion_dettes.services;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import sn.ism.gestion_dettes.dto.ClientResumeDto;
+import sn.ism.gestion_dettes.events.ClientModifieEvent;
+import sn.ism.gestion_dettes.events.ClientsImportesEvent;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+
+/**
+ * Annuaire des clients (id, nom, téléphone) pour les listes déroulantes, servi depuis la mémoire.
+ * Les clients sont rangés par id dans trois tableaux ; chaque écriture validée produit un nouvel
+ * instantané de version supérieure (copie sur écriture), de sorte que les lectures ne prennent
+ * aucun verrou et que l'ETag ne change qu'avec l'annuaire.
+ */
+@Service
+public class AnnuaireClientsService {
+    
+    private static final int TAILLE_LOT = 5000;
+    
+    // Distingue les ETag d'un démarrage à l'autre (les versions repartent de zéro)
+    private final String demarrage = Long.toString(System.currentTimeMillis(), 36);
+    
+    @Autowired
+    private ClientRepository clientRepository;
+    
+    // Sérialise les écrivains ; un verrou plutôt que synchronized : le chargement attend la base,
+    // et un thread virtuel bloqué dans un bloc synchronized garde son thread porteur (Java 21)
+    private final ReentrantLock verrou = new ReentrantLock();
+    
+    private volatile Instantane instantane = new Instantane(demarrage, 0, new long[0], new String[0], new String[0]);
+    
+    /**
+     * Charger tout l'annuaire par lots de clients
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void chargerAnnuaire() {
+        verrou.lock();
+        try {
+            chargerSousVerrou();
+        } finally {
+            verrou.unlock();
+        }
+    }
+    
+    private void chargerSousVerrou() {
+        long[] ids = new long[1024];
+        String[] noms = new String[ids.length];
+        String[] telephones = new String[ids.length];
+        int taille = 0;
+        Long apresId = null;
+        List<ClientResumeDto> lot;
+        do {
+            lot = clientRepository.findResumesApres(apresId, PageRequest.of(0, TAILLE_LOT));
+            if (taille + lot.size() > ids.length) {
+                int capacite = Math.max(taille + lot.size(), ids.length * 2);
+                ids = Arrays.copyOf(ids, capacite);
+                noms = Arrays.copyOf(noms, capacite);
+                telephones = Arrays.copyOf(telephones, capacite);
+            }
+            for (ClientResumeDto client : lot) {
+                ids[taille] = client.getId();
+                noms[taille] = client.getNom();
+                telephones[taille++] = client.getTelephone();
+            }
+            if (!lot.isEmpty()) {
+                apresId = lot.get(lot.size() - 1).getId();
+            }
+        } while (lot.size() == TAILLE_LOT);
+        
+        instantane = new Instantane(demarrage, instantane.version + 1, Arrays.copyOf(ids, taille),
+                Arrays.copyOf(noms, taille), Arrays.copyOf(telephones, taille));
+    }
+    
+    /**
+     * Répercuter une écriture validée sur un client
+     */
+    @TransactionalEventListener
+    public void surClientModifie(ClientModifieEvent event) {
+        TreeMap<Long, ClientResumeDto> changements = new TreeMap<>();
+        changements.put(event.getClientId(), event.getType() == ClientModifieEvent.Type.SUPPRESSION 
+                ? null : new ClientResumeDto(event.getClientId(), event.getNom(), event.getTelephone()));
+        appliquerSousVerrou(changements);
+    }
+    
+    /**
+     * Ajouter un lot de clients importés en une seule fusion
+     */
+    @TransactionalEventListener
+    public void surClientsImportes(ClientsImportesEvent event) {
+        TreeMap<Long, ClientResumeDto> changements = new TreeMap<>();
+        event.getTelephones().forEach((id, telephone) -> 
+                changements.put(id, new ClientResumeDto(id, event.getNoms().get(id), telephone)));
+        appliquerSousVerrou(changements);
+    }
+    
+    public Instantane obtenirInstantane() {
+        return instantane;
+    }
+    
+    private void appliquerSousVerrou(TreeMap<Long, ClientResumeDto> changements) {
+        verrou.lock();
+        try {
+            appliquer(changements);
+        } finally {
+            verrou.unlock();
+        }
+    }
+    
+    // Fusionner des changements triés par id (valeur null : suppression) dans un nouvel instantané
+    private void appliquer(TreeMap<Long, ClientResumeDto> changements) {
+        Instantane courant = instantane;
+        int capacite = courant.ids.length + changements.size();
+        long[] ids = new long[capacite];
+        String[] noms = new String[capacite];
+        String[] telephones = new String[capacite];
+        
+        int i = 0, k = 0;
+        Iterator<Map.Entry<Long, ClientResumeDto>> iterateur = changements.entrySet().iterator();
+        Map.Entry<Long, ClientResumeDto> changement = iterateur.next();
+        while (i < courant.ids.length || changement != null) {
+            if (changement == null || (i < courant.ids.length && courant.ids[i] < changement.getKey())) {
+                ids[k] = courant.ids[i];
+                noms[k] = courant.noms[i];
+                telephones[k++] = courant.telephones[i++];
+                continue;
+            }
+            // Client remplacé ou supprimé
+            if (i < courant.ids.length && courant.ids[i] == changement.getKey()) {
+                i++;
+            }
+            ClientResumeDto client = changement.getValue();
+            if (client != null) {
+                ids[k] = client.getId();
+                noms[k] = client.getNom();
+                telephones[k++] = client.getTelephone();
+            }
+            changement = iterateur.hasNext() ? iterateur.next() : null;
+        }
+        
+        instantane = new Instantane(demarrage, courant.version + 1, Arrays.copyOf(ids, k),
+                Arrays.copyOf(noms, k), Arrays.copyOf(telephones, k));
+    }
+    
+    /**
+     * État immuable de l'annuaire à une version donnée
+     */
+    public static final class Instantane {
+        
+        private final String etag;
+        private final long version;
+        private final long[] ids;
+        private final String[] noms;
+        private final String[] telephones;
+        
+        private Instantane(String demarrage, long version, long[] ids, String[] noms, String[] telephones) {
+            this.etag = "\"" + demarrage + "-" + version + "\"";
+            this.version = version;
+            this.ids = ids;
+            this.noms = noms;
+            this.telephones = telephones;
+        }
+        
+        public String getEtag() { return etag; }
+        public long getVersion() { return version; }
+        public int getTaille() { return ids.length; }
+        
+        /**
+         * Client d'id donné par recherche dichotomique (null s'il est absent)
+         */
+        public ClientResumeDto trouver(long id) {
+            int index = Arrays.binarySearch(ids, id);
+            return index >= 0 ? new ClientResumeDto(ids[index], noms[index], telephones[index]) : null;
+        }
+        
+        /**
+         * Vue en liste, par id croissant : les DTO sont créés à la lecture
+         */
+        public List<ClientResumeDto> getClients() {
+            return new AbstractList<>() {
+                @Override
+                public ClientResumeDto get(int index) {
+                    return new ClientResumeDto(ids[index], noms[index], telephones[index]);
+                }
+                
+                @Override
+                public int size() {
+                    return ids.length;
+                }
+            };
+        }
+    }
+}
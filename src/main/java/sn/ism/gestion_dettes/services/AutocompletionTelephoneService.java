@@ -0,0 +1,124 @@
+package sn.ism.gestion_dettes.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.SuggestionTelephoneDto;
+import sn.ism.gestion_dettes.events.ClientModifieEvent;
+import sn.ism.gestion_dettes.events.ClientsImportesEvent;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+
+/**
+ * Autocomplétion des téléphones servie depuis la mémoire : l'index est chargé au démarrage
+ * puis tenu à jour par les événements publiés par ClientService après validation.
+ * Le chargement tourne alors que les écritures sont déjà acceptées : les événements reçus pendant
+ * ce temps sont mis en attente puis rejoués sur l'index complet (ils sont idempotents).
+ */
+@Service
+public class AutocompletionTelephoneService {
+
+    private static final int TAILLE_LOT = 5000;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private final IndexPrefixeTelephones index = new IndexPrefixeTelephones();
+
+    private final ReentrantLock verrouChargement = new ReentrantLock();
+    private List<Runnable> evenementsEnAttente;
+
+    /**
+     * Charger tous les téléphones par lots de clients
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void chargerIndex() {
+        verrouChargement.lock();
+        try {
+            evenementsEnAttente = new ArrayList<>();
+        } finally {
+            verrouChargement.unlock();
+        }
+        try {
+            Long apresId = null;
+            List<ClientDto> lot;
+            do {
+                lot = clientRepository.findDtosApres(apresId, PageRequest.of(0, TAILLE_LOT));
+                Map<Long, String> telephones = new HashMap<>();
+                lot.forEach(client -> telephones.put(client.getId(), client.getTelephone()));
+                index.ajouterTous(telephones);
+                if (!lot.isEmpty()) {
+                    apresId = lot.get(lot.size() - 1).getId();
+                }
+            } while (lot.size() == TAILLE_LOT);
+        } finally {
+            // Un lot lu avant une écriture a pu la défaire : on la rejoue par-dessus
+            verrouChargement.lock();
+            try {
+                evenementsEnAttente.forEach(Runnable::run);
+                evenementsEnAttente = null;
+            } finally {
+                verrouChargement.unlock();
+            }
+        }
+    }
+
+    /**
+     * Répercuter une écriture validée sur un client
+     */
+    @TransactionalEventListener
+    public void surClientModifie(ClientModifieEvent event) {
+        appliquer(() -> {
+            switch (event.getType()) {
+                case AJOUT -> index.ajouter(event.getTelephone(), event.getClientId());
+                case MODIFICATION -> {
+                    index.retirer(event.getAncienTelephone(), event.getClientId());
+                    index.ajouter(event.getTelephone(), event.getClientId());
+                }
+                case SUPPRESSION -> index.retirer(event.getTelephone(), event.getClientId());
+            }
+        });
+    }
+
+    /**
+     * Ajouter un lot de clients importés en une seule fusion
+     */
+    @TransactionalEventListener
+    public void surClientsImportes(ClientsImportesEvent event) {
+        appliquer(() -> index.ajouterTous(event.getTelephones()));
+    }
+
+    private void appliquer(Runnable modification) {
+        verrouChargement.lock();
+        try {
+            if (evenementsEnAttente != null) {
+                evenementsEnAttente.add(modification);
+            } else {
+                modification.run();
+            }
+        } finally {
+            verrouChargement.unlock();
+        }
+    }
+    
+    /**
+     * Les téléphones commençant par le préfixe (chiffres seuls), sans accès à la base
+     */
+    public List<SuggestionTelephoneDto> suggerer(String prefixe, int limite) {
+        return index.rechercher(prefixe, limite);
+    }
+
+    public int nombreTelephonesIndexes() {
+        return index.taille();
+    }
+}
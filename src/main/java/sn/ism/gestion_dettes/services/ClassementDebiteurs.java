@@ -0,0 +1,105 @@
+package sn.ism.gestion_dettes.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import sn.ism.gestion_dettes.dto.DebiteurDto;
+
+/**
+ * Classement en mémoire des clients par montant restant décroissant (ids croissants à égalité).
+ * Un arbre trié donne les n premiers en O(n) ; une table id client -> entrée permet de retrouver
+ * et replacer un client en O(log N) à chaque mouvement. Seuls les clients qui doivent encore figurent dans l'arbre.
+ */
+public class ClassementDebiteurs {
+
+    private static final Comparator<Entree> ORDRE = Comparator
+            .comparing((Entree entree) -> entree.montantRestant).reversed()
+            .thenComparingLong(entree -> entree.clientId);
+
+    private final TreeSet<Entree> classement = new TreeSet<>(ORDRE);
+    private final Map<Long, Entree> parClient = new HashMap<>();
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    /**
+     * Remplacer tout le classement (id client -> montant restant)
+     */
+    public void charger(Map<Long, BigDecimal> restants) {
+        verrou.writeLock().lock();
+        try {
+            classement.clear();
+            parClient.clear();
+            restants.forEach(this::placer);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replacer un client à son montant restant (il quitte le classement s'il ne doit plus rien)
+     */
+    public void fixer(Long clientId, BigDecimal montantRestant) {
+        verrou.writeLock().lock();
+        try {
+            Entree ancienne = parClient.remove(clientId);
+            if (ancienne != null) {
+                classement.remove(ancienne);
+            }
+            placer(clientId, montantRestant);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Les n plus gros débiteurs, du plus endetté au moins endetté
+     */
+    public List<DebiteurDto> premiers(int n) {
+        verrou.readLock().lock();
+        try {
+            List<DebiteurDto> debiteurs = new ArrayList<>(Math.min(n, classement.size()));
+            Iterator<Entree> iterateur = classement.iterator();
+            while (debiteurs.size() < n && iterateur.hasNext()) {
+                Entree entree = iterateur.next();
+                debiteurs.add(new DebiteurDto(entree.clientId, entree.montantRestant));
+            }
+            return debiteurs;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    public int taille() {
+        verrou.readLock().lock();
+        try {
+            return classement.size();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private void placer(Long clientId, BigDecimal montantRestant) {
+        if (montantRestant.signum() > 0) {
+            Entree entree = new Entree(clientId, montantRestant);
+            parClient.put(clientId, entree);
+            classement.add(entree);
+        }
+    }
+
+    private static final class Entree {
+        private final long clientId;
+        private final BigDecimal montantRestant;
+
+        private Entree(long clientId, BigDecimal montantRestant) {
+            this.clientId = clientId;
+            this.montantRestant = montantRestant;
+        }
+    }
+}
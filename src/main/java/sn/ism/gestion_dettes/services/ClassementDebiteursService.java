@@ -0,0 +1,182 @@
+package sn.ism.gestion_dettes.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import sn.ism.gestion_dettes.config.RoutageLectureEcritureDataSource;
+import sn.ism.gestion_dettes.dto.ClientResumeDto;
+import sn.ism.gestion_dettes.dto.DebiteurDto;
+import sn.ism.gestion_dettes.dto.SoldeClientDto;
+import sn.ism.gestion_dettes.events.MouvementSoldeEvent;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+
+/**
+ * Plus gros débiteurs servis depuis la mémoire : le classement est chargé au démarrage depuis
+ * les agrégats des clients. Un mouvement de solde validé marque seulement son client ; une tâche planifiée
+ * relit les clients marqués en une requête (app.classement.delai-relecture-ms, 500 ms par défaut).
+ * Les lectures du classement restent sans SQL, au prix de ce délai avant qu'un mouvement y apparaisse. Relire le montant absolu plutôt
+ * qu'additionner l'écart rend le classement insensible à l'ordre des événements et aux mouvements
+ * validés pendant un chargement.
+ */
+@Service
+public class ClassementDebiteursService {
+
+    private static final int TAILLE_LOT = 5000;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private AnnuaireClientsService annuaireClientsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ClassementDebiteurs classement = new ClassementDebiteurs();
+
+    // Relecture des clients marqués et remplacement du classement : une à la fois
+    private final ReentrantLock verrouRelecture = new ReentrantLock();
+    private final ReentrantLock verrouReconstruction = new ReentrantLock();
+    private final Set<Long> clientsARelire = ConcurrentHashMap.newKeySet();
+    private volatile boolean chargementEnCours;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void chargerClassement() {
+        reconstruire();
+    }
+
+    /**
+     * Recharger tout le classement depuis les agrégats, par lots, sans bloquer les écritures.
+     * Les clients modifiés pendant la lecture sont relus avant de reprendre le suivi normal.
+     */
+    public int reconstruire() {
+        verrouReconstruction.lock();
+        try {
+            verrouRelecture.lock();
+            try {
+                chargementEnCours = true;
+                clientsARelire.clear();
+            } finally {
+                verrouRelecture.unlock();
+            }
+
+            Map<Long, BigDecimal> restants = new HashMap<>();
+            Long apresId = null;
+            List<SoldeClientDto> lot;
+            do {
+                lot = clientRepository.findSoldesDebiteursApres(apresId, PageRequest.of(0, TAILLE_LOT));
+                lot.forEach(solde -> restants.put(solde.getClientId(), solde.getTotalRestant()));
+                if (!lot.isEmpty()) {
+                    apresId = lot.get(lot.size() - 1).getClientId();
+                }
+            } while (lot.size() == TAILLE_LOT);
+
+            verrouRelecture.lock();
+            try {
+                classement.charger(restants);
+                relireClientsMarques();
+                chargementEnCours = false;
+            } finally {
+                verrouRelecture.unlock();
+            }
+            return classement.taille();
+        } finally {
+            verrouReconstruction.unlock();
+        }
+    }
+
+    /**
+     * Marquer le client d'un mouvement de solde validé. Aucune requête ici : après la validation,
+     * la transaction de l'écriture tient encore sa connexion, en ouvrir une seconde par écriture
+     * épuiserait le pool sous charge.
+     */
+    @TransactionalEventListener
+    public void surMouvementSolde(MouvementSoldeEvent event) {
+        if (event.getDeltaMontantRestant().signum() != 0) {
+            clientsARelire.add(event.getClientId());
+        }
+    }
+
+    /**
+     * Relire les clients marqués (sauf pendant un chargement, qui les relira à la fin)
+     */
+    @Scheduled(fixedDelayString = "${app.classement.delai-relecture-ms:500}")
+    public int relireClientsModifies() {
+        if (clientsARelire.isEmpty() || chargementEnCours) {
+            return 0;
+        }
+        verrouRelecture.lock();
+        try {
+            return chargementEnCours ? 0 : relireClientsMarques();
+        } finally {
+            verrouRelecture.unlock();
+        }
+    }
+
+    /**
+     * Retirer les clients marqués puis relire leur montant restant validé sur le primaire (zéro s'ils ont
+     * été supprimés). Un client marqué de nouveau pendant la lecture reste marqué pour la suivante.
+     */
+    private int relireClientsMarques() {
+        List<Long> clientIds = new ArrayList<>();
+        for (Iterator<Long> iterateur = clientsARelire.iterator(); iterateur.hasNext(); ) {
+            clientIds.add(iterateur.next());
+            iterateur.remove();
+        }
+        if (clientIds.isEmpty()) {
+            return 0;
+        }
+        TransactionTemplate lecture = new TransactionTemplate(transactionManager);
+        lecture.setReadOnly(true);
+        Map<Long, BigDecimal> restants = lecture.execute(statut -> {
+            RoutageLectureEcritureDataSource.exigerPrimaire();
+            Map<Long, BigDecimal> lus = new HashMap<>();
+            for (int debut = 0; debut < clientIds.size(); debut += TAILLE_LOT) {
+                clientRepository.findSoldesByIds(clientIds.subList(debut, Math.min(debut + TAILLE_LOT, clientIds.size())))
+                        .forEach(solde -> lus.put(solde.getClientId(), solde.getTotalRestant()));
+            }
+            return lus;
+        });
+        for (Long clientId : clientIds) {
+            classement.fixer(clientId, restants.getOrDefault(clientId, BigDecimal.ZERO));
+        }
+        return clientIds.size();
+    }
+
+    /**
+     * Les n clients qui doivent le plus, avec nom et téléphone pris dans l'annuaire en mémoire
+     */
+    public List<DebiteurDto> obtenirPlusGrosDebiteurs(int n) {
+        AnnuaireClientsService.Instantane annuaire = annuaireClientsService.obtenirInstantane();
+        List<DebiteurDto> debiteurs = classement.premiers(n);
+        for (DebiteurDto debiteur : debiteurs) {
+            ClientResumeDto client = annuaire.trouver(debiteur.getClientId());
+            if (client != null) {
+                debiteur.setNom(client.getNom());
+                debiteur.setTelephone(client.getTelephone());
+            }
+        }
+        return debiteurs;
+    }
+
+    public int nombreDebiteurs() {
+        return classement.taille();
+    }
+}
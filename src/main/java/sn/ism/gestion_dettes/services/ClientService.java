@@ -1,18 +1,29 @@
 package sn.ism.gestion_dettes.services;
 
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.Curseur;
+import sn.ism.gestion_dettes.dto.PageCurseurDto;
 import sn.ism.gestion_dettes.entities.Client;
+import sn.ism.gestion_dettes.events.ClientModifieEvent;
 import sn.ism.gestion_dettes.repositories.ClientRepository;
 
 @Service
@@ -22,6 +33,12 @@ public class ClientService {
     @Autowired
     private ClientRepository clientRepository;
     
+    @Autowired
+    private TrigrammeService trigrammeService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Ajouter un nouveau client
      */
@@ -37,6 +54,9 @@ public class ClientService {
         client.setAdresse(clientDto.getAdresse());
         
         Client savedClient = clientRepository.save(client);
+        trigrammeService.indexerClient(savedClient.getId(), savedClient.getTelephone());
+        eventPublisher.publishEvent(ClientModifieEvent.ajout(
+                savedClient.getId(), savedClient.getNom(), savedClient.getTelephone()));
         return convertToDto(savedClient);
     }
     
@@ -54,7 +74,11 @@ public class ClientService {
      */
     @Transactional(readOnly = true)
     public Page<ClientDto> rechercherClientsParTelephone(String telephone, Pageable pageable) {
-        Page<Client> clients = clientRepository.findByTelephoneContaining(telephone, pageable);
+        // Passer par l'index dès que la recherche contient un trigramme sélectif, sinon LIKE
+        String trigramme = trigrammeService.choisirTrigramme(telephone);
+        Page<Client> clients = trigramme == null
+                ? clientRepository.findByTelephoneContaining(telephone, pageable)
+                : clientRepository.findByTelephoneContainingIndexe(telephone, trigramme, pageable);
         return clients.map(this::convertToDto);
     }
     
@@ -67,6 +91,66 @@ public class ClientService {
         return clients.map(this::convertToDto);
     }
     
+    /**
+     * Obtenir tous les clients sans compter le total
+     */
+    @Transactional(readOnly = true)
+    public Slice<ClientDto> obtenirTousLesClientsSansTotal(Pageable pageable) {
+        return clientRepository.findAllDtosSansTotal(pageable);
+    }
+    
+    /**
+     * Rechercher des clients avec filtres sans compter le total
+     */
+    @Transactional(readOnly = true)
+    public Slice<ClientDto> rechercherClientsAvecFiltresSansTotal(String nom, String telephone, Pageable pageable) {
+        // Index des trigrammes si l'un d'eux est sélectif, comme la recherche paginée
+        String trigramme = trigrammeService.choisirTrigramme(telephone);
+        return trigramme == null
+                ? clientRepository.findClientsWithFiltersSansTotal(nom, telephone, pageable)
+                : clientRepository.findClientsWithFiltersSansTotalIndexe(
+                        nom, telephone, trigramme, pageable);
+    }
+    
+    /**
+     * Estimer le nombre total de clients à partir des statistiques de la table (MySQL) ;
+     * null si la base ne les expose pas (voir DetteService.estimerNombreDettes)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Long estimerNombreClients() {
+        try {
+            return clientRepository.estimerNombreClients();
+        } catch (DataAccessException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Obtenir tous les clients par curseur (ordre id croissant)
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<ClientDto> obtenirTousLesClientsApres(String curseur, int size) {
+        Curseur position = Curseur.decoder(curseur);
+        List<ClientDto> lignes = clientRepository.findDtosApres(position.getId(), PageRequest.of(0, size + 1));
+        return PageCurseurDto.depuisLignes(lignes, size, client -> Curseur.encoder(client.getId()));
+    }
+    
+    /**
+     * Rechercher des clients avec filtres par curseur
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<ClientDto> rechercherClientsAvecFiltresApres(String nom, String telephone, 
+                                                                      String curseur, int size) {
+        Curseur position = Curseur.decoder(curseur);
+        String trigramme = trigrammeService.choisirTrigramme(telephone);
+        List<ClientDto> lignes = trigramme == null
+                ? clientRepository.findClientsWithFiltersApres(
+                        nom, telephone, position.getId(), PageRequest.of(0, size + 1))
+                : clientRepository.findClientsWithFiltersApresIndexe(
+                        nom, telephone, trigramme, position.getId(), PageRequest.of(0, size + 1));
+        return PageCurseurDto.depuisLignes(lignes, size, client -> Curseur.encoder(client.getId()));
+    }
+    
     /**
      * Obtenir un client par ID
      */
@@ -76,6 +160,14 @@ public class ClientService {
         return client.map(this::convertToDto);
     }
     
+    /**
+     * Obtenir la version d'un client (vide si le client n'existe pas)
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> obtenirVersionClient(Long id) {
+        return clientRepository.findVersionById(id);
+    }
+    
     /**
      * Obtenir un client par téléphone
      */
@@ -98,11 +190,19 @@ public class ClientService {
             throw new RuntimeException("Un autre client avec ce numéro de téléphone existe déjà");
         }
         
+        String ancienTelephone = client.getTelephone();
+        boolean telephoneModifie = !ancienTelephone.equals(clientDto.getTelephone());
+        
         client.setNom(clientDto.getNom());
         client.setTelephone(clientDto.getTelephone());
         client.setAdresse(clientDto.getAdresse());
         
         Client updatedClient = clientRepository.save(client);
+        if (telephoneModifie) {
+            trigrammeService.indexerClient(updatedClient.getId(), updatedClient.getTelephone());
+        }
+        eventPublisher.publishEvent(ClientModifieEvent.modification(
+                updatedClient.getId(), updatedClient.getNom(), updatedClient.getTelephone(), ancienTelephone));
         return convertToDto(updatedClient);
     }
     
@@ -118,7 +218,9 @@ public class ClientService {
             throw new RuntimeException("Impossible de supprimer le client car il a des dettes associées");
         }
         
+        trigrammeService.supprimerIndexClient(client.getId());
         clientRepository.delete(client);
+        eventPublisher.publishEvent(ClientModifieEvent.suppression(client.getId(), client.getTelephone()));
     }
     
     /**
@@ -138,6 +240,21 @@ public class ClientService {
                 .orElseThrow(() -> new RuntimeException("Client non trouvé avec ID: " + id));
     }
     
+    /**
+     * Obtenir les entités Client de plusieurs ids en une requête (pour usage interne)
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Client> obtenirClientsEntities(Collection<Long> ids) {
+        Map<Long, Client> clients = clientRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Client::getId, Function.identity()));
+        for (Long id : ids) {
+            if (!clients.containsKey(id)) {
+                throw new RuntimeException("Client non trouvé avec ID: " + id);
+            }
+        }
+        return clients;
+    }
+    
     /**
      * Convertir Client vers ClientDto
      */
@@ -149,15 +266,4 @@ public class ClientService {
                 client.getAdresse()
         );
     }
-    
-    /**
-     * Obtenir tous les clients (sans pagination) - pour les listes déroulantes
-     */
-    @Transactional(readOnly = true)
-    public List<ClientDto> obtenirTousLesClientsSimplement() {
-        List<Client> clients = clientRepository.findAll();
-        return clients.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-    }
 }
\ No newline at end of file
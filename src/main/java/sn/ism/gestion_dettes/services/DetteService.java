@@ -1,19 +1,34 @@
 package sn.ism.gestion_dettes.services;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import sn.ism.gestion_dettes.dto.Curseur;
 import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.PageCurseurDto;
+import sn.ism.gestion_dettes.dto.SoldeClientDto;
 import sn.ism.gestion_dettes.entities.Client;
 import sn.ism.gestion_dettes.entities.Dette;
+import sn.ism.gestion_dettes.entities.TrancheAnciennete;
+import sn.ism.gestion_dettes.events.MouvementSoldeEvent;
 import sn.ism.gestion_dettes.repositories.DetteRepository;
 
 @Service
@@ -26,6 +41,18 @@ public class DetteService {
     @Autowired
     private ClientService clientService;
     
+    @Autowired
+    private TrigrammeService trigrammeService;
+    
+    @Autowired
+    private SoldeClientService soldeClientService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private Validator validator;
+    
     /**
      * Ajouter une nouvelle dette à un client
      */
@@ -33,12 +60,11 @@ public class DetteService {
         // Vérifier que le client existe
         Client client = clientService.obtenirClientEntity(detteDto.getClientId());
         
-        Dette dette = new Dette();
-        dette.setDate(detteDto.getDate());
-        dette.setMontantDette(detteDto.getMontantDette());
-        dette.setClient(client);
+        Dette dette = new Dette(detteDto.getDate(), detteDto.getMontantDette(), client);
         
         Dette savedDette = detteRepository.save(dette);
+        eventPublisher.publishEvent(MouvementSoldeEvent.creation(client.getId(), savedDette.getId(),
+                savedDette.getTranche(), savedDette.getMontantDette(), savedDette.getMontantRestant()));
         return convertToDto(savedDette);
     }
     
@@ -46,19 +72,58 @@ public class DetteService {
      * Ajouter plusieurs dettes à un client
      */
     public List<DetteDto> ajouterPluseursDettes(List<DetteDto> dettesDto) {
-        return dettesDto.stream()
-                .map(this::ajouterDette)
+        // Le batch JDBC contourne la validation de l'entité : mêmes règles que POST /dettes, avant tout INSERT
+        for (int i = 0; i < dettesDto.size(); i++) {
+            valider(i + 1, dettesDto.get(i));
+        }
+        
+        // Tous les clients référencés en une seule requête IN
+        Map<Long, Client> clients = clientService.obtenirClientsEntities(dettesDto.stream()
+                .map(DetteDto::getClientId)
+                .collect(Collectors.toSet()));
+        
+        List<Dette> dettes = dettesDto.stream()
+                .map(dto -> new Dette(dto.getDate(), dto.getMontantDette(), clients.get(dto.getClientId())))
+                .collect(Collectors.toList());
+        
+        // Un seul batch JDBC pour tous les INSERT
+        List<Long> ids = detteRepository.insererParLot(dettes);
+        for (int i = 0; i < dettes.size(); i++) {
+            dettes.get(i).setId(ids.get(i));
+        }
+        
+        List<MouvementSoldeEvent> mouvements = dettes.stream()
+                .map(dette -> MouvementSoldeEvent.creation(dette.getClient().getId(), dette.getId(),
+                        dette.getTranche(), dette.getMontantDette(), dette.getMontantRestant()))
+                .collect(Collectors.toList());
+        MouvementSoldeEvent.cumulerParClient(mouvements).forEach(eventPublisher::publishEvent);
+        
+        return dettes.stream()
+                .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
     
+    private void valider(int numero, DetteDto dette) {
+        if (dette == null) {
+            throw new RuntimeException("Dette n°" + numero + " : ligne vide");
+        }
+        Set<ConstraintViolation<DetteDto>> violations = validator.validate(dette);
+        if (!violations.isEmpty()) {
+            throw new RuntimeException("Dette n°" + numero + " : " + violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+    
     /**
      * Lister les dettes d'un client avec pagination
      */
     @Transactional(readOnly = true)
     public Page<DetteDto> listerDettesClient(Long clientId, Pageable pageable) {
-        Client client = clientService.obtenirClientEntity(clientId);
-        Page<Dette> dettes = detteRepository.findByClient(client, pageable);
-        return dettes.map(this::convertToDto);
+        // Vérifier que le client existe
+        clientService.obtenirClientEntity(clientId);
+        return detteRepository.findDtosByClientId(clientId, pageable);
     }
     
     /**
@@ -66,8 +131,12 @@ public class DetteService {
      */
     @Transactional(readOnly = true)
     public Page<DetteDto> listerDettesAvecFiltreTelephone(String telephone, Pageable pageable) {
-        Page<Dette> dettes = detteRepository.findByClientTelephoneContaining(telephone, pageable);
-        return dettes.map(this::convertToDto);
+        // Passer par l'index dès que la recherche contient un trigramme sélectif, sinon LIKE
+        String trigramme = trigrammeService.choisirTrigramme(telephone);
+        return trigramme == null
+                ? detteRepository.findByClientTelephoneContaining(telephone, pageable)
+                : detteRepository.findByClientTelephoneContainingIndexe(
+                        telephone, trigramme, pageable);
     }
     
     /**
@@ -76,10 +145,10 @@ public class DetteService {
     @Transactional(readOnly = true)
     public Page<DetteDto> rechercherDettesAvecFiltres(Long clientId, String telephone, 
                                                      BigDecimal montantMin, BigDecimal montantMax, 
+                                                     LocalDate dateFrom, LocalDate dateTo, 
                                                      Pageable pageable) {
-        Page<Dette> dettes = detteRepository.findDettesWithFilters(
-                clientId, telephone, montantMin, montantMax, pageable);
-        return dettes.map(this::convertToDto);
+        return detteRepository.findDettesWithFilters(
+                clientId, telephone, montantMin, montantMax, dateFrom, dateTo, pageable);
     }
     
     /**
@@ -87,8 +156,7 @@ public class DetteService {
      */
     @Transactional(readOnly = true)
     public Page<DetteDto> obtenirToutesLesDettes(Pageable pageable) {
-        Page<Dette> dettes = detteRepository.findAll(pageable);
-        return dettes.map(this::convertToDto);
+        return detteRepository.findAllDtos(pageable);
     }
     
     /**
@@ -96,50 +164,200 @@ public class DetteService {
      */
     @Transactional(readOnly = true)
     public Optional<DetteDto> obtenirDetteParId(Long id) {
-        Optional<Dette> dette = detteRepository.findById(id);
-        return dette.map(this::convertToDto);
+        return detteRepository.findDtoById(id);
     }
     
     /**
-     * Obtenir les dettes non payées
+     * Obtenir la version d'une dette (vide si la dette n'existe pas)
      */
     @Transactional(readOnly = true)
-    public Page<DetteDto> obtenirDettesNonPayees(Pageable pageable) {
-        Page<Dette> dettes = detteRepository.findDettesNonPayees(pageable);
-        return dettes.map(this::convertToDto);
+    public Optional<String> obtenirVersionDette(Long id) {
+        return detteRepository.findVersionById(id);
     }
     
     /**
-     * Obtenir les dettes payées
+     * Obtenir les dettes non payées (toutes ou celles d'un client)
      */
     @Transactional(readOnly = true)
-    public Page<DetteDto> obtenirDettesPayees(Pageable pageable) {
-        Page<Dette> dettes = detteRepository.findDettesPayees(pageable);
-        return dettes.map(this::convertToDto);
+    public Page<DetteDto> obtenirDettesNonPayees(Long clientId, Pageable pageable) {
+        return detteRepository.findDettesNonPayees(clientId, pageable);
+    }
+    
+    /**
+     * Obtenir les dettes payées (toutes ou celles d'un client)
+     */
+    @Transactional(readOnly = true)
+    public Page<DetteDto> obtenirDettesPayees(Long clientId, Pageable pageable) {
+        return detteRepository.findDettesPayees(clientId, pageable);
+    }
+    
+    /**
+     * Obtenir toutes les dettes sans compter le total
+     */
+    @Transactional(readOnly = true)
+    public Slice<DetteDto> obtenirToutesLesDettesSansTotal(Pageable pageable) {
+        return detteRepository.findAllDtosSansTotal(pageable);
+    }
+    
+    /**
+     * Rechercher des dettes avec filtres multiples sans compter le total
+     */
+    @Transactional(readOnly = true)
+    public Slice<DetteDto> rechercherDettesAvecFiltresSansTotal(Long clientId, String telephone, 
+                                                               BigDecimal montantMin, BigDecimal montantMax, 
+                                                               LocalDate dateFrom, LocalDate dateTo, 
+                                                               Pageable pageable) {
+        // Index des trigrammes si l'un d'eux est sélectif, comme la recherche paginée
+        String trigramme = trigrammeService.choisirTrigramme(telephone);
+        return trigramme == null
+                ? detteRepository.findDettesWithFiltersSansTotal(
+                        clientId, telephone, montantMin, montantMax, dateFrom, dateTo, pageable)
+                : detteRepository.findDettesWithFiltersSansTotalIndexe(clientId, telephone, 
+                        trigramme, montantMin, montantMax, dateFrom, dateTo, pageable);
+    }
+    
+    /**
+     * Lister les dettes d'un client sans compter le total
+     */
+    @Transactional(readOnly = true)
+    public Slice<DetteDto> listerDettesClientSansTotal(Long clientId, Pageable pageable) {
+        // Vérifier que le client existe
+        clientService.obtenirClientEntity(clientId);
+        return detteRepository.findDettesWithFiltersSansTotal(clientId, null, null, null, null, null, pageable);
+    }
+    
+    /**
+     * Obtenir les dettes non payées sans compter le total
+     */
+    @Transactional(readOnly = true)
+    public Slice<DetteDto> obtenirDettesNonPayeesSansTotal(Long clientId, Pageable pageable) {
+        return detteRepository.findDettesNonPayeesSansTotal(clientId, pageable);
+    }
+    
+    /**
+     * Obtenir les dettes payées sans compter le total
+     */
+    @Transactional(readOnly = true)
+    public Slice<DetteDto> obtenirDettesPayeesSansTotal(Long clientId, Pageable pageable) {
+        return detteRepository.findDettesPayeesSansTotal(clientId, pageable);
+    }
+    
+    /**
+     * Estimer le nombre total de dettes à partir des statistiques de la table (MySQL) ;
+     * null si la base ne les expose pas. Hors transaction : un échec n'en marque aucune pour annulation.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Long estimerNombreDettes() {
+        try {
+            return detteRepository.estimerNombreDettes();
+        } catch (DataAccessException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Obtenir toutes les dettes par curseur (ordre id décroissant)
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<DetteDto> obtenirToutesLesDettesApres(String curseur, int size) {
+        Curseur position = Curseur.decoder(curseur);
+        List<DetteDto> lignes = detteRepository.findDtosApres(position.getId(), PageRequest.of(0, size + 1));
+        return PageCurseurDto.depuisLignes(lignes, size, dette -> Curseur.encoder(dette.getId()));
+    }
+    
+    /**
+     * Rechercher des dettes avec filtres multiples par curseur
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<DetteDto> rechercherDettesAvecFiltresApres(Long clientId, String telephone, 
+                                                                    BigDecimal montantMin, BigDecimal montantMax, 
+                                                                    LocalDate dateFrom, LocalDate dateTo, 
+                                                                    String curseur, int size) {
+        Curseur position = Curseur.decoder(curseur);
+        String trigramme = trigrammeService.choisirTrigramme(telephone);
+        List<DetteDto> lignes = trigramme == null
+                ? detteRepository.findDettesWithFiltersApres(
+                        clientId, telephone, montantMin, montantMax, dateFrom, dateTo, 
+                        position.getId(), PageRequest.of(0, size + 1))
+                : detteRepository.findDettesWithFiltersApresIndexe(clientId, telephone, 
+                        trigramme, montantMin, montantMax, dateFrom, dateTo, 
+                        position.getId(), PageRequest.of(0, size + 1));
+        return PageCurseurDto.depuisLignes(lignes, size, dette -> Curseur.encoder(dette.getId()));
+    }
+    
+    /**
+     * Lister les dettes d'un client par curseur
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<DetteDto> listerDettesClientApres(Long clientId, String curseur, int size) {
+        // Vérifier que le client existe
+        clientService.obtenirClientEntity(clientId);
+        return rechercherDettesAvecFiltresApres(clientId, null, null, null, null, null, curseur, size);
+    }
+    
+    /**
+     * Obtenir les dettes non payées par curseur
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<DetteDto> obtenirDettesNonPayeesApres(Long clientId, String curseur, int size) {
+        Curseur position = Curseur.decoder(curseur);
+        List<DetteDto> lignes = detteRepository.findDettesNonPayeesApres(
+                clientId, position.getId(), PageRequest.of(0, size + 1));
+        return PageCurseurDto.depuisLignes(lignes, size, dette -> Curseur.encoder(dette.getId()));
+    }
+    
+    /**
+     * Obtenir les dettes payées par curseur
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<DetteDto> obtenirDettesPayeesApres(Long clientId, String curseur, int size) {
+        Curseur position = Curseur.decoder(curseur);
+        List<DetteDto> lignes = detteRepository.findDettesPayeesApres(
+                clientId, position.getId(), PageRequest.of(0, size + 1));
+        return PageCurseurDto.depuisLignes(lignes, size, dette -> Curseur.encoder(dette.getId()));
     }
     
     /**
      * Mettre à jour une dette
      */
     public DetteDto mettreAJourDette(Long id, DetteDto detteDto) {
-        Dette dette = detteRepository.findById(id)
+        // Verrouiller la ligne : les montants lus avant la modification sont exacts
+        Dette dette = detteRepository.findByIdPourMiseAJour(id)
                 .orElseThrow(() -> new RuntimeException("Dette non trouvée avec ID: " + id));
         
-        dette.setDate(detteDto.getDate());
-        dette.setMontantDette(detteDto.getMontantDette());
+        BigDecimal montantAvant = dette.getMontantDette();
+        BigDecimal restantAvant = dette.getMontantRestant();
+        TrancheAnciennete trancheAvant = dette.getTranche();
         
-        // Recalculer automatiquement le montant restant
-        dette.calculerMontantPaye();
+        // Le montant restant est recalculé en base à partir du montant payé
+        dette.setDate(detteDto.getDate());
+        detteRepository.modifierMontantDette(id, detteDto.getMontantDette());
+        if (dette.getTranche() != trancheAvant) {
+            detteRepository.modifierTranche(id, dette.getTranche());
+        }
         
-        Dette updatedDette = detteRepository.save(dette);
-        return convertToDto(updatedDette);
+        DetteDto updatedDette = detteRepository.findDtoById(id).orElseThrow();
+        if (updatedDette.getTranche() == trancheAvant) {
+            eventPublisher.publishEvent(MouvementSoldeEvent.modification(
+                    updatedDette.getClientId(), id, trancheAvant, montantAvant, restantAvant,
+                    updatedDette.getMontantDette(), updatedDette.getMontantRestant()));
+        } else {
+            // Changement de tranche : la dette quitte l'ancienne et entre dans la nouvelle
+            eventPublisher.publishEvent(MouvementSoldeEvent.suppression(
+                    updatedDette.getClientId(), id, trancheAvant, montantAvant, restantAvant));
+            eventPublisher.publishEvent(MouvementSoldeEvent.creation(
+                    updatedDette.getClientId(), id, updatedDette.getTranche(),
+                    updatedDette.getMontantDette(), updatedDette.getMontantRestant()));
+        }
+        return updatedDette;
     }
     
     /**
      * Supprimer une dette
      */
     public void supprimerDette(Long id) {
-        Dette dette = detteRepository.findById(id)
+        // Verrouiller la ligne : la tranche lue ne peut pas avancer avant la suppression
+        Dette dette = detteRepository.findByIdPourMiseAJour(id)
                 .orElseThrow(() -> new RuntimeException("Dette non trouvée avec ID: " + id));
         
         // Vérifier si la dette a des paiements
@@ -148,6 +366,8 @@ public class DetteService {
         }
         
         detteRepository.delete(dette);
+        eventPublisher.publishEvent(MouvementSoldeEvent.suppression(dette.getClient().getId(), dette.getId(),
+                dette.getTranche(), dette.getMontantDette(), dette.getMontantRestant()));
     }
     
     /**
@@ -155,9 +375,7 @@ public class DetteService {
      */
     @Transactional(readOnly = true)
     public BigDecimal obtenirMontantTotalDetteClient(Long clientId) {
-        Client client = clientService.obtenirClientEntity(clientId);
-        BigDecimal total = detteRepository.getTotalDetteByClient(client);
-        return total != null ? total : BigDecimal.ZERO;
+        return soldeClientService.obtenirSolde(clientId).getTotalDettes();
     }
     
     /**
@@ -165,9 +383,7 @@ public class DetteService {
      */
     @Transactional(readOnly = true)
     public BigDecimal obtenirMontantRestantClient(Long clientId) {
-        Client client = clientService.obtenirClientEntity(clientId);
-        BigDecimal montantRestant = detteRepository.getMontantRestantByClient(client);
-        return montantRestant != null ? montantRestant : BigDecimal.ZERO;
+        return soldeClientService.obtenirSolde(clientId).getTotalRestant();
     }
     
     /**
@@ -200,6 +416,7 @@ public class DetteService {
         dto.setClientId(dette.getClient().getId());
         dto.setClientNom(dette.getClient().getNom());
         dto.setClientTelephone(dette.getClient().getTelephone());
+        dto.setTranche(dette.getTranche());
         return dto;
     }
     
@@ -208,24 +425,15 @@ public class DetteService {
      */
     @Transactional(readOnly = true)
     public DetteStatistiquesDto obtenirStatistiquesClient(Long clientId) {
-        Client client = clientService.obtenirClientEntity(clientId);
-        
-        BigDecimal totalDettes = detteRepository.getTotalDetteByClient(client);
-        BigDecimal montantRestant = detteRepository.getMontantRestantByClient(client);
-        BigDecimal montantPaye = totalDettes != null && montantRestant != null ? 
-                totalDettes.subtract(montantRestant) : BigDecimal.ZERO;
-        
-        long nombreDettes = client.getDettes().size();
-        long dettesPayees = client.getDettes().stream()
-                .mapToLong(dette -> dette.isCompletelyPaid() ? 1 : 0)
-                .sum();
+        // Agrégats maintenus sur le client : une seule lecture par clé primaire
+        SoldeClientDto solde = soldeClientService.obtenirSolde(clientId);
         
         return new DetteStatistiquesDto(
-                totalDettes != null ? totalDettes : BigDecimal.ZERO,
-                montantPaye,
-                montantRestant != null ? montantRestant : BigDecimal.ZERO,
-                nombreDettes,
-                dettesPayees
+                solde.getTotalDettes(),
+                solde.getTotalPaye(),
+                solde.getTotalRestant(),
+                solde.getNombreDettes(),
+                solde.getNombreDettesPayees()
         );
     }
     
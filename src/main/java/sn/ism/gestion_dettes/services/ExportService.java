@@ -0,0 +1,129 @@
+package sn.ism.gestion_dettes.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.PaiementDto;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+/**
+ * Export en flux des dettes et des paiements : les projections DTO sont lues en curseur
+ * (fetch size) et écrites directement dans la sortie, sans liste ni entité en mémoire.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportService {
+    
+    private static final int TAILLE_TAMPON = 64 * 1024;
+    
+    private static final String ENTETE_DETTES = 
+            "id,date,montantDette,montantPaye,montantRestant,clientId,clientNom,clientTelephone";
+    private static final String ENTETE_PAIEMENTS = 
+            "id,montant,datePaiement,dateCreation,detteId,clientNom,clientTelephone,montantDetteTotal";
+    
+    @Autowired
+    private DetteRepository detteRepository;
+    
+    @Autowired
+    private PaiementRepository paiementRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * Écrire toutes les dettes dans la sortie, renvoie le nombre de lignes exportées
+     */
+    public long exporterDettes(OutputStream sortie, FormatFichier format) throws IOException {
+        try (Stream<DetteDto> dettes = detteRepository.streamDtosPourExport()) {
+            return ecrire(dettes, sortie, format, ENTETE_DETTES, dette -> new Object[] {
+                    dette.getId(), dette.getDate(), dette.getMontantDette(), dette.getMontantPaye(),
+                    dette.getMontantRestant(), dette.getClientId(), dette.getClientNom(), dette.getClientTelephone()
+            });
+        }
+    }
+    
+    /**
+     * Écrire tous les paiements dans la sortie, renvoie le nombre de lignes exportées
+     */
+    public long exporterPaiements(OutputStream sortie, FormatFichier format) throws IOException {
+        try (Stream<PaiementDto> paiements = paiementRepository.streamDtosPourExport()) {
+            return ecrire(paiements, sortie, format, ENTETE_PAIEMENTS, paiement -> new Object[] {
+                    paiement.getId(), paiement.getMontant(), paiement.getDatePaiement(), paiement.getDateCreation(),
+                    paiement.getDetteId(), paiement.getClientNom(), paiement.getClientTelephone(),
+                    paiement.getMontantDetteTotal()
+            });
+        }
+    }
+    
+    private <T> long ecrire(Stream<T> lignes, OutputStream sortie, FormatFichier format, 
+                            String entete, Function<T, Object[]> colonnes) throws IOException {
+        long nombre = 0;
+        Iterator<T> iterateur = lignes.iterator();
+        if (format == FormatFichier.NDJSON) {
+            // Un objet JSON par ligne ; le générateur ne ferme ni ne vide la sortie à chaque valeur
+            ObjectWriter json = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            JsonGenerator generateur = objectMapper.getFactory().createGenerator(sortie)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generateur.setRootValueSeparator(null);
+            while (iterateur.hasNext()) {
+                json.writeValue(generateur, iterateur.next());
+                generateur.writeRaw('\n');
+                nombre++;
+            }
+            generateur.flush();
+            return nombre;
+        }
+        
+        Writer writer = new BufferedWriter(new OutputStreamWriter(sortie, StandardCharsets.UTF_8), TAILLE_TAMPON);
+        writer.write(entete);
+        writer.write('\n');
+        while (iterateur.hasNext()) {
+            Object[] valeurs = colonnes.apply(iterateur.next());
+            for (int i = 0; i < valeurs.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(champCsv(valeurs[i]));
+            }
+            writer.write('\n');
+            nombre++;
+        }
+        writer.flush();
+        return nombre;
+    }
+    
+    /**
+     * Valeur CSV : entre guillemets si elle contient un séparateur, un guillemet ou un saut de ligne
+     */
+    static String champCsv(Object valeur) {
+        if (valeur == null) {
+            return "";
+        }
+        String texte = valeur.toString();
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + texte.replace("\"", "\"\"") + '"';
+            }
+        }
+        return texte;
+    }
+}
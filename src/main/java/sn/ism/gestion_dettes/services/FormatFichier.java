@@ -0,0 +1,26 @@
+package sn.ism.gestion_dettes.services;
+
+/**
+ * Formats des imports et exports en flux : CSV ou JSON délimité par lignes
+ */
+public enum FormatFichier {
+    CSV, NDJSON;
+    
+    /**
+     * Format explicite (?format=) sinon déduit du type de contenu (CSV par défaut)
+     */
+    public static FormatFichier depuis(String format, String typeContenu) {
+        if (format != null && !format.isBlank()) {
+            try {
+                return valueOf(format.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Format inconnu: " + format + " (csv ou ndjson)");
+            }
+        }
+        return typeContenu != null && typeContenu.toLowerCase().contains("json") ? NDJSON : CSV;
+    }
+    
+    public String getTypeContenu() {
+        return this == NDJSON ? "application/x-ndjson" : "text/csv";
+    }
+}
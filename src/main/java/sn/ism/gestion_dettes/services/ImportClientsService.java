@@ -0,0 +1,236 @@
+package sn.ism.gestion_dettes.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.RapportImportDto;
+import sn.ism.gestion_dettes.entities.Client;
+import sn.ism.gestion_dettes.events.ClientsImportesEvent;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+
+/**
+ * Import de clients en flux (CSV ou NDJSON) : le fichier est lu ligne à ligne et traité
+ * par lots, chaque lot dans sa propre transaction. La mémoire reste bornée à un lot
+ * et au rapport d'erreurs (plafonné).
+ */
+@Service
+public class ImportClientsService {
+    
+    private static final int TAILLE_LOT = 1000;
+    private static final String MESSAGE_DOUBLON = "Un client avec ce numéro de téléphone existe déjà";
+    
+    @Autowired
+    private ClientRepository clientRepository;
+    
+    @Autowired
+    private TrigrammeService trigrammeService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * Importer les clients du flux, renvoie le rapport (lignes lues, importées, erreurs par ligne)
+     */
+    public RapportImportDto importer(InputStream flux, FormatFichier format) throws IOException {
+        RapportImportDto rapport = new RapportImportDto();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        BufferedReader lecteur = new BufferedReader(new InputStreamReader(flux, StandardCharsets.UTF_8));
+        
+        List<LigneImport> lot = new ArrayList<>(TAILLE_LOT);
+        long numero = 0;
+        boolean premiereLigne = true;
+        String ligne;
+        while ((ligne = lecteur.readLine()) != null) {
+            numero++;
+            if (ligne.isBlank()) {
+                continue;
+            }
+            // En-tête CSV facultatif
+            if (premiereLigne && format == FormatFichier.CSV && ligne.trim().toLowerCase().startsWith("nom")) {
+                premiereLigne = false;
+                continue;
+            }
+            premiereLigne = false;
+            
+            rapport.ajouterLigneLue();
+            try {
+                lot.add(new LigneImport(numero, valider(lire(ligne, format))));
+            } catch (RuntimeException e) {
+                rapport.ajouterErreur(numero, e.getMessage());
+            }
+            if (lot.size() == TAILLE_LOT) {
+                importerLot(lot, rapport, transaction);
+                lot.clear();
+            }
+        }
+        if (!lot.isEmpty()) {
+            importerLot(lot, rapport, transaction);
+        }
+        return rapport;
+    }
+    
+    private void importerLot(List<LigneImport> lot, RapportImportDto rapport, TransactionTemplate transaction) {
+        // Doublons à l'intérieur du fichier
+        Map<String, LigneImport> parTelephone = new LinkedHashMap<>();
+        for (LigneImport ligne : lot) {
+            if (parTelephone.putIfAbsent(ligne.client.getTelephone(), ligne) != null) {
+                rapport.ajouterErreur(ligne.numero, "Téléphone en double dans le fichier");
+            }
+        }
+        List<LigneImport> lignes = new ArrayList<>(parTelephone.values());
+        
+        try {
+            List<RapportImportDto.ErreurLigne> erreurs = new ArrayList<>();
+            int importes = transaction.execute(status -> inserer(lignes, erreurs));
+            rapport.ajouterClientsImportes(importes);
+            erreurs.forEach(erreur -> rapport.ajouterErreur(erreur.getLigne(), erreur.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            // Téléphone créé entre la vérification et l'insertion : reprise ligne à ligne
+            for (LigneImport ligne : lignes) {
+                try {
+                    List<RapportImportDto.ErreurLigne> erreurs = new ArrayList<>();
+                    rapport.ajouterClientsImportes(transaction.execute(status -> inserer(List.of(ligne), erreurs)));
+                    erreurs.forEach(erreur -> rapport.ajouterErreur(erreur.getLigne(), erreur.getMessage()));
+                } catch (DataIntegrityViolationException ex) {
+                    rapport.ajouterErreur(ligne.numero, MESSAGE_DOUBLON);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Insérer les lignes dont le téléphone n'existe pas encore (une requête IN, un batch JDBC)
+     */
+    private int inserer(List<LigneImport> lignes, List<RapportImportDto.ErreurLigne> erreurs) {
+        Set<String> existants = new HashSet<>(clientRepository.findTelephonesExistants(lignes.stream()
+                .map(ligne -> ligne.client.getTelephone())
+                .collect(Collectors.toList())));
+        
+        List<LigneImport> nouvelles = new ArrayList<>();
+        for (LigneImport ligne : lignes) {
+            if (existants.contains(ligne.client.getTelephone())) {
+                erreurs.add(new RapportImportDto.ErreurLigne(ligne.numero, MESSAGE_DOUBLON));
+            } else {
+                nouvelles.add(ligne);
+            }
+        }
+        if (nouvelles.isEmpty()) {
+            return 0;
+        }
+        
+        List<Long> ids = clientRepository.insererParLot(nouvelles.stream()
+                .map(ligne -> new Client(ligne.client.getNom(), ligne.client.getTelephone(), ligne.client.getAdresse()))
+                .collect(Collectors.toList()));
+        
+        Map<Long, String> telephones = new LinkedHashMap<>();
+        Map<Long, String> noms = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            telephones.put(ids.get(i), nouvelles.get(i).client.getTelephone());
+            noms.put(ids.get(i), nouvelles.get(i).client.getNom());
+        }
+        trigrammeService.indexerNouveauxClients(telephones);
+        eventPublisher.publishEvent(new ClientsImportesEvent(telephones, noms));
+        return ids.size();
+    }
+    
+    private ClientDto lire(String ligne, FormatFichier format) {
+        if (format == FormatFichier.NDJSON) {
+            try {
+                return objectMapper.readValue(ligne, ClientDto.class);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("JSON invalide: " + e.getOriginalMessage());
+            }
+        }
+        List<String> champs = decouperCsv(ligne);
+        if (champs.size() != 3) {
+            throw new RuntimeException("3 colonnes attendues (nom,telephone,adresse), " + champs.size() + " trouvées");
+        }
+        return new ClientDto(champs.get(0).trim(), champs.get(1).trim(), champs.get(2).trim());
+    }
+    
+    // Mêmes règles que POST /clients
+    private ClientDto valider(ClientDto client) {
+        Set<ConstraintViolation<ClientDto>> violations = validator.validate(client);
+        if (!violations.isEmpty()) {
+            throw new RuntimeException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return client;
+    }
+    
+    /**
+     * Découper une ligne CSV (séparateur virgule, champs entre guillemets, "" pour un guillemet)
+     */
+    static List<String> decouperCsv(String ligne) {
+        List<String> champs = new ArrayList<>();
+        StringBuilder champ = new StringBuilder();
+        boolean entreGuillemets = false;
+        for (int i = 0; i < ligne.length(); i++) {
+            char c = ligne.charAt(i);
+            if (entreGuillemets) {
+                if (c == '"' && i + 1 < ligne.length() && ligne.charAt(i + 1) == '"') {
+                    champ.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreGuillemets = false;
+                } else {
+                    champ.append(c);
+                }
+            } else if (c == '"') {
+                entreGuillemets = true;
+            } else if (c == ',') {
+                champs.add(champ.toString());
+                champ.setLength(0);
+            } else {
+                champ.append(c);
+            }
+        }
+        champs.add(champ.toString());
+        return champs;
+    }
+    
+    // Ligne valide en attente d'insertion
+    private static class LigneImport {
+        private final long numero;
+        private final ClientDto client;
+        
+        LigneImport(long numero, ClientDto client) {
+            this.numero = numero;
+            this.client = client;
+        }
+    }
+}
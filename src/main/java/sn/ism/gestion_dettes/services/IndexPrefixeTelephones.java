@@ -0,0 +1,270 @@
+package sn.ism.gestion_dettes.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import sn.ism.gestion_dettes.dto.SuggestionTelephoneDto;
+
+/**
+ * Index en mémoire des téléphones normalisés (chiffres seuls) vers les ids clients.
+ * Chaque téléphone est codé dans un long, un quartet par chiffre (15 chiffres au plus, norme E.164),
+ * et les clés sont gardées triées dans des tableaux primitifs : un préfixe correspond alors
+ * à un intervalle contigu trouvé par recherche dichotomique.
+ */
+public class IndexPrefixeTelephones {
+
+    static final int CHIFFRES_MAX = 15;
+
+    private long[] cles = new long[1024];
+    private long[] ids = new long[1024];
+    private int taille;
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    /**
+     * Ne garder que les chiffres du téléphone (15 au plus)
+     */
+    public static String normaliser(String telephone) {
+        StringBuilder chiffres = new StringBuilder(CHIFFRES_MAX);
+        if (telephone != null) {
+            for (int i = 0; i < telephone.length() && chiffres.length() < CHIFFRES_MAX; i++) {
+                char c = telephone.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    chiffres.append(c);
+                }
+            }
+        }
+        return chiffres.toString();
+    }
+
+    /**
+     * Coder des chiffres dans un long : chiffre + 1 par quartet, 0 pour les positions vides,
+     * de sorte que l'ordre des longs soit l'ordre lexicographique des chiffres
+     */
+    static long encoder(String chiffres) {
+        long cle = 0;
+        for (int i = 0; i < CHIFFRES_MAX; i++) {
+            cle <<= 4;
+            if (i < chiffres.length()) {
+                cle |= chiffres.charAt(i) - '0' + 1;
+            }
+        }
+        return cle;
+    }
+
+    static String decoder(long cle) {
+        StringBuilder chiffres = new StringBuilder(CHIFFRES_MAX);
+        for (int i = CHIFFRES_MAX - 1; i >= 0; i--) {
+            int quartet = (int) ((cle >>> (4 * i)) & 0xF);
+            if (quartet == 0) {
+                break;
+            }
+            chiffres.append((char) ('0' + quartet - 1));
+        }
+        return chiffres.toString();
+    }
+
+    /**
+     * Ajouter un téléphone (sans effet s'il est déjà indexé pour ce client)
+     */
+    public void ajouter(String telephone, long id) {
+        String chiffres = normaliser(telephone);
+        if (chiffres.isEmpty()) {
+            return;
+        }
+        long cle = encoder(chiffres);
+        verrou.writeLock().lock();
+        try {
+            int fin = borneSuperieure(cle);
+            if (positionDe(cle, id, fin) >= 0) {
+                return;
+            }
+            assurerCapacite(taille + 1);
+            System.arraycopy(cles, fin, cles, fin + 1, taille - fin);
+            System.arraycopy(ids, fin, ids, fin + 1, taille - fin);
+            cles[fin] = cle;
+            ids[fin] = id;
+            taille++;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ajouter un ensemble de téléphones (id client -> téléphone) en une seule fusion
+     */
+    public void ajouterTous(Map<Long, String> telephones) {
+        long[] nouvellesCles = new long[telephones.size()];
+        long[] nouveauxIds = new long[telephones.size()];
+        int n = 0;
+        for (Map.Entry<Long, String> entree : telephones.entrySet()) {
+            String chiffres = normaliser(entree.getValue());
+            if (!chiffres.isEmpty()) {
+                nouvellesCles[n] = encoder(chiffres);
+                nouveauxIds[n] = entree.getKey();
+                n++;
+            }
+        }
+        trier(nouvellesCles, nouveauxIds, 0, n - 1);
+
+        verrou.writeLock().lock();
+        try {
+            long[] fusionCles = new long[Math.max(1024, taille + n)];
+            long[] fusionIds = new long[fusionCles.length];
+            int i = 0, j = 0, k = 0;
+            while (i < taille || j < n) {
+                int comparaison = i >= taille ? 1 : j >= n ? -1 : comparer(cles[i], ids[i], nouvellesCles[j], nouveauxIds[j]);
+                if (comparaison <= 0) {
+                    fusionCles[k] = cles[i];
+                    fusionIds[k++] = ids[i++];
+                    if (comparaison == 0) {
+                        j++;
+                    }
+                } else {
+                    fusionCles[k] = nouvellesCles[j];
+                    fusionIds[k++] = nouveauxIds[j++];
+                }
+            }
+            cles = fusionCles;
+            ids = fusionIds;
+            taille = k;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retirer un téléphone de l'index
+     */
+    public void retirer(String telephone, long id) {
+        String chiffres = normaliser(telephone);
+        if (chiffres.isEmpty()) {
+            return;
+        }
+        long cle = encoder(chiffres);
+        verrou.writeLock().lock();
+        try {
+            int position = positionDe(cle, id, borneSuperieure(cle));
+            if (position >= 0) {
+                System.arraycopy(cles, position + 1, cles, position, taille - position - 1);
+                System.arraycopy(ids, position + 1, ids, position, taille - position - 1);
+                taille--;
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Les premiers téléphones (ordre croissant) commençant par le préfixe
+     */
+    public List<SuggestionTelephoneDto> rechercher(String prefixe, int limite) {
+        List<SuggestionTelephoneDto> suggestions = new ArrayList<>(Math.min(limite, 64));
+        String chiffres = normaliser(prefixe);
+        if (chiffres.isEmpty()) {
+            return suggestions;
+        }
+        long debut = encoder(chiffres);
+        long fin = debut | ((1L << (4 * (CHIFFRES_MAX - chiffres.length()))) - 1);
+        verrou.readLock().lock();
+        try {
+            for (int i = borneInferieure(debut); i < taille && cles[i] <= fin && suggestions.size() < limite; i++) {
+                suggestions.add(new SuggestionTelephoneDto(ids[i], decoder(cles[i])));
+            }
+        } finally {
+            verrou.readLock().unlock();
+        }
+        return suggestions;
+    }
+
+    public int taille() {
+        verrou.readLock().lock();
+        try {
+            return taille;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    // Premier indice dont la clé est >= cle
+    private int borneInferieure(long cle) {
+        int bas = 0, haut = taille;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (cles[milieu] < cle) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    // Premier indice dont la clé est > cle
+    private int borneSuperieure(long cle) {
+        int bas = 0, haut = taille;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (cles[milieu] <= cle) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    // Position du couple (cle, id) en remontant depuis la borne supérieure, -1 si absent
+    private int positionDe(long cle, long id, int fin) {
+        for (int i = fin - 1; i >= 0 && cles[i] == cle; i--) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void assurerCapacite(int capacite) {
+        if (capacite > cles.length) {
+            int nouvelleCapacite = Math.max(capacite, cles.length + (cles.length >> 1));
+            cles = Arrays.copyOf(cles, nouvelleCapacite);
+            ids = Arrays.copyOf(ids, nouvelleCapacite);
+        }
+    }
+
+    private static int comparer(long cleA, long idA, long cleB, long idB) {
+        int comparaison = Long.compare(cleA, cleB);
+        return comparaison != 0 ? comparaison : Long.compare(idA, idB);
+    }
+
+    // Tri rapide des tableaux parallèles selon (cle, id)
+    private static void trier(long[] cles, long[] ids, int bas, int haut) {
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            long pivotCle = cles[milieu];
+            long pivotId = ids[milieu];
+            int i = bas, j = haut;
+            while (i <= j) {
+                while (comparer(cles[i], ids[i], pivotCle, pivotId) < 0) i++;
+                while (comparer(cles[j], ids[j], pivotCle, pivotId) > 0) j--;
+                if (i <= j) {
+                    long cle = cles[i]; cles[i] = cles[j]; cles[j] = cle;
+                    long id = ids[i]; ids[i] = ids[j]; ids[j] = id;
+                    i++;
+                    j--;
+                }
+            }
+            // Récursion sur la plus petite partie pour borner la pile
+            if (j - bas < haut - i) {
+                trier(cles, ids, bas, j);
+                bas = i;
+            } else {
+                trier(cles, ids, i, haut);
+                haut = j;
+            }
+        }
+    }
+}
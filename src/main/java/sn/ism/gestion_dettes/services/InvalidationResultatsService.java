@@ -0,0 +1,58 @@
+package sn.ism.gestion_dettes.services;
+
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import sn.ism.gestion_dettes.config.CacheConfig;
+import sn.ism.gestion_dettes.events.MouvementSoldeEvent;
+
+/**
+ * Éviction des résultats mis en cache (soldes des clients, statistiques des dettes) après la validation
+ * des écritures qui les changent, sans durée de vie : une entrée reste valable tant que l'argent ne bouge pas.
+ * Les lectures en cache sont synchronisées par clé : une éviction attend le chargement en cours
+ * de la même clé, qui ne peut donc pas remettre une valeur antérieure à la validation.
+ */
+@Service
+public class InvalidationResultatsService {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Évincer le solde du client et les statistiques des dettes touchées par un mouvement validé
+     */
+    @TransactionalEventListener
+    public void surMouvementSolde(MouvementSoldeEvent event) {
+        cache(CacheConfig.CACHE_SOLDES_CLIENTS).evict(event.getClientId());
+        Cache statistiques = cache(CacheConfig.CACHE_STATISTIQUES_DETTES);
+        event.getDetteIds().forEach(statistiques::evict);
+    }
+
+    /**
+     * Évincer des soldes recalculés hors mouvement (réconciliation), à la validation de la transaction courante
+     */
+    public void evincerSoldesApresValidation(Collection<Long> clientIds) {
+        Cache soldes = cache(CacheConfig.CACHE_SOLDES_CLIENTS);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            clientIds.forEach(soldes::evict);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                clientIds.forEach(soldes::evict);
+            }
+        });
+    }
+
+    private Cache cache(String nom) {
+        return cacheManager.getCache(nom);
+    }
+}
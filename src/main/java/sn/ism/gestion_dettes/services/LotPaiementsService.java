@@ -0,0 +1,178 @@
+package sn.ism.gestion_dettes.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import sn.ism.gestion_dettes.dto.PaiementDto;
+import sn.ism.gestion_dettes.dto.RapportLotPaiementsDto;
+import sn.ism.gestion_dettes.entities.Dette;
+import sn.ism.gestion_dettes.entities.Paiement;
+import sn.ism.gestion_dettes.events.EncaissementEvent;
+import sn.ism.gestion_dettes.events.MouvementSoldeEvent;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+/**
+ * Enregistrement de paiements en lot : les lignes sont regroupées par dette, les dettes
+ * d'un lot sont verrouillées en une requête IN et les montants cumulés validés en mémoire,
+ * puis paiements et soldes sont écrits en deux batchs JDBC (une transaction par lot).
+ */
+@Service
+public class LotPaiementsService {
+    
+    private static final int TAILLE_LOT = 1000;
+    
+    @Autowired
+    private DetteRepository detteRepository;
+    
+    @Autowired
+    private PaiementRepository paiementRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private Validator validator;
+    
+    /**
+     * Enregistrer les paiements (ligne = rang dans la liste, à partir de 1), renvoie le rapport
+     */
+    public RapportLotPaiementsDto enregistrer(List<PaiementDto> paiements) {
+        RapportLotPaiementsDto rapport = new RapportLotPaiementsDto(paiements.size());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        
+        // Regroupement par dette, dans l'ordre des lignes
+        Map<Long, List<LignePaiement>> parDette = new LinkedHashMap<>();
+        for (int i = 0; i < paiements.size(); i++) {
+            PaiementDto paiement = paiements.get(i);
+            String erreur = valider(paiement);
+            if (erreur != null) {
+                rapport.ajouterErreur(i + 1, erreur);
+            } else {
+                parDette.computeIfAbsent(paiement.getDetteId(), id -> new ArrayList<>())
+                        .add(new LignePaiement(i + 1, paiement));
+            }
+        }
+        
+        // Lots de dettes entières, d'environ TAILLE_LOT lignes
+        Map<Long, List<LignePaiement>> lot = new LinkedHashMap<>();
+        int lignes = 0;
+        for (Map.Entry<Long, List<LignePaiement>> entree : parDette.entrySet()) {
+            lot.put(entree.getKey(), entree.getValue());
+            lignes += entree.getValue().size();
+            if (lignes >= TAILLE_LOT) {
+                enregistrerLot(lot, rapport, transaction);
+                lot = new LinkedHashMap<>();
+                lignes = 0;
+            }
+        }
+        if (!lot.isEmpty()) {
+            enregistrerLot(lot, rapport, transaction);
+        }
+        return rapport;
+    }
+    
+    private void enregistrerLot(Map<Long, List<LignePaiement>> lot, RapportLotPaiementsDto rapport,
+                                TransactionTemplate transaction) {
+        // Rapport du lot reporté seulement après validation de sa transaction
+        RapportLotPaiementsDto rapportLot = new RapportLotPaiementsDto(0);
+        try {
+            transaction.executeWithoutResult(status -> enregistrerLot(lot, rapportLot));
+        } catch (RuntimeException e) {
+            lot.values().forEach(lignes -> lignes.forEach(ligne ->
+                    rapport.ajouterErreur(ligne.numero, "Lot non enregistré: " + e.getMessage())));
+            return;
+        }
+        rapport.fusionner(rapportLot);
+    }
+    
+    private void enregistrerLot(Map<Long, List<LignePaiement>> lot, RapportLotPaiementsDto rapportLot) {
+        Map<Long, Dette> dettes = detteRepository.findAllByIdPourMiseAJour(lot.keySet()).stream()
+                .collect(Collectors.toMap(Dette::getId, Function.identity()));
+        
+        List<Paiement> aInserer = new ArrayList<>();
+        Map<Long, BigDecimal> debits = new LinkedHashMap<>();
+        List<MouvementSoldeEvent> mouvements = new ArrayList<>();
+        for (Map.Entry<Long, List<LignePaiement>> entree : lot.entrySet()) {
+            Dette dette = dettes.get(entree.getKey());
+            if (dette == null) {
+                entree.getValue().forEach(ligne ->
+                        rapportLot.ajouterErreur(ligne.numero, "Dette non trouvée avec ID: " + entree.getKey()));
+                continue;
+            }
+            // Chaque ligne est validée contre le restant diminué des lignes précédentes
+            BigDecimal restant = dette.getMontantRestant();
+            BigDecimal debit = BigDecimal.ZERO;
+            for (LignePaiement ligne : entree.getValue()) {
+                BigDecimal montant = ligne.paiement.getMontant();
+                if (montant.compareTo(restant) > 0) {
+                    rapportLot.ajouterErreur(ligne.numero, "Le montant du paiement (" + montant + 
+                            ") dépasse le montant restant de la dette (" + restant + ")");
+                    continue;
+                }
+                restant = restant.subtract(montant);
+                debit = debit.add(montant);
+                aInserer.add(new Paiement(montant, ligne.paiement.getDatePaiement(), dette));
+                rapportLot.ajouterPaiement(montant);
+            }
+            if (debit.signum() > 0) {
+                debits.put(dette.getId(), debit);
+                mouvements.add(MouvementSoldeEvent.modification(dette.getClient().getId(), dette.getId(),
+                        dette.getTranche(), dette.getMontantDette(), dette.getMontantRestant(),
+                        dette.getMontantDette(), restant));
+            }
+        }
+        if (aInserer.isEmpty()) {
+            return;
+        }
+        
+        paiementRepository.insererParLot(aInserer);
+        detteRepository.debiterParLot(debits);
+        MouvementSoldeEvent.cumulerParClient(mouvements).forEach(eventPublisher::publishEvent);
+        aInserer.forEach(paiement -> eventPublisher.publishEvent(
+                EncaissementEvent.enregistrement(paiement.getDatePaiement(), paiement.getMontant())));
+    }
+    
+    // Mêmes règles que POST /paiements
+    private String valider(PaiementDto paiement) {
+        if (paiement == null) {
+            return "Ligne vide";
+        }
+        Set<ConstraintViolation<PaiementDto>> violations = validator.validate(paiement);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+    
+    // Ligne valide en attente d'enregistrement
+    private static class LignePaiement {
+        private final long numero;
+        private final PaiementDto paiement;
+        
+        LignePaiement(long numero, PaiementDto paiement) {
+            this.numero = numero;
+            this.paiement = paiement;
+        }
+    }
+}
@@ -1,19 +1,35 @@
 package sn.ism.gestion_dettes.services;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import sn.ism.gestion_dettes.config.CacheConfig;
+import sn.ism.gestion_dettes.config.RoutageLectureEcritureDataSource;
+import sn.ism.gestion_dettes.dto.AgregatsPaiementsDto;
+import sn.ism.gestion_dettes.dto.Curseur;
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.PageCurseurDto;
 import sn.ism.gestion_dettes.dto.PaiementDto;
 import sn.ism.gestion_dettes.entities.Dette;
 import sn.ism.gestion_dettes.entities.Paiement;
+import sn.ism.gestion_dettes.events.EncaissementEvent;
+import sn.ism.gestion_dettes.events.MouvementSoldeEvent;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
 import sn.ism.gestion_dettes.repositories.PaiementRepository;
 
 @Service
@@ -26,30 +42,39 @@ public class PaiementService {
     @Autowired
     private DetteService detteService;
     
+    @Autowired
+    private TrigrammeService trigrammeService;
+    
+    @Autowired
+    private DetteRepository detteRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Ajouter un paiement à une dette
      */
     public PaiementDto ajouterPaiement(PaiementDto paiementDto) {
-        // Vérifier que la dette existe
-        Dette dette = detteService.obtenirDetteEntity(paiementDto.getDetteId());
+        Long detteId = paiementDto.getDetteId();
+        BigDecimal montant = paiementDto.getMontant();
         
-        // Vérifier que le montant du paiement ne dépasse pas le montant restant
-        if (paiementDto.getMontant().compareTo(dette.getMontantRestant()) > 0) {
-            throw new RuntimeException("Le montant du paiement (" + paiementDto.getMontant() + 
+        // Débit conditionnel en une seule requête : des paiements simultanés ne peuvent pas dépasser le restant
+        if (detteRepository.debiterPaiement(detteId, montant) == 0) {
+            DetteDto dette = detteRepository.findDtoById(detteId)
+                    .orElseThrow(() -> new RuntimeException("Dette non trouvée avec ID: " + detteId));
+            throw new RuntimeException("Le montant du paiement (" + montant + 
                     ") dépasse le montant restant de la dette (" + dette.getMontantRestant() + ")");
         }
         
         Paiement paiement = new Paiement();
-        paiement.setMontant(paiementDto.getMontant());
+        paiement.setMontant(montant);
         paiement.setDatePaiement(paiementDto.getDatePaiement());
-        paiement.setDette(dette);
+        paiement.setDette(detteRepository.getReferenceById(detteId));
         
         Paiement savedPaiement = paiementRepository.save(paiement);
-        
-        // Mettre à jour automatiquement les montants de la dette
-        dette.addPaiement(savedPaiement);
-        
-        return convertToDto(savedPaiement);
+        DetteDto dette = publierMouvementSolde(detteId, montant);
+        eventPublisher.publishEvent(EncaissementEvent.enregistrement(savedPaiement.getDatePaiement(), montant));
+        return convertToDto(savedPaiement, dette);
     }
     
     /**
@@ -60,8 +85,7 @@ public class PaiementService {
         // Vérifier que la dette existe
         detteService.obtenirDetteEntity(detteId);
         
-        Page<Paiement> paiements = paiementRepository.findByDetteId(detteId, pageable);
-        return paiements.map(this::convertToDto);
+        return paiementRepository.findByDetteId(detteId, pageable);
     }
     
     /**
@@ -69,8 +93,12 @@ public class PaiementService {
      */
     @Transactional(readOnly = true)
     public Page<PaiementDto> rechercherPaiementsParTelephone(String telephone, Pageable pageable) {
-        Page<Paiement> paiements = paiementRepository.findByClientTelephoneContaining(telephone, pageable);
-        return paiements.map(this::convertToDto);
+        // Passer par l'index dès que la recherche contient un trigramme sélectif, sinon LIKE
+        String trigramme = trigrammeService.choisirTrigramme(telephone);
+        return trigramme == null
+                ? paiementRepository.findByClientTelephoneContaining(telephone, pageable)
+                : paiementRepository.findByClientTelephoneContainingIndexe(
+                        telephone, trigramme, pageable);
     }
     
     /**
@@ -79,10 +107,10 @@ public class PaiementService {
     @Transactional(readOnly = true)
     public Page<PaiementDto> rechercherPaiementsAvecFiltres(String telephone, Long detteId, 
                                                            BigDecimal montantMin, BigDecimal montantMax, 
+                                                           LocalDate dateFrom, LocalDate dateTo, 
                                                            Pageable pageable) {
-        Page<Paiement> paiements = paiementRepository.findPaiementsWithFilters(
-                telephone, detteId, montantMin, montantMax, pageable);
-        return paiements.map(this::convertToDto);
+        return paiementRepository.findPaiementsWithFilters(
+                telephone, detteId, montantMin, montantMax, dateFrom, dateTo, pageable);
     }
     
     /**
@@ -90,8 +118,98 @@ public class PaiementService {
      */
     @Transactional(readOnly = true)
     public Page<PaiementDto> obtenirTousLesPaiements(Pageable pageable) {
-        Page<Paiement> paiements = paiementRepository.findAll(pageable);
-        return paiements.map(this::convertToDto);
+        return paiementRepository.findAllDtos(pageable);
+    }
+    
+    /**
+     * Obtenir tous les paiements sans compter le total
+     */
+    @Transactional(readOnly = true)
+    public Slice<PaiementDto> obtenirTousLesPaiementsSansTotal(Pageable pageable) {
+        return paiementRepository.findAllDtosSansTotal(pageable);
+    }
+    
+    /**
+     * Rechercher des paiements avec filtres multiples sans compter le total
+     */
+    @Transactional(readOnly = true)
+    public Slice<PaiementDto> rechercherPaiementsAvecFiltresSansTotal(String telephone, Long detteId, 
+                                                                     BigDecimal montantMin, BigDecimal montantMax, 
+                                                                     LocalDate dateFrom, LocalDate dateTo, 
+                                                                     Pageable pageable) {
+        // Index des trigrammes si l'un d'eux est sélectif, comme la recherche paginée
+        String trigramme = trigrammeService.choisirTrigramme(telephone);
+        return trigramme == null
+                ? paiementRepository.findPaiementsWithFiltersSansTotal(
+                        telephone, detteId, montantMin, montantMax, dateFrom, dateTo, pageable)
+                : paiementRepository.findPaiementsWithFiltersSansTotalIndexe(telephone, 
+                        trigramme, detteId, montantMin, montantMax, dateFrom, dateTo, pageable);
+    }
+    
+    /**
+     * Obtenir les paiements d'une dette sans compter le total
+     */
+    @Transactional(readOnly = true)
+    public Slice<PaiementDto> obtenirPaiementsDetteSansTotal(Long detteId, Pageable pageable) {
+        // Vérifier que la dette existe
+        detteService.obtenirDetteEntity(detteId);
+        return paiementRepository.findPaiementsWithFiltersSansTotal(null, detteId, null, null, null, null, pageable);
+    }
+    
+    /**
+     * Estimer le nombre total de paiements à partir des statistiques de la table (MySQL) ;
+     * null si la base ne les expose pas (voir DetteService.estimerNombreDettes)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Long estimerNombrePaiements() {
+        try {
+            return paiementRepository.estimerNombrePaiements();
+        } catch (DataAccessException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Obtenir tous les paiements par curseur (ordre dateCreation, id décroissant)
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<PaiementDto> obtenirTousLesPaiementsApres(String curseur, int size) {
+        Curseur position = Curseur.decoder(curseur);
+        List<PaiementDto> lignes = paiementRepository.findDtosApres(
+                position.getCleDateTime(), position.getId(), PageRequest.of(0, size + 1));
+        return PageCurseurDto.depuisLignes(lignes, size, 
+                paiement -> Curseur.encoder(paiement.getDateCreation(), paiement.getId()));
+    }
+    
+    /**
+     * Rechercher des paiements avec filtres multiples par curseur
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<PaiementDto> rechercherPaiementsAvecFiltresApres(String telephone, Long detteId, 
+                                                                          BigDecimal montantMin, BigDecimal montantMax, 
+                                                                          LocalDate dateFrom, LocalDate dateTo, 
+                                                                          String curseur, int size) {
+        Curseur position = Curseur.decoder(curseur);
+        String trigramme = trigrammeService.choisirTrigramme(telephone);
+        List<PaiementDto> lignes = trigramme == null
+                ? paiementRepository.findPaiementsWithFiltersApres(
+                        telephone, detteId, montantMin, montantMax, dateFrom, dateTo, 
+                        position.getCleDateTime(), position.getId(), PageRequest.of(0, size + 1))
+                : paiementRepository.findPaiementsWithFiltersApresIndexe(telephone, 
+                        trigramme, detteId, montantMin, montantMax, dateFrom, dateTo, 
+                        position.getCleDateTime(), position.getId(), PageRequest.of(0, size + 1));
+        return PageCurseurDto.depuisLignes(lignes, size, 
+                paiement -> Curseur.encoder(paiement.getDateCreation(), paiement.getId()));
+    }
+    
+    /**
+     * Obtenir les paiements d'une dette par curseur
+     */
+    @Transactional(readOnly = true)
+    public PageCurseurDto<PaiementDto> obtenirPaiementsDetteApres(Long detteId, String curseur, int size) {
+        // Vérifier que la dette existe
+        detteService.obtenirDetteEntity(detteId);
+        return rechercherPaiementsAvecFiltresApres(null, detteId, null, null, null, null, curseur, size);
     }
     
     /**
@@ -99,8 +217,7 @@ public class PaiementService {
      */
     @Transactional(readOnly = true)
     public Optional<PaiementDto> obtenirPaiementParId(Long id) {
-        Optional<Paiement> paiement = paiementRepository.findById(id);
-        return paiement.map(this::convertToDto);
+        return paiementRepository.findDtoById(id);
     }
     
     /**
@@ -108,11 +225,17 @@ public class PaiementService {
      */
     @Transactional(readOnly = true)
     public List<PaiementDto> obtenirPaiementsDetteOrdonnes(Long detteId) {
-        Dette dette = detteService.obtenirDetteEntity(detteId);
-        List<Paiement> paiements = paiementRepository.findByDetteOrderByDateCreationDesc(dette);
-        return paiements.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        // Vérifier que la dette existe
+        detteService.obtenirDetteEntity(detteId);
+        return paiementRepository.findDtosByDetteIdOrderByDateCreationDesc(detteId);
+    }
+    
+    /**
+     * Obtenir l'empreinte des paiements d'une dette (vide si la dette n'existe pas)
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> obtenirVersionPaiementsDette(Long detteId) {
+        return paiementRepository.findVersionPaiementsByDetteId(detteId);
     }
     
     /**
@@ -122,27 +245,27 @@ public class PaiementService {
         Paiement paiement = paiementRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Paiement non trouvé avec ID: " + id));
         
-        Dette dette = paiement.getDette();
-        
-        // Calculer le nouveau montant restant de la dette en tenant compte du changement
-        BigDecimal ancienMontant = paiement.getMontant();
-        BigDecimal nouveauMontant = paiementDto.getMontant();
-        BigDecimal differenceRestante = dette.getMontantRestant().add(ancienMontant).subtract(nouveauMontant);
+        Long detteId = paiement.getDette().getId();
+        BigDecimal ecart = paiementDto.getMontant().subtract(paiement.getMontant());
         
-        // Vérifier que le nouveau montant ne rend pas le paiement négatif
-        if (differenceRestante.compareTo(BigDecimal.ZERO) < 0) {
+        // Une hausse est débitée sous condition, une baisse est rendue à la dette
+        if (ecart.signum() > 0 && detteRepository.debiterPaiement(detteId, ecart) == 0) {
             throw new RuntimeException("Le nouveau montant du paiement est trop élevé pour cette dette");
         }
+        if (ecart.signum() < 0) {
+            detteRepository.crediterPaiement(detteId, ecart.negate());
+        }
         
-        paiement.setMontant(nouveauMontant);
+        // L'ancien encaissement est annulé à son jour, le nouveau enregistré au sien
+        eventPublisher.publishEvent(EncaissementEvent.annulation(paiement.getDatePaiement(), paiement.getMontant()));
+        paiement.setMontant(paiementDto.getMontant());
         paiement.setDatePaiement(paiementDto.getDatePaiement());
         
         Paiement updatedPaiement = paiementRepository.save(paiement);
-        
-        // Recalculer les montants de la dette
-        dette.calculerMontantPaye();
-        
-        return convertToDto(updatedPaiement);
+        DetteDto dette = publierMouvementSolde(detteId, ecart);
+        eventPublisher.publishEvent(EncaissementEvent.enregistrement(
+                updatedPaiement.getDatePaiement(), updatedPaiement.getMontant()));
+        return convertToDto(updatedPaiement, dette);
     }
     
     /**
@@ -152,13 +275,25 @@ public class PaiementService {
         Paiement paiement = paiementRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Paiement non trouvé avec ID: " + id));
         
-        Dette dette = paiement.getDette();
-        dette.removePaiement(paiement);
-        
+        Long detteId = paiement.getDette().getId();
+        detteRepository.crediterPaiement(detteId, paiement.getMontant());
         paiementRepository.delete(paiement);
         
-        // Recalculer automatiquement les montants de la dette
-        dette.calculerMontantPaye();
+        publierMouvementSolde(detteId, paiement.getMontant().negate());
+        eventPublisher.publishEvent(EncaissementEvent.annulation(paiement.getDatePaiement(), paiement.getMontant()));
+    }
+    
+    /**
+     * Répercuter un débit (négatif pour un crédit) sur les agrégats du client.
+     * La ligne de la dette est verrouillée par la mise à jour : l'état relu est exact.
+     */
+    private DetteDto publierMouvementSolde(Long detteId, BigDecimal montantDebite) {
+        DetteDto dette = detteRepository.findDtoById(detteId).orElseThrow();
+        eventPublisher.publishEvent(MouvementSoldeEvent.modification(
+                dette.getClientId(), detteId, dette.getTranche(),
+                dette.getMontantDette(), dette.getMontantRestant().add(montantDebite),
+                dette.getMontantDette(), dette.getMontantRestant()));
+        return dette;
     }
     
     /**
@@ -182,8 +317,9 @@ public class PaiementService {
     /**
      * Effectuer un paiement complet d'une dette
      */
-    public PaiementDto payerDetteCompletement(Long detteId, String datePaiement) {
-        Dette dette = detteService.obtenirDetteEntity(detteId);
+    public PaiementDto payerDetteCompletement(Long detteId, LocalDate datePaiement) {
+        DetteDto dette = detteRepository.findDtoById(detteId)
+                .orElseThrow(() -> new RuntimeException("Dette non trouvée avec ID: " + detteId));
         
         if (dette.getMontantRestant().compareTo(BigDecimal.ZERO) <= 0) {
             throw new RuntimeException("Cette dette est déjà entièrement payée");
@@ -198,53 +334,41 @@ public class PaiementService {
     }
     
     /**
-     * Obtenir les statistiques des paiements d'une dette
+     * Obtenir les statistiques des paiements d'une dette (mises en cache jusqu'au prochain mouvement validé sur la dette)
      */
+    @Cacheable(cacheNames = CacheConfig.CACHE_STATISTIQUES_DETTES, key = "#detteId", sync = true)
     @Transactional(readOnly = true)
     public PaiementStatistiquesDto obtenirStatistiquesPaiementsDette(Long detteId) {
-        Dette dette = detteService.obtenirDetteEntity(detteId);
-        
-        List<Paiement> paiements = dette.getPaiements();
-        
-        BigDecimal montantTotal = paiements.stream()
-                .map(Paiement::getMontant)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal montantMoyen = paiements.isEmpty() ? BigDecimal.ZERO : 
-                montantTotal.divide(BigDecimal.valueOf(paiements.size()), 2, BigDecimal.ROUND_HALF_UP);
-        
-        Optional<BigDecimal> montantMin = paiements.stream()
-                .map(Paiement::getMontant)
-                .min(BigDecimal::compareTo);
-        
-        Optional<BigDecimal> montantMax = paiements.stream()
-                .map(Paiement::getMontant)
-                .max(BigDecimal::compareTo);
+        // Alimente un cache sans expiration, évincé juste après validation : jamais depuis la réplique
+        RoutageLectureEcritureDataSource.exigerPrimaire();
+        // Une requête d'agrégat : rien n'est chargé en mémoire quel que soit le nombre de paiements
+        AgregatsPaiementsDto agregats = paiementRepository.findAgregatsByDetteId(detteId)
+                .orElseThrow(() -> new RuntimeException("Dette non trouvée avec ID: " + detteId));
         
         return new PaiementStatistiquesDto(
-                montantTotal,
-                montantMoyen,
-                montantMin.orElse(BigDecimal.ZERO),
-                montantMax.orElse(BigDecimal.ZERO),
-                paiements.size(),
-                dette.getMontantDette(),
-                dette.getMontantRestant()
+                agregats.getMontantTotal(),
+                agregats.getMontantMoyen(),
+                agregats.getMontantMin(),
+                agregats.getMontantMax(),
+                (int) agregats.getNombrePaiements(),
+                agregats.getMontantDette(),
+                agregats.getMontantRestant()
         );
     }
     
     /**
-     * Convertir Paiement vers PaiementDto
+     * Convertir Paiement vers PaiementDto (dette et client déjà lus par projection)
      */
-    private PaiementDto convertToDto(Paiement paiement) {
+    private PaiementDto convertToDto(Paiement paiement, DetteDto dette) {
         PaiementDto dto = new PaiementDto();
         dto.setId(paiement.getId());
         dto.setMontant(paiement.getMontant());
         dto.setDatePaiement(paiement.getDatePaiement());
         dto.setDateCreation(paiement.getDateCreation());
-        dto.setDetteId(paiement.getDette().getId());
-        dto.setClientTelephone(paiement.getDette().getClient().getTelephone());
-        dto.setClientNom(paiement.getDette().getClient().getNom());
-        dto.setMontantDetteTotal(paiement.getDette().getMontantDette());
+        dto.setDetteId(dette.getId());
+        dto.setClientTelephone(dette.getClientTelephone());
+        dto.setClientNom(dette.getClientNom());
+        dto.setMontantDetteTotal(dette.getMontantDette());
         return dto;
     }
     
@@ -281,7 +405,7 @@ public class PaiementService {
         public BigDecimal getMontantRestantDette() { return montantRestantDette; }
         public BigDecimal getPourcentagePaye() {
             if (montantTotalDette.compareTo(BigDecimal.ZERO) == 0) return BigDecimal.ZERO;
-            return montantTotalPaiements.divide(montantTotalDette, 4, BigDecimal.ROUND_HALF_UP)
+            return montantTotalPaiements.divide(montantTotalDette, 4, RoundingMode.HALF_UP)
                     .multiply(BigDecimal.valueOf(100));
         }
     }
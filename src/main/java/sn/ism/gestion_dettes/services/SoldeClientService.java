@@ -0,0 +1,89 @@
+package sn.ism.gestion_dettes.services;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import sn.ism.gestion_dettes.config.CacheConfig;
+import sn.ism.gestion_dettes.config.RoutageLectureEcritureDataSource;
+import sn.ism.gestion_dettes.dto.SoldeClientDto;
+import sn.ism.gestion_dettes.events.MouvementSoldeEvent;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+
+/**
+ * Agrégats des dettes par client (totaux, restant, nombre de dettes payées),
+ * maintenus dans la transaction de chaque écriture sur une dette ou un paiement
+ */
+@Service
+@Transactional
+public class SoldeClientService {
+    
+    @Autowired
+    private ClientRepository clientRepository;
+    
+    @Autowired
+    private InvalidationResultatsService invalidationResultats;
+    
+    /**
+     * Appliquer le mouvement au client, dans la transaction de l'écriture
+     */
+    @EventListener
+    public void surMouvementSolde(MouvementSoldeEvent event) {
+        if (event.estNul()) {
+            return;
+        }
+        clientRepository.appliquerMouvementSolde(event.getClientId(),
+                event.getDeltaMontantDette(), event.getDeltaMontantRestant(),
+                event.getDeltaNombreDettes(), event.getDeltaNombreDettesPayees());
+    }
+    
+    /**
+     * Obtenir les agrégats d'un client (lecture par clé primaire, mise en cache jusqu'au prochain mouvement validé).
+     * Total, restant et statistiques du client en dérivent.
+     */
+    @Cacheable(cacheNames = CacheConfig.CACHE_SOLDES_CLIENTS, key = "#clientId", sync = true)
+    @Transactional(readOnly = true)
+    public SoldeClientDto obtenirSolde(Long clientId) {
+        // Alimente un cache sans expiration, évincé juste après validation : jamais depuis la réplique
+        RoutageLectureEcritureDataSource.exigerPrimaire();
+        return clientRepository.findSoldeById(clientId)
+                .orElseThrow(() -> new RuntimeException("Client non trouvé avec ID: " + clientId));
+    }
+    
+    /**
+     * Ids des clients dont les agrégats divergent de leurs dettes (vide si tout est cohérent)
+     */
+    @Transactional(readOnly = true)
+    public List<Long> verifierSoldes() {
+        return clientRepository.findClientsAvecSoldeIncoherent();
+    }
+    
+    /**
+     * Recalculer les agrégats divergents, renvoie le nombre de clients corrigés
+     */
+    public int reconcilierSoldes() {
+        List<Long> clientIds = clientRepository.findClientsAvecSoldeIncoherent();
+        if (clientIds.isEmpty()) {
+            return 0;
+        }
+        invalidationResultats.evincerSoldesApresValidation(clientIds);
+        return clientRepository.recalculerSoldes(clientIds);
+    }
+    
+    /**
+     * Initialiser les agrégats au démarrage (clients existant avant leur introduction),
+     * avant le chargement du classement des débiteurs qui en dépend
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void initialiserSoldes() {
+        reconcilierSoldes();
+    }
+}
@@ -0,0 +1,274 @@
+package sn.ism.gestion_dettes.services;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import sn.ism.gestion_dettes.dto.EncaissementJourDto;
+import sn.ism.gestion_dettes.dto.TableauDeBordDto;
+import sn.ism.gestion_dettes.events.EncaissementEvent;
+import sn.ism.gestion_dettes.events.MouvementSoldeEvent;
+import sn.ism.gestion_dettes.repositories.CompteurPortefeuilleRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.EncaissementJourRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+/**
+ * Tableau de bord du portefeuille (encours, encaissé, dettes en cours / soldées, encaissements du jour).
+ * Les écarts d'une transaction sont cumulés puis appliqués juste avant sa validation, en une écriture
+ * par ligne touchée : les lignes de synthèse ne restent verrouillées que le temps du commit.
+ * Une reconstruction retient ces applications jusqu'à la fin du remplacement des lignes.
+ */
+@Service
+@Transactional
+public class TableauDeBordService {
+
+    static final int NOMBRE_TRANCHES = 16;
+    private static final long TAILLE_INTERVALLE = 50_000;
+    private static final int PARALLELISME = 4;
+
+    @Autowired
+    private CompteurPortefeuilleRepository compteurRepository;
+
+    @Autowired
+    private EncaissementJourRepository encaissementRepository;
+
+    @Autowired
+    private DetteRepository detteRepository;
+
+    @Autowired
+    private PaiementRepository paiementRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Lecture : écarts d'une transaction, de leur application à la fin de la transaction ; écriture : reconstruction
+    private final ReentrantReadWriteLock verrouReconstruction = new ReentrantReadWriteLock();
+
+    /**
+     * Cumuler un mouvement de solde dans les écarts de la transaction
+     */
+    @EventListener
+    public void surMouvementSolde(MouvementSoldeEvent event) {
+        if (event.estNul()) {
+            return;
+        }
+        ecartsTransaction(ecarts -> ecarts.ajouter(event));
+    }
+
+    /**
+     * Cumuler un paiement enregistré ou annulé dans les écarts de la transaction
+     */
+    @EventListener
+    public void surEncaissement(EncaissementEvent event) {
+        ecartsTransaction(ecarts -> ecarts.ajouter(event));
+    }
+
+    /**
+     * Obtenir le tableau de bord (somme des tranches et encaissements du jour)
+     */
+    @Transactional(readOnly = true)
+    public TableauDeBordDto obtenirTableauDeBord() {
+        LocalDate aujourdhui = LocalDate.now();
+        TableauDeBordDto tableau = compteurRepository.sommerTranches();
+        tableau.setEncaissementsDuJour(encaissementRepository.sommerJour(aujourdhui)
+                .orElseGet(() -> new EncaissementJourDto(aujourdhui, BigDecimal.ZERO, 0L)));
+        return tableau;
+    }
+
+    /**
+     * Construire le tableau de bord au démarrage s'il est vide alors que des dettes existent
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void initialiserTableauDeBord() {
+        if (compteurRepository.count() == 0 && detteRepository.count() > 0) {
+            reconstruire();
+        }
+    }
+
+    /**
+     * Recalculer le tableau de bord depuis les dettes et paiements : intervalles d'ids agrégés en parallèle,
+     * puis remplacement des lignes de synthèse en une transaction.
+     * Les transactions qui valident pendant ce temps attendent la fin du remplacement avant d'appliquer leurs écarts :
+     * ceux-ci s'ajoutent alors aux lignes reconstruites au lieu d'être écrasés.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TableauDeBordDto reconstruire() {
+        verrouReconstruction.writeLock().lock();
+        try {
+            recalculer();
+        } finally {
+            verrouReconstruction.writeLock().unlock();
+        }
+        return obtenirTableauDeBord();
+    }
+
+    private void recalculer() {
+        TransactionTemplate lecture = new TransactionTemplate(transactionManager);
+        lecture.setReadOnly(true);
+
+        ExecutorService executeur = Executors.newFixedThreadPool(PARALLELISME);
+        try {
+            List<Future<TableauDeBordDto>> agregatsDettes = new ArrayList<>();
+            for (Long[] intervalle : intervalles(detteRepository.findIdMax())) {
+                agregatsDettes.add(executeur.submit(() -> lecture.execute(status ->
+                        detteRepository.agregerIntervalle(intervalle[0], intervalle[1]))));
+            }
+            List<Future<List<EncaissementJourDto>>> agregatsPaiements = new ArrayList<>();
+            for (Long[] intervalle : intervalles(paiementRepository.findIdMax())) {
+                agregatsPaiements.add(executeur.submit(() -> lecture.execute(status ->
+                        paiementRepository.agregerEncaissementsIntervalle(intervalle[0], intervalle[1]))));
+            }
+
+            Ecarts total = new Ecarts();
+            for (Future<TableauDeBordDto> agregat : agregatsDettes) {
+                total.ajouter(agregat.get());
+            }
+            for (Future<List<EncaissementJourDto>> agregat : agregatsPaiements) {
+                agregat.get().forEach(total::ajouter);
+            }
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                compteurRepository.deleteAllInBatch();
+                encaissementRepository.deleteAllInBatch();
+                total.appliquer(0);
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Reconstruction du tableau de bord interrompue");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Erreur lors de la reconstruction du tableau de bord: "
+                    + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executeur.shutdownNow();
+        }
+    }
+
+    // Intervalles [début, fin] de TAILLE_INTERVALLE ids jusqu'à l'id maximal
+    private static List<Long[]> intervalles(Long idMax) {
+        List<Long[]> intervalles = new ArrayList<>();
+        if (idMax != null) {
+            for (long debut = 1; debut <= idMax; debut += TAILLE_INTERVALLE) {
+                intervalles.add(new Long[] {debut, Math.min(debut + TAILLE_INTERVALLE - 1, idMax)});
+            }
+        }
+        return intervalles;
+    }
+
+    // Écarts de la transaction courante, appliqués avant sa validation (immédiatement hors transaction)
+    private void ecartsTransaction(Consumer<Ecarts> cumul) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Ecarts ecarts = new Ecarts();
+            cumul.accept(ecarts);
+            verrouReconstruction.readLock().lock();
+            try {
+                ecarts.appliquer(ThreadLocalRandom.current().nextInt(NOMBRE_TRANCHES));
+            } finally {
+                verrouReconstruction.readLock().unlock();
+            }
+            return;
+        }
+        Ecarts ecarts = (Ecarts) TransactionSynchronizationManager.getResource(this);
+        if (ecarts == null) {
+            Ecarts nouveaux = new Ecarts();
+            TransactionSynchronizationManager.bindResource(this, nouveaux);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean verrouille;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // Gardé jusqu'à la fin de la transaction : une reconstruction voit ces écarts validés ou pas du tout
+                    verrouReconstruction.readLock().lock();
+                    verrouille = true;
+                    // Une tranche par transaction : ses lignes sont prises dans un ordre fixe (compteur, puis jours)
+                    nouveaux.appliquer(ThreadLocalRandom.current().nextInt(NOMBRE_TRANCHES));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (verrouille) {
+                        verrouReconstruction.readLock().unlock();
+                    }
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TableauDeBordService.this);
+                }
+            });
+            ecarts = nouveaux;
+        }
+        cumul.accept(ecarts);
+    }
+
+    /**
+     * Écarts cumulés sur le portefeuille et par jour de paiement
+     */
+    private class Ecarts {
+        private BigDecimal deltaMontantDette = BigDecimal.ZERO;
+        private BigDecimal deltaMontantRestant = BigDecimal.ZERO;
+        private long deltaNombreDettes;
+        private long deltaNombreDettesSoldees;
+        private final Map<LocalDate, BigDecimal> deltaMontantParJour = new TreeMap<>();
+        private final Map<LocalDate, Long> deltaNombreParJour = new TreeMap<>();
+
+        void ajouter(MouvementSoldeEvent event) {
+            deltaMontantDette = deltaMontantDette.add(event.getDeltaMontantDette());
+            deltaMontantRestant = deltaMontantRestant.add(event.getDeltaMontantRestant());
+            deltaNombreDettes += event.getDeltaNombreDettes();
+            deltaNombreDettesSoldees += event.getDeltaNombreDettesPayees();
+        }
+
+        void ajouter(TableauDeBordDto agregat) {
+            deltaMontantDette = deltaMontantDette.add(agregat.getTotalDettes());
+            deltaMontantRestant = deltaMontantRestant.add(agregat.getTotalRestant());
+            deltaNombreDettes += agregat.getNombreDettes();
+            deltaNombreDettesSoldees += agregat.getNombreDettesSoldees();
+        }
+
+        void ajouter(EncaissementEvent event) {
+            ajouterJour(event.getJour(), event.getDeltaMontant(), event.getDeltaNombrePaiements());
+        }
+
+        void ajouter(EncaissementJourDto agregat) {
+            ajouterJour(agregat.getJour(), agregat.getMontant(), agregat.getNombrePaiements());
+        }
+
+        private void ajouterJour(LocalDate jour, BigDecimal montant, long nombre) {
+            deltaMontantParJour.merge(jour, montant, BigDecimal::add);
+            deltaNombreParJour.merge(jour, nombre, Long::sum);
+        }
+
+        void appliquer(int tranche) {
+            if (deltaMontantDette.signum() != 0 || deltaMontantRestant.signum() != 0
+                    || deltaNombreDettes != 0 || deltaNombreDettesSoldees != 0) {
+                compteurRepository.appliquerEcarts(tranche, deltaMontantDette, deltaMontantRestant,
+                        deltaNombreDettes, deltaNombreDettesSoldees);
+            }
+            deltaMontantParJour.forEach((jour, montant) -> {
+                long nombre = deltaNombreParJour.get(jour);
+                if (montant.signum() != 0 || nombre != 0) {
+                    encaissementRepository.appliquerEcarts(jour, tranche, montant, nombre);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package sn.ism.gestion_dettes.services;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.entities.ClientTrigramme;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.ClientTrigrammeRepository;
+
+/**
+ * Index des trigrammes de téléphone : permet les recherches par sous-chaîne
+ * sans parcourir toute la table clients (LIKE '%...%')
+ */
+@Service
+@Transactional
+public class TrigrammeService {
+
+    private static final int TAILLE_TRIGRAMME = 3;
+    private static final int TAILLE_LOT = 1000;
+    // Au-delà de cette part des clients, un trigramme ne filtre plus assez : le LIKE seul parcourt moins de lignes
+    private static final double PART_CLIENTS_MAX = 0.1;
+
+    @Autowired
+    private ClientTrigrammeRepository trigrammeRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Fréquences relevées périodiquement : un trigramme absent est supposé rare (client indexé depuis le relevé)
+    private volatile Map<String, Long> frequences = Map.of();
+    private volatile long nombreClients;
+
+    // Les écritures de l'index (verrou de lecture, gardé jusqu'à la fin de leur transaction) et la reconstruction
+    // (verrou d'écriture) s'excluent : sinon un lot relu avant une mise à jour réinsérerait l'ancien téléphone
+    private final ReentrantReadWriteLock verrouReconstruction = new ReentrantReadWriteLock();
+    // Index partiel pendant la reconstruction : les recherches passent par le LIKE seul
+    private volatile boolean reconstructionEnCours;
+
+    /**
+     * Extraire les trigrammes distincts d'un téléphone (vide si moins de 3 caractères)
+     */
+    public Set<String> extraireTrigrammes(String telephone) {
+        Set<String> trigrammes = new LinkedHashSet<>();
+        if (telephone == null) {
+            return trigrammes;
+        }
+        for (int i = 0; i + TAILLE_TRIGRAMME <= telephone.length(); i++) {
+            trigrammes.add(telephone.substring(i, i + TAILLE_TRIGRAMME));
+        }
+        return trigrammes;
+    }
+
+    /**
+     * Choisir le trigramme le plus rare d'une recherche, ou null (LIKE seul) si la recherche
+     * a moins de 3 caractères ou si même ce trigramme couvre trop de clients
+     */
+    public String choisirTrigramme(String telephone) {
+        if (reconstructionEnCours) {
+            return null;
+        }
+        Map<String, Long> relevees = frequences;
+        String plusRare = null;
+        long frequenceMin = Long.MAX_VALUE;
+        for (String trigramme : extraireTrigrammes(telephone)) {
+            long frequence = relevees.getOrDefault(trigramme, 0L);
+            if (frequence < frequenceMin) {
+                plusRare = trigramme;
+                frequenceMin = frequence;
+            }
+        }
+        if (plusRare == null || frequenceMin > nombreClients * PART_CLIENTS_MAX) {
+            return null;
+        }
+        return plusRare;
+    }
+
+    /**
+     * Relever le nombre de clients par trigramme (au démarrage puis périodiquement)
+     */
+    @Scheduled(fixedDelayString = "${app.trigrammes.delai-frequences-ms:600000}",
+               initialDelayString = "${app.trigrammes.delai-frequences-ms:600000}")
+    @Transactional(readOnly = true)
+    public void rafraichirFrequences() {
+        Map<String, Long> relevees = new HashMap<>();
+        for (Object[] ligne : trigrammeRepository.compterClientsParTrigramme()) {
+            relevees.put((String) ligne[0], (Long) ligne[1]);
+        }
+        nombreClients = clientRepository.count();
+        frequences = relevees;
+    }
+
+    /**
+     * Indexer (ou réindexer) le téléphone d'un client
+     */
+    public void indexerClient(Long clientId, String telephone) {
+        retenirReconstruction();
+        trigrammeRepository.deleteByClientId(clientId);
+        List<ClientTrigramme> entrees = extraireTrigrammes(telephone).stream()
+                .map(trigramme -> new ClientTrigramme(clientId, trigramme))
+                .collect(Collectors.toList());
+        trigrammeRepository.saveAll(entrees);
+    }
+
+    /**
+     * Indexer des clients nouvellement créés (id client -> téléphone), sans suppression préalable
+     */
+    public void indexerNouveauxClients(Map<Long, String> telephones) {
+        retenirReconstruction();
+        trigrammeRepository.insererParLot(telephones.entrySet().stream()
+                .flatMap(entree -> extraireTrigrammes(entree.getValue()).stream()
+                        .map(trigramme -> new ClientTrigramme(entree.getKey(), trigramme)))
+                .collect(Collectors.toList()));
+    }
+    
+    /**
+     * Retirer un client de l'index
+     */
+    public void supprimerIndexClient(Long clientId) {
+        retenirReconstruction();
+        trigrammeRepository.deleteByClientId(clientId);
+    }
+
+    /**
+     * Construire l'index au démarrage s'il est vide alors que des clients existent
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void initialiserIndex() {
+        if (trigrammeRepository.count() == 0 && clientRepository.count() > 0) {
+            reconstruireIndex();
+        } else {
+            rafraichirFrequences();
+        }
+    }
+
+    /**
+     * Reconstruire l'index complet, par lots de clients (une transaction par lot).
+     * Les écritures de l'index attendent la fin de la reconstruction.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void reconstruireIndex() {
+        verrouReconstruction.writeLock().lock();
+        reconstructionEnCours = true;
+        try {
+            reindexer();
+        } finally {
+            reconstructionEnCours = false;
+            verrouReconstruction.writeLock().unlock();
+        }
+        rafraichirFrequences();
+    }
+
+    private void reindexer() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> trigrammeRepository.deleteAllInBatch());
+
+        Long apresId = null;
+        List<ClientDto> lot;
+        do {
+            Long curseur = apresId;
+            lot = clientRepository.findDtosApres(curseur, PageRequest.of(0, TAILLE_LOT));
+            List<ClientDto> clients = lot;
+            transaction.executeWithoutResult(status -> trigrammeRepository.saveAll(clients.stream()
+                    .flatMap(client -> extraireTrigrammes(client.getTelephone()).stream()
+                            .map(trigramme -> new ClientTrigramme(client.getId(), trigramme)))
+                    .collect(Collectors.toList())));
+            if (!lot.isEmpty()) {
+                apresId = lot.get(lot.size() - 1).getId();
+            }
+        } while (lot.size() == TAILLE_LOT);
+    }
+
+    /**
+     * Prendre le verrou de lecture une fois par transaction (toujours ouverte : la classe est @Transactional),
+     * rendu à sa fin
+     */
+    private void retenirReconstruction() {
+        if (TransactionSynchronizationManager.hasResource(verrouReconstruction)) {
+            return;
+        }
+        verrouReconstruction.readLock().lock();
+        TransactionSynchronizationManager.bindResource(verrouReconstruction, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(verrouReconstruction);
+                verrouReconstruction.readLock().unlock();
+            }
+        });
+    }
+}
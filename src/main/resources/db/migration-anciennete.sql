@@ -0,0 +1,14 @@
+-- Tranche d'ancienneté persistée, à exécuter une fois sur MySQL avant le déploiement.
+-- La table anciennete_clients est construite au démarrage si elle est vide.
+
+-- 1. Colonne et reprise à partir de la date de la dette
+ALTER TABLE dettes ADD COLUMN tranche ENUM('JOURS_0_30', 'JOURS_31_60', 'JOURS_61_90', 'PLUS_DE_90') NOT NULL DEFAULT 'JOURS_0_30';
+UPDATE dettes SET tranche = CASE
+    WHEN DATEDIFF(CURDATE(), date) > 90 THEN 'PLUS_DE_90'
+    WHEN DATEDIFF(CURDATE(), date) > 60 THEN 'JOURS_61_90'
+    WHEN DATEDIFF(CURDATE(), date) > 30 THEN 'JOURS_31_60'
+    ELSE 'JOURS_0_30' END;
+ALTER TABLE dettes ALTER COLUMN tranche DROP DEFAULT;
+
+-- 2. Index de la tâche quotidienne (dettes ayant dépassé leur tranche)
+CREATE INDEX idx_dettes_tranche_date ON dettes (tranche, date);
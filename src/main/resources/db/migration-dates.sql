@@ -0,0 +1,21 @@
+-- Passage des dates libres (VARCHAR) au type DATE, à exécuter une fois sur MySQL avant le déploiement.
+-- ddl-auto=update ne change pas le type d'une colonne existante ; les index sont créés au démarrage.
+-- Formats reconnus : AAAA-MM-JJ et JJ/MM/AAAA.
+
+-- 1. Lignes dont la date n'est pas reconnue : à corriger à la main avant de continuer
+SELECT id, date FROM dettes
+WHERE date NOT REGEXP '^[0-9]{4}-[0-9]{2}-[0-9]{2}$' AND date NOT REGEXP '^[0-9]{2}/[0-9]{2}/[0-9]{4}$';
+SELECT id, date_paiement FROM paiements
+WHERE date_paiement NOT REGEXP '^[0-9]{4}-[0-9]{2}-[0-9]{2}$' AND date_paiement NOT REGEXP '^[0-9]{2}/[0-9]{2}/[0-9]{4}$';
+
+-- 2. Normalisation en AAAA-MM-JJ
+UPDATE dettes SET date = DATE_FORMAT(STR_TO_DATE(date, '%d/%m/%Y'), '%Y-%m-%d')
+WHERE date REGEXP '^[0-9]{2}/[0-9]{2}/[0-9]{4}$';
+UPDATE paiements SET date_paiement = DATE_FORMAT(STR_TO_DATE(date_paiement, '%d/%m/%Y'), '%Y-%m-%d')
+WHERE date_paiement REGEXP '^[0-9]{2}/[0-9]{2}/[0-9]{4}$';
+
+-- 3. Conversion des colonnes et index des filtres par intervalle
+ALTER TABLE dettes MODIFY date DATE NOT NULL;
+ALTER TABLE paiements MODIFY date_paiement DATE NOT NULL;
+CREATE INDEX idx_dettes_date ON dettes (date, id);
+CREATE INDEX idx_paiements_date_paiement ON paiements (date_paiement, id);
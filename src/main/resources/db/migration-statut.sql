@@ -0,0 +1,11 @@
+-- Statut de règlement persisté, à exécuter une fois sur MySQL avant le déploiement.
+-- ddl-auto=update ajouterait la colonne avec EN_COURS partout : les dettes soldées doivent être reprises.
+
+-- 1. Colonne et reprise à partir du montant restant
+ALTER TABLE dettes ADD COLUMN statut ENUM('EN_COURS', 'SOLDEE') NOT NULL DEFAULT 'EN_COURS';
+UPDATE dettes SET statut = 'SOLDEE' WHERE montant_restant <= 0;
+ALTER TABLE dettes ALTER COLUMN statut DROP DEFAULT;
+
+-- 2. Index des listes payées / non payées, globales et par client
+CREATE INDEX idx_dettes_statut ON dettes (statut, id);
+CREATE INDEX idx_dettes_statut_client ON dettes (statut, client_id, id);
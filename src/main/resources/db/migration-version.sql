@@ -0,0 +1,6 @@
+-- Colonnes de version (verrouillage optimiste et ETag des GET conditionnels), à exécuter une fois sur MySQL.
+-- Les lignes existantes partent de 0 : les ETag déjà distribués n'ont jamais reposé sur cette colonne.
+
+ALTER TABLE clients ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE dettes ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE paiements ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,82 @@
+package sn.ism.gestion_dettes.benchmarks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.entities.Client;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.services.DetteService;
+
+/**
+ * Débit de POST /dettes/batch : insertion ligne à ligne contre le batch JDBC.
+ * Taille du lot : -Dbenchmark.dettes (5 000 par défaut).
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AjoutDettesBatchBenchmarkTests {
+
+	private static final int NOMBRE_DETTES = Integer.getInteger("benchmark.dettes", 5_000);
+	private static final int NOMBRE_CLIENTS = 200;
+
+	@Autowired
+	private DetteService detteService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	private final List<DetteDto> lot = new ArrayList<>();
+
+	@BeforeAll
+	void genererLot() {
+		List<Client> clients = new ArrayList<>();
+		for (int i = 0; i < NOMBRE_CLIENTS; i++) {
+			clients.add(new Client("Client " + i, String.format("75%07d", i), "Dakar"));
+		}
+		clients = clientRepository.saveAll(clients);
+		for (int i = 0; i < NOMBRE_DETTES; i++) {
+			lot.add(new DetteDto(LocalDate.of(2024, 3, 31), BigDecimal.valueOf(1000 + i, 2), clients.get(i % NOMBRE_CLIENTS).getId()));
+		}
+	}
+
+	@AfterAll
+	void nettoyer() {
+		detteRepository.deleteAllInBatch();
+		clientRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void comparerLigneALigneEtBatch() {
+		detteService.ajouterPluseursDettes(lot.subList(0, 100));
+		lot.subList(0, 100).forEach(detteService::ajouterDette);
+
+		long debut = System.nanoTime();
+		lot.forEach(detteService::ajouterDette);
+		double secondesLigneALigne = (System.nanoTime() - debut) / 1e9;
+
+		debut = System.nanoTime();
+		List<DetteDto> dettes = detteService.ajouterPluseursDettes(lot);
+		double secondesBatch = (System.nanoTime() - debut) / 1e9;
+
+		assertThat(dettes).hasSize(NOMBRE_DETTES);
+		System.out.printf("Ajout de %d dettes : ligne a ligne %.0f dettes/s, batch %.0f dettes/s%n",
+				NOMBRE_DETTES, NOMBRE_DETTES / secondesLigneALigne, NOMBRE_DETTES / secondesBatch);
+	}
+}
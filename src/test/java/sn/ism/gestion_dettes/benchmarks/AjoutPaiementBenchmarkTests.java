@@ -0,0 +1,110 @@
+package sn.ism.gestion_dettes.benchmarks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import sn.ism.gestion_dettes.dto.PaiementDto;
+import sn.ism.gestion_dettes.entities.Client;
+import sn.ism.gestion_dettes.entities.Dette;
+import sn.ism.gestion_dettes.entities.Paiement;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+import sn.ism.gestion_dettes.services.PaiementService;
+
+/**
+ * Coût d'ajout d'un paiement selon le nombre de paiements déjà enregistrés sur la dette.
+ * Nombre de paiements existants : -Dbenchmark.paiements (10 000 par défaut).
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AjoutPaiementBenchmarkTests {
+
+	private static final int NOMBRE_PAIEMENTS = Integer.getInteger("benchmark.paiements", 10_000);
+	private static final int NOMBRE_MESURES = 200;
+	private static final int TAILLE_LOT = 2_000;
+
+	@Autowired
+	private PaiementService paiementService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Long detteVide;
+	private Long detteChargee;
+
+	@BeforeAll
+	void genererPaiements() {
+		Client client = clientRepository.save(new Client("Grossiste", "779999999", "Dakar"));
+		BigDecimal montant = BigDecimal.valueOf(NOMBRE_PAIEMENTS + 10L * NOMBRE_MESURES);
+		detteVide = detteRepository.save(new Dette(LocalDate.of(2024, 1, 1), montant.multiply(BigDecimal.TEN), client)).getId();
+		Dette dette = detteRepository.save(new Dette(LocalDate.of(2024, 1, 1), montant.multiply(BigDecimal.TEN), client));
+		detteChargee = dette.getId();
+
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		for (int debut = 0; debut < NOMBRE_PAIEMENTS; debut += TAILLE_LOT) {
+			List<Paiement> lot = new ArrayList<>();
+			for (int i = debut; i < Math.min(debut + TAILLE_LOT, NOMBRE_PAIEMENTS); i++) {
+				lot.add(new Paiement(BigDecimal.ONE, LocalDate.of(2024, 1, 2), dette));
+			}
+			transaction.executeWithoutResult(status -> paiementRepository.saveAll(lot));
+		}
+	}
+
+	@AfterAll
+	void nettoyer() {
+		paiementRepository.deleteAllInBatch();
+		detteRepository.deleteAllInBatch();
+		clientRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void coutConstantQuelQueSoitLeNombreDePaiements() {
+		mesurer(detteVide);
+		mesurer(detteChargee);
+
+		double msVide = mesurer(detteVide);
+		double msChargee = mesurer(detteChargee);
+		System.out.printf("Ajout d'un paiement : %.3f ms (dette sans paiement), %.3f ms (dette avec %d paiements)%n",
+				msVide, msChargee, NOMBRE_PAIEMENTS);
+
+		// Une dette chargée ne doit pas coûter un ordre de grandeur de plus
+		assertThat(msChargee).isLessThan(Math.max(msVide * 3, msVide + 1));
+	}
+
+	private double mesurer(Long detteId) {
+		long debut = System.nanoTime();
+		for (int i = 0; i < NOMBRE_MESURES; i++) {
+			PaiementDto paiement = new PaiementDto();
+			paiement.setMontant(BigDecimal.ONE);
+			paiement.setDatePaiement(LocalDate.of(2024, 1, 3));
+			paiement.setDetteId(detteId);
+			paiementService.ajouterPaiement(paiement);
+		}
+		return (System.nanoTime() - debut) / 1_000_000.0 / NOMBRE_MESURES;
+	}
+}
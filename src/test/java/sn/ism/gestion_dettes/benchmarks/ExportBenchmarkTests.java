@@ -0,0 +1,123 @@
+package sn.ism.gestion_dettes.benchmarks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import sn.ism.gestion_dettes.entities.Client;
+import sn.ism.gestion_dettes.entities.Dette;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.services.ExportService;
+import sn.ism.gestion_dettes.services.FormatFichier;
+
+/**
+ * Export en flux de GET /dettes/export : débit et mémoire retenue pendant l'export.
+ * Taille de la table : -Dbenchmark.dettes (500 000 par défaut).
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ExportBenchmarkTests {
+
+	private static final int NOMBRE_DETTES = Integer.getInteger("benchmark.dettes", 500_000);
+	private static final int TAILLE_LOT = 5_000;
+
+	@Autowired
+	private ExportService exportService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeAll
+	void genererDettes() {
+		Client client = clientRepository.save(new Client("Client export", "760000000", "Dakar"));
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		for (int debut = 0; debut < NOMBRE_DETTES; debut += TAILLE_LOT) {
+			List<Dette> lot = new ArrayList<>();
+			for (int i = debut; i < Math.min(debut + TAILLE_LOT, NOMBRE_DETTES); i++) {
+				lot.add(new Dette(LocalDate.of(2024, 4, 1), BigDecimal.valueOf(1000 + i, 2), client));
+			}
+			transaction.executeWithoutResult(status -> detteRepository.insererParLot(lot));
+		}
+	}
+
+	@AfterAll
+	void nettoyer() {
+		detteRepository.deleteAllInBatch();
+		clientRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void exporterSansCroissanceDuTas() throws Exception {
+		// Premier parcours hors mesure : remplit le cache de pages de la base en mémoire
+		exportService.exporterDettes(OutputStream.nullOutputStream(), FormatFichier.CSV);
+
+		for (FormatFichier format : FormatFichier.values()) {
+			System.gc();
+			SortieMesuree sortie = new SortieMesuree(ManagementFactory.getMemoryMXBean());
+
+			long debut = System.nanoTime();
+			long lignes = exportService.exporterDettes(sortie, format);
+			double secondes = (System.nanoTime() - debut) / 1e9;
+
+			assertThat(lignes).isEqualTo(NOMBRE_DETTES);
+			System.out.printf("Export %s de %d dettes : %.0f lignes/s, %d Mo ecrits, tas retenu +%d Mo au plus%n",
+					format, lignes, lignes / secondes, sortie.octets >> 20, (sortie.tasMax - sortie.tasInitial) >> 20);
+		}
+	}
+
+	// Sortie qui ne garde rien : compte les octets et mesure le tas retenu (après GC) tous les 4 Mo écrits
+	private static class SortieMesuree extends OutputStream {
+		private static final long INTERVALLE_MESURE = 4L << 20;
+
+		private final MemoryMXBean memoire;
+		private final long tasInitial;
+		private long tasMax;
+		private long octets;
+		private long prochaineMesure = INTERVALLE_MESURE;
+
+		SortieMesuree(MemoryMXBean memoire) {
+			this.memoire = memoire;
+			this.tasInitial = memoire.getHeapMemoryUsage().getUsed();
+			this.tasMax = tasInitial;
+		}
+
+		@Override
+		public void write(int b) {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			octets += len;
+			if (octets >= prochaineMesure) {
+				prochaineMesure += INTERVALLE_MESURE;
+				System.gc();
+				tasMax = Math.max(tasMax, memoire.getHeapMemoryUsage().getUsed());
+			}
+		}
+	}
+}
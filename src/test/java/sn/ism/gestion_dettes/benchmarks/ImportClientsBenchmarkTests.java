@@ -0,0 +1,105 @@
+package sn.ism.gestion_dettes.benchmarks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import sn.ism.gestion_dettes.dto.RapportImportDto;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.ClientTrigrammeRepository;
+import sn.ism.gestion_dettes.services.FormatFichier;
+import sn.ism.gestion_dettes.services.ImportClientsService;
+
+/**
+ * Débit de l'import de clients sur un fichier CSV généré à la volée (jamais entièrement en mémoire).
+ * Nombre de lignes : -Dbenchmark.lignes (1 000 000 par défaut), dont 1 % de téléphones en double.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ImportClientsBenchmarkTests {
+
+	private static final int NOMBRE_LIGNES = Integer.getInteger("benchmark.lignes", 1_000_000);
+
+	@Autowired
+	private ImportClientsService importClientsService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private ClientTrigrammeRepository trigrammeRepository;
+
+	@AfterAll
+	void nettoyer() {
+		trigrammeRepository.deleteAllInBatch();
+		clientRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void importerFichierGenere() throws Exception {
+		long debut = System.nanoTime();
+		RapportImportDto rapport = importClientsService.importer(new FichierCsvGenere(NOMBRE_LIGNES), FormatFichier.CSV);
+		double secondes = (System.nanoTime() - debut) / 1e9;
+
+		assertThat(rapport.getLignesLues()).isEqualTo(NOMBRE_LIGNES);
+		assertThat(rapport.getClientsImportes() + rapport.getNombreErreurs()).isEqualTo(NOMBRE_LIGNES);
+		System.out.printf("Import de %d lignes en %.1f s : %.0f lignes/s, %d importees, %d erreurs%n",
+				NOMBRE_LIGNES, secondes, NOMBRE_LIGNES / secondes,
+				rapport.getClientsImportes(), rapport.getNombreErreurs());
+	}
+
+	// Flux CSV produit ligne par ligne
+	private static class FichierCsvGenere extends InputStream {
+
+		private final int nombreLignes;
+		private int ligneCourante = -1;
+		private byte[] tampon = new byte[0];
+		private int position;
+
+		FichierCsvGenere(int nombreLignes) {
+			this.nombreLignes = nombreLignes;
+		}
+
+		@Override
+		public int read() {
+			if (position == tampon.length && !ligneSuivante()) {
+				return -1;
+			}
+			return tampon[position++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] destination, int decalage, int longueur) {
+			if (position == tampon.length && !ligneSuivante()) {
+				return -1;
+			}
+			int copie = Math.min(longueur, tampon.length - position);
+			System.arraycopy(tampon, position, destination, decalage, copie);
+			position += copie;
+			return copie;
+		}
+
+		private boolean ligneSuivante() {
+			if (++ligneCourante > nombreLignes) {
+				return false;
+			}
+			// Toutes les 100 lignes, le téléphone de la ligne précédente est repris
+			int numero = ligneCourante % 100 == 0 ? ligneCourante - 1 : ligneCourante;
+			String ligne = ligneCourante == 0
+					? "nom,telephone,adresse\n"
+					: "Client " + ligneCourante + "," + String.format("7%08d", numero) + ",\"Quartier " + (ligneCourante % 50) + ", Dakar\"\n";
+			tampon = ligne.getBytes(StandardCharsets.UTF_8);
+			position = 0;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,303 @@
+package sn.ism.gestion_dettes.benchmarks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import sn.ism.gestion_dettes.GestionDetteApplication;
+import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.services.ClientService;
+import sn.ism.gestion_dettes.services.DetteService;
+
+/**
+ * Débit et latences de queue des mêmes endpoints, threads plateforme de Tomcat contre threads virtuels.
+ * L'application est démarrée une fois par mode sur un port aléatoire, sur une base H2 qui se comporte
+ * comme une base distante : chaque aller-retour SQL attend une latence simulée (voir LatenceSqlSimulee).
+ * Paramètres : -Dbenchmark.concurrence (400 clients), -Dbenchmark.duree (15 s mesurées après 5 s de chauffe),
+ * -Dbenchmark.latence-sql (5 ms), -Dbenchmark.pool (20 connexions Hikari).
+ */
+@Tag("benchmark")
+class ModesExecutionBenchmarkTests {
+
+	private static final int CONCURRENCE = Integer.getInteger("benchmark.concurrence", 400);
+	private static final int DUREE_S = Integer.getInteger("benchmark.duree", 15);
+	private static final int CHAUFFE_S = 5;
+	private static final int LATENCE_SQL_MS = Integer.getInteger("benchmark.latence-sql", 5);
+	private static final int TAILLE_POOL = Integer.getInteger("benchmark.pool", 20);
+	private static final int NOMBRE_DETTES = 200;
+
+	private static final String[] SCENARIOS = {
+			"GET  /dettes/{id}", "GET  /paiements/dette/{id}/simple", "POST /paiements", "GET  /clients/simple" };
+	private static final int ANNUAIRE = 3;
+
+	@Test
+	void threadsVirtuelsContreThreadsPlateforme() throws Exception {
+		assumeTrue(Runtime.version().feature() >= 21, "Threads virtuels : Java 21 requis");
+
+		Resultat plateforme = mesurer(false);
+		Resultat virtuels = mesurer(true);
+
+		System.out.printf("%d clients, latence SQL %d ms, pool Hikari %d, %d s mesurées%n",
+				CONCURRENCE, LATENCE_SQL_MS, TAILLE_POOL, DUREE_S);
+		System.out.printf("%-36s %22s %22s%n", "", "plateforme", "virtuels");
+		System.out.printf("%-36s %22.0f %22.0f%n", "débit total (req/s)", plateforme.debit(), virtuels.debit());
+		System.out.printf("%-36s %22d %22d%n", "réponses en erreur", plateforme.erreurs, virtuels.erreurs);
+		for (int i = 0; i < SCENARIOS.length; i++) {
+			System.out.printf("%-36s %22s %22s%n", SCENARIOS[i] + " p50/p99 ms",
+					plateforme.centiles(i), virtuels.centiles(i));
+		}
+
+		// Au-delà de connection-timeout, Hikari rejette (erreurs attendues sous forte charge) ; l'écart de débit
+		// dépend du nombre de cœurs. Ce qui ne doit pas changer : en threads virtuels, l'annuaire servi
+		// depuis la mémoire n'attend plus derrière les requêtes bloquées sur le pool
+		assertThat(plateforme.debit()).isPositive();
+		assertThat(virtuels.debit()).isPositive();
+		assertThat(virtuels.centile(ANNUAIRE, 0.99)).isLessThan(plateforme.centile(ANNUAIRE, 0.99));
+	}
+
+	private Resultat mesurer(boolean threadsVirtuels) throws Exception {
+		String mode = threadsVirtuels ? "virtuels" : "plateforme";
+		try (ConfigurableApplicationContext contexte = new SpringApplicationBuilder(
+						GestionDetteApplication.class, LatenceSqlSimulee.class)
+				// Hors @SpringBootTest, le scan verrait les configurations imbriquées des autres classes de test
+				.initializers(application -> application.getBeanFactory().registerSingleton("exclusionConfigurationsDeTest",
+						new TypeExcludeFilter() {
+							@Override
+							public boolean match(MetadataReader lecteur, MetadataReaderFactory fabrique) {
+								return lecteur.getClassMetadata().getClassName().contains("Tests$");
+							}
+						}))
+				.properties(
+						"server.port=0",
+						"spring.threads.virtual.enabled=" + threadsVirtuels,
+						"spring.datasource.url=jdbc:h2:mem:benchmark_" + mode
+								+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+						"spring.datasource.hikari.maximum-pool-size=" + TAILLE_POOL,
+						"spring.datasource.hikari.minimum-idle=" + TAILLE_POOL,
+						"spring.datasource.hikari.connection-timeout=3000")
+				.run()) {
+			long[] dettes = genererDettes(contexte);
+			String base = "http://localhost:"
+					+ ((ServletWebServerApplicationContext) contexte).getWebServer().getPort() + "/api";
+
+			charger(base, dettes, CHAUFFE_S);
+			return charger(base, dettes, DUREE_S);
+		}
+	}
+
+	private static long[] genererDettes(ConfigurableApplicationContext contexte) {
+		ClientService clientService = contexte.getBean(ClientService.class);
+		DetteService detteService = contexte.getBean(DetteService.class);
+		long[] dettes = new long[NOMBRE_DETTES];
+		for (int i = 0; i < NOMBRE_DETTES; i++) {
+			ClientDto client = clientService.ajouterClient(
+					new ClientDto("Client " + i, String.format("77%07d", i), "Dakar"));
+			dettes[i] = detteService.ajouterDette(new DetteDto(LocalDate.of(2024, 1, 1),
+					new BigDecimal("10000000.00"), client.getId())).getId();
+		}
+		return dettes;
+	}
+
+	/**
+	 * Chaque client enchaîne les scénarios à tour de rôle sur des dettes tirées au hasard
+	 */
+	private static Resultat charger(String base, long[] dettes, int dureeS) throws Exception {
+		HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCE);
+		long fin = System.nanoTime() + dureeS * 1_000_000_000L;
+		try {
+			List<Future<Resultat>> resultats = new ArrayList<>();
+			for (int c = 0; c < CONCURRENCE; c++) {
+				int premier = c;
+				resultats.add(clients.submit(() -> {
+					Resultat resultat = new Resultat(dureeS);
+					for (int n = premier; System.nanoTime() < fin; n++) {
+						int scenario = n % SCENARIOS.length;
+						long dette = dettes[ThreadLocalRandom.current().nextInt(dettes.length)];
+						long debut = System.nanoTime();
+						int statut = http.send(requete(base, scenario, dette), HttpResponse.BodyHandlers.discarding())
+								.statusCode();
+						resultat.enregistrer(scenario, System.nanoTime() - debut, statut < 300);
+					}
+					return resultat;
+				}));
+			}
+			Resultat total = new Resultat(dureeS);
+			for (Future<Resultat> resultat : resultats) {
+				total.ajouter(resultat.get());
+			}
+			return total;
+		} finally {
+			clients.shutdownNow();
+		}
+	}
+
+	private static HttpRequest requete(String base, int scenario, long dette) {
+		return switch (scenario) {
+			case 0 -> HttpRequest.newBuilder(URI.create(base + "/dettes/" + dette)).build();
+			case 1 -> HttpRequest.newBuilder(URI.create(base + "/paiements/dette/" + dette + "/simple")).build();
+			case 2 -> HttpRequest.newBuilder(URI.create(base + "/paiements"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(
+							"{\"montant\": 1, \"datePaiement\": \"2024-01-02\", \"detteId\": " + dette + "}"))
+					.build();
+			default -> HttpRequest.newBuilder(URI.create(base + "/clients/simple")).build();
+		};
+	}
+
+	private static class Resultat {
+
+		private final int dureeS;
+		private final long[][] latences = new long[SCENARIOS.length][1024];
+		private final int[] nombres = new int[SCENARIOS.length];
+		private long erreurs;
+
+		Resultat(int dureeS) {
+			this.dureeS = dureeS;
+		}
+
+		void enregistrer(int scenario, long nanos, boolean succes) {
+			if (nombres[scenario] == latences[scenario].length) {
+				latences[scenario] = Arrays.copyOf(latences[scenario], nombres[scenario] * 2);
+			}
+			latences[scenario][nombres[scenario]++] = nanos;
+			if (!succes) {
+				erreurs++;
+			}
+		}
+
+		void ajouter(Resultat autre) {
+			for (int i = 0; i < SCENARIOS.length; i++) {
+				for (int j = 0; j < autre.nombres[i]; j++) {
+					enregistrer(i, autre.latences[i][j], true);
+				}
+			}
+			erreurs += autre.erreurs;
+		}
+
+		double debit() {
+			return (double) Arrays.stream(nombres).sum() / dureeS;
+		}
+
+		String centiles(int scenario) {
+			return nombres[scenario] == 0 ? "-"
+					: String.format("%.1f / %.1f", centile(scenario, 0.5), centile(scenario, 0.99));
+		}
+
+		double centile(int scenario, double rang) {
+			long[] triees = Arrays.copyOf(latences[scenario], nombres[scenario]);
+			Arrays.sort(triees);
+			return triees[(int) Math.min(triees.length - 1, triees.length * rang)] / 1e6;
+		}
+	}
+
+	/**
+	 * Base distante simulée : chaque exécution d'instruction, validation ou annulation part sur un thread
+	 * plateforme dédié et attend LATENCE_SQL_MS en gardant sa connexion. Le thread de la requête ne fait
+	 * qu'attendre la réponse, comme sur une socket MySQL ; H2 appelé directement attendrait ses verrous
+	 * de ligne dans des blocs synchronized et bloquerait les threads porteurs des threads virtuels.
+	 */
+	@TestConfiguration
+	static class LatenceSqlSimulee {
+
+		private static final ExecutorService SERVEUR = Executors.newCachedThreadPool(tache -> {
+			Thread thread = new Thread(tache, "base-simulee");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		@Bean
+		static BeanPostProcessor ralentirDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String nom) {
+					if (!(bean instanceof DataSource source)) {
+						return bean;
+					}
+					return new DelegatingDataSource(source) {
+						@Override
+						public Connection getConnection() throws SQLException {
+							return ralentir(super.getConnection());
+						}
+					};
+				}
+			};
+		}
+
+		private static Connection ralentir(Connection connexion) {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, (proxy, methode, args) -> {
+						if (methode.getName().equals("commit") || methode.getName().equals("rollback")) {
+							return distant(connexion, methode, args);
+						}
+						Object resultat = invoquer(connexion, methode, args);
+						return resultat instanceof Statement instruction
+								? ralentir(instruction, methode.getReturnType())
+								: resultat;
+					});
+		}
+
+		private static Object ralentir(Statement instruction, Class<?> type) {
+			return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { type },
+					(proxy, methode, args) -> methode.getName().startsWith("execute")
+							? distant(instruction, methode, args)
+							: invoquer(instruction, methode, args));
+		}
+
+		private static Object distant(Object cible, Method methode, Object[] args) throws Throwable {
+			Future<Object> appel = SERVEUR.submit(() -> {
+				Thread.sleep(LATENCE_SQL_MS);
+				return methode.invoke(cible, args);
+			});
+			try {
+				return appel.get();
+			} catch (ExecutionException e) {
+				throw e.getCause() instanceof InvocationTargetException cause ? cause.getTargetException() : e.getCause();
+			}
+		}
+
+		private static Object invoquer(Object cible, Method methode, Object[] args) throws Throwable {
+			try {
+				return methode.invoke(cible, args);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+	}
+}
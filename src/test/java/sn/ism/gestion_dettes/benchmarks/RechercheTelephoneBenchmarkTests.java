@@ -0,0 +1,123 @@
+package sn.ism.gestion_dettes.benchmarks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import sn.ism.gestion_dettes.entities.Client;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.ClientTrigrammeRepository;
+import sn.ism.gestion_dettes.services.TrigrammeService;
+
+/**
+ * Compare la recherche par sous-chaîne de téléphone : LIKE '%...%' contre l'index des trigrammes.
+ * Taille du jeu de données : -Dbenchmark.clients (200 000 par défaut).
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RechercheTelephoneBenchmarkTests {
+
+	private static final int NOMBRE_CLIENTS = Integer.getInteger("benchmark.clients", 200_000);
+	private static final int NOMBRE_RECHERCHES = 50;
+	private static final int TAILLE_LOT = 5_000;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private ClientTrigrammeRepository trigrammeRepository;
+
+	@Autowired
+	private TrigrammeService trigrammeService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final List<String> recherches = new ArrayList<>();
+
+	@BeforeAll
+	void genererClients() {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		for (int debut = 0; debut < NOMBRE_CLIENTS; debut += TAILLE_LOT) {
+			int fin = Math.min(debut + TAILLE_LOT, NOMBRE_CLIENTS);
+			List<Client> lot = new ArrayList<>();
+			for (int i = debut; i < fin; i++) {
+				lot.add(new Client("Client " + i, telephone(i), "Dakar"));
+			}
+			transaction.executeWithoutResult(status -> clientRepository.saveAll(lot));
+		}
+
+		long debut = System.nanoTime();
+		trigrammeService.reconstruireIndex();
+		trigrammeService.rafraichirFrequences();
+		System.out.printf("Index des trigrammes construit pour %d clients en %d ms%n",
+				NOMBRE_CLIENTS, (System.nanoTime() - debut) / 1_000_000);
+
+		Random aleatoire = new Random(42);
+		for (int i = 0; i < NOMBRE_RECHERCHES; i++) {
+			String telephone = telephone(aleatoire.nextInt(NOMBRE_CLIENTS));
+			int position = aleatoire.nextInt(telephone.length() - 5);
+			recherches.add(telephone.substring(position, position + 4 + aleatoire.nextInt(2)));
+		}
+	}
+
+	@AfterAll
+	void nettoyer() {
+		trigrammeRepository.deleteAllInBatch();
+		clientRepository.deleteAllInBatch();
+		trigrammeService.rafraichirFrequences();
+	}
+
+	@Test
+	void comparerLikeEtIndexTrigrammes() {
+		Function<String, Page<Client>> like = telephone ->
+				clientRepository.findByTelephoneContaining(telephone, PageRequest.of(0, 20));
+		Function<String, Page<Client>> index = telephone -> {
+			// Trigramme choisi par le service, LIKE seul s'il n'est pas assez sélectif
+			String trigramme = trigrammeService.choisirTrigramme(telephone);
+			return trigramme == null
+					? like.apply(telephone)
+					: clientRepository.findByTelephoneContainingIndexe(telephone, trigramme, PageRequest.of(0, 20));
+		};
+
+		// Mêmes résultats par les deux chemins
+		for (String recherche : recherches) {
+			assertThat(index.apply(recherche).getTotalElements())
+					.isEqualTo(like.apply(recherche).getTotalElements());
+		}
+
+		double msLike = mesurer(like);
+		double msIndex = mesurer(index);
+		System.out.printf("Recherche par sous-chaine sur %d clients : LIKE %.2f ms/requete, trigrammes %.2f ms/requete%n",
+				NOMBRE_CLIENTS, msLike, msIndex);
+	}
+
+	private double mesurer(Function<String, Page<Client>> recherche) {
+		recherches.forEach(recherche::apply);
+		long debut = System.nanoTime();
+		for (String telephone : recherches) {
+			recherche.apply(telephone);
+		}
+		return (System.nanoTime() - debut) / 1_000_000.0 / recherches.size();
+	}
+
+	private static String telephone(int i) {
+		return String.format("7%08d", (i * 7919L) % 100_000_000L);
+	}
+}
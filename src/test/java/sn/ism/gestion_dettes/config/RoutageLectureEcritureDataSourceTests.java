@@ -0,0 +1,183 @@
+package sn.ism.gestion_dettes.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.PaiementDto;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+import sn.ism.gestion_dettes.services.ClientService;
+import sn.ism.gestion_dettes.services.DetteService;
+import sn.ism.gestion_dettes.services.PaiementService;
+import sn.ism.gestion_dettes.services.SoldeClientService;
+
+/**
+ * Primaire et réplique : deux bases H2 en mémoire. La réplique reçoit une copie du primaire
+ * puis diverge (nom du client modifié) pour savoir quelle base a répondu.
+ */
+@SpringBootTest(properties = {
+		"app.datasource.replique.url=jdbc:h2:mem:gestion_dettes_replique;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"app.datasource.replique.fenetre-lecture-ecritures-ms=60000"
+})
+class RoutageLectureEcritureDataSourceTests {
+
+	@Autowired
+	private ClientService clientService;
+
+	@Autowired
+	private DetteService detteService;
+
+	@Autowired
+	private PaiementService paiementService;
+
+	@Autowired
+	private SoldeClientService soldeClientService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@Autowired
+	private RoutageLectureEcritureDataSource routage;
+
+	@Autowired
+	@Qualifier("primaireDataSource")
+	private HikariDataSource primaire;
+
+	@Autowired
+	@Qualifier("repliqueDataSource")
+	private HikariDataSource replique;
+
+	private DetteDto dette;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+
+		ClientDto client = clientService.ajouterClient(new ClientDto("Awa", "771130001", "Dakar"));
+		dette = detteService.ajouterDette(new DetteDto(LocalDate.of(2024, 1, 1), new BigDecimal("1000.00"), client.getId()));
+
+		repliquer(primaire, replique);
+		new JdbcTemplate(replique).update("UPDATE clients SET nom = 'Awa (réplique)'");
+
+		// Le contexte de test lie une requête simulée au thread : on repart sans session
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@AfterEach
+	void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void lecturesSurLaRepliqueEcrituresSurLePrimaire() {
+		assertThat(detteService.obtenirDetteParId(dette.getId()).orElseThrow().getClientNom())
+				.isEqualTo("Awa (réplique)");
+
+		// L'écriture va au primaire ; sans session, la lecture suivante voit la réplique en retard
+		paiementService.ajouterPaiement(new PaiementDto(new BigDecimal("300.00"), LocalDate.of(2024, 1, 2), dette.getId()));
+		assertThat(new JdbcTemplate(primaire).queryForObject(
+				"SELECT montant_restant FROM dettes WHERE id = ?", BigDecimal.class, dette.getId()))
+				.isEqualByComparingTo("700.00");
+		assertThat(detteService.obtenirDetteParId(dette.getId()).orElseThrow().getMontantRestant())
+				.isEqualByComparingTo("1000.00");
+	}
+
+	@Test
+	void uneSessionRelitSesPropresEcrituresPendantLaFenetre() {
+		MockHttpServletRequest requete = new MockHttpServletRequest();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(requete));
+		paiementService.ajouterPaiement(new PaiementDto(new BigDecimal("300.00"), LocalDate.of(2024, 1, 2), dette.getId()));
+
+		DetteDto relue = detteService.obtenirDetteParId(dette.getId()).orElseThrow();
+		assertThat(relue.getClientNom()).isEqualTo("Awa");
+		assertThat(relue.getMontantRestant()).isEqualByComparingTo("700.00");
+
+		// Une autre session n'a rien écrit : elle lit la réplique
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		assertThat(detteService.obtenirDetteParId(dette.getId()).orElseThrow().getClientNom())
+				.isEqualTo("Awa (réplique)");
+	}
+
+	@Test
+	void lecturesQuiAlimententUnCacheLisentLePrimaire() {
+		paiementService.ajouterPaiement(new PaiementDto(new BigDecimal("300.00"), LocalDate.of(2024, 1, 2), dette.getId()));
+
+		// La réplique n'a pas vu le paiement : mis en cache depuis elle, le solde resterait faux
+		assertThat(soldeClientService.obtenirSolde(dette.getClientId()).getTotalRestant())
+				.isEqualByComparingTo("700.00");
+		assertThat(paiementService.obtenirStatistiquesPaiementsDette(dette.getId()).getNombrePaiements())
+				.isEqualTo(1);
+		assertThat(detteService.obtenirDetteParId(dette.getId()).orElseThrow().getClientNom())
+				.isEqualTo("Awa (réplique)");
+	}
+
+	@Test
+	void repliqueAttendUneConnexionMoinsLongtempsQueLePrimaire() {
+		assertThat(replique.getConnectionTimeout()).isLessThan(primaire.getConnectionTimeout());
+	}
+
+	/**
+	 * Copie complète du primaire vers la réplique (tient lieu de réplication MySQL)
+	 */
+	private static void repliquer(DataSource primaire, DataSource replique) {
+		JdbcTemplate jdbcReplique = new JdbcTemplate(replique);
+		jdbcReplique.execute("DROP ALL OBJECTS");
+		for (String instruction : new JdbcTemplate(primaire).queryForList("SCRIPT", String.class)) {
+			jdbcReplique.execute(instruction);
+		}
+	}
+
+	/**
+	 * Les chargements lancés sur ApplicationReadyEvent lisent déjà la réplique : elle doit avoir le schéma avant
+	 */
+	@TestConfiguration
+	static class RepliqueInitialisee {
+
+		@Bean
+		SmartInitializingSingleton repliquerAuDemarrage(@Qualifier("primaireDataSource") DataSource primaire,
+				@Qualifier("repliqueDataSource") DataSource replique) {
+			return () -> repliquer(primaire, replique);
+		}
+	}
+
+	@Test
+	@DirtiesContext
+	void repliqueInjoignableRetombeSurLePrimaire() {
+		replique.close();
+
+		assertThat(detteService.obtenirDetteParId(dette.getId()).orElseThrow().getClientNom()).isEqualTo("Awa");
+		assertThat(routage.isRepliqueDisponible()).isFalse();
+	}
+}
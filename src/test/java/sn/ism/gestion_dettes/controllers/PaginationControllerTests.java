@@ -0,0 +1,133 @@
+package sn.ism.gestion_dettes.controllers;
+
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.doReturn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import sn.ism.gestion_dettes.entities.Client;
+import sn.ism.gestion_dettes.entities.Dette;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+import sn.ism.gestion_dettes.services.DetteService;
+
+/**
+ * Modes de pagination des listes : curseur (after) et tranche sans total (withTotal=false)
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PaginationControllerTests {
+
+	@Autowired
+	private DetteService detteService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@SpyBean
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+
+		for (int i = 0; i < 5; i++) {
+			Client client = clientRepository.save(new Client("Client " + i, "77000000" + i, "Dakar"));
+			detteRepository.save(new Dette(LocalDate.of(2024, 1, i + 1), new BigDecimal("1000.00"), client));
+			detteRepository.save(new Dette(LocalDate.of(2024, 2, i + 1), new BigDecimal("2500.00"), client));
+		}
+	}
+
+	@Test
+	void curseurRefuseUnTriAutreQueCeluiDeLaPremierePage() throws Exception {
+		String curseur = detteService.obtenirToutesLesDettesApres(null, 3).getNextCursor();
+
+		mockMvc.perform(get("/dettes").param("after", curseur).param("size", "3"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(3));
+		mockMvc.perform(get("/dettes").param("after", curseur).param("sortBy", "montantDette"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.success").value(false));
+		mockMvc.perform(get("/dettes/search-by-phone").param("telephone", "7700")
+						.param("after", curseur).param("sortDir", "asc"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/clients").param("after", curseur).param("sortDir", "desc"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/paiements").param("after", curseur).param("sortBy", "montant"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void tailleDePageHorsBornesRenvoie400() throws Exception {
+		String curseur = detteService.obtenirToutesLesDettesApres(null, 3).getNextCursor();
+
+		mockMvc.perform(get("/dettes").param("after", curseur).param("size", "0"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.success").value(false))
+				.andExpect(jsonPath("$.errors.size").value("size doit être compris entre 1 et 1000"));
+		mockMvc.perform(get("/dettes/non-payees").param("after", curseur).param("size", "-1"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/clients").param("after", "1").param("size", "1001"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/paiements").param("size", "0"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/dettes").param("after", curseur).param("size", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(1))
+				.andExpect(jsonPath("$.pagination.hasNext").value(true));
+	}
+
+	@Test
+	void totalApproximatifDemandeAvecFiltreEstExplicitementNul() throws Exception {
+		mockMvc.perform(get("/dettes").param("withTotal", "false").param("approxTotal", "true")
+						.param("montantMin", "2000"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(5))
+				.andExpect(jsonPath("$.pagination", hasEntry("approxTotalElements", null)));
+		mockMvc.perform(get("/dettes").param("withTotal", "false").param("montantMin", "2000"))
+				.andExpect(jsonPath("$.pagination", not(hasKey("approxTotalElements"))));
+	}
+
+	@Test
+	void totalApproximatifSansFiltreVientDesStatistiquesDeLaTable() throws Exception {
+		// H2 n'a pas information_schema.TABLES.TABLE_ROWS : la valeur de MySQL est simulée
+		doReturn(12_000L).when(detteRepository).estimerNombreDettes();
+
+		mockMvc.perform(get("/dettes").param("withTotal", "false").param("approxTotal", "true").param("size", "4"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(4))
+				.andExpect(jsonPath("$.pagination.hasNext").value(true))
+				.andExpect(jsonPath("$.pagination.approxTotalElements").value(12_000));
+	}
+
+	@Test
+	void totalApproximatifSansStatistiquesDisponiblesEstNul() throws Exception {
+		mockMvc.perform(get("/clients").param("withTotal", "false").param("approxTotal", "true"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(5))
+				.andExpect(jsonPath("$.pagination", hasEntry("approxTotalElements", null)));
+	}
+}
@@ -0,0 +1,124 @@
+package sn.ism.gestion_dettes.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.TrancheAncienneteDto;
+import sn.ism.gestion_dettes.entities.Client;
+import sn.ism.gestion_dettes.entities.TrancheAnciennete;
+import sn.ism.gestion_dettes.repositories.AncienneteClientRepository;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+@SpringBootTest
+class AncienneteServiceTests {
+
+	@Autowired
+	private AncienneteService ancienneteService;
+
+	@Autowired
+	private DetteService detteService;
+
+	@Autowired
+	private PaiementService paiementService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@Autowired
+	private AncienneteClientRepository ancienneteRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Client awa;
+	private Client moussa;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+		ancienneteRepository.deleteAllInBatch();
+
+		awa = clientRepository.save(new Client("Awa", "770000011", "Dakar"));
+		moussa = clientRepository.save(new Client("Moussa", "770000012", "Thiès"));
+	}
+
+	@Test
+	void tranchesSuiventLesEcrituresEtLeVieillissement() {
+		LocalDate aujourdhui = LocalDate.now();
+		DetteDto recente = detteService.ajouterDette(new DetteDto(aujourdhui.minusDays(5), new BigDecimal("1000.00"), awa.getId()));
+		DetteDto ancienne = detteService.ajouterDette(new DetteDto(aujourdhui.minusDays(45), new BigDecimal("400.00"), awa.getId()));
+		detteService.ajouterPluseursDettes(List.of(
+				new DetteDto(aujourdhui.minusDays(120), new BigDecimal("300.00"), moussa.getId()),
+				new DetteDto(aujourdhui.minusDays(70), new BigDecimal("200.00"), moussa.getId())));
+
+		assertThat(ancienne.getTranche()).isEqualTo(TrancheAnciennete.JOURS_31_60);
+		assertTranche(ancienneteService.obtenirAnciennete(), TrancheAnciennete.JOURS_0_30, "1000.00", 1);
+		assertTranche(ancienneteService.obtenirAnciennete(), TrancheAnciennete.JOURS_61_90, "200.00", 1);
+		assertTranche(ancienneteService.obtenirAnciennete(), TrancheAnciennete.PLUS_DE_90, "300.00", 1);
+		assertTranche(ancienneteService.obtenirAncienneteClient(awa.getId()), TrancheAnciennete.JOURS_31_60, "400.00", 1);
+		assertTranche(ancienneteService.obtenirAncienneteClient(awa.getId()), TrancheAnciennete.PLUS_DE_90, "0", 0);
+
+		// Paiement partiel puis solde : le montant quitte la tranche, la dette soldée n'est plus comptée
+		paiementService.payerDetteCompletement(ancienne.getId(), aujourdhui);
+		assertTranche(ancienneteService.obtenirAncienneteClient(awa.getId()), TrancheAnciennete.JOURS_31_60, "0", 0);
+
+		// Date antérieure : la dette change de tranche immédiatement
+		recente.setDate(aujourdhui.minusDays(95));
+		detteService.mettreAJourDette(recente.getId(), recente);
+		assertTranche(ancienneteService.obtenirAncienneteClient(awa.getId()), TrancheAnciennete.JOURS_0_30, "0", 0);
+		assertTranche(ancienneteService.obtenirAncienneteClient(awa.getId()), TrancheAnciennete.PLUS_DE_90, "1000.00", 1);
+
+		// Dette restée en 0-30 (jours écoulés sans passage de la tâche) : la tâche quotidienne la rattrape
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			detteRepository.modifierTranches(List.of(recente.getId()), TrancheAnciennete.JOURS_0_30);
+			ancienneteRepository.appliquerEcarts(awa.getId(), TrancheAnciennete.PLUS_DE_90.name(), new BigDecimal("-1000.00"), -1);
+			ancienneteRepository.appliquerEcarts(awa.getId(), TrancheAnciennete.JOURS_0_30.name(), new BigDecimal("1000.00"), 1);
+		});
+		assertTranche(ancienneteService.obtenirAncienneteClient(awa.getId()), TrancheAnciennete.JOURS_0_30, "1000.00", 1);
+
+		assertThat(ancienneteService.vieillirDettes()).isEqualTo(1);
+		assertThat(ancienneteService.vieillirDettes()).isZero();
+		assertThat(detteService.obtenirDetteParId(recente.getId()).orElseThrow().getTranche())
+				.isEqualTo(TrancheAnciennete.PLUS_DE_90);
+		assertTranche(ancienneteService.obtenirAncienneteClient(awa.getId()), TrancheAnciennete.JOURS_0_30, "0", 0);
+		assertTranche(ancienneteService.obtenirAncienneteClient(awa.getId()), TrancheAnciennete.PLUS_DE_90, "1000.00", 1);
+
+		List<TrancheAncienneteDto> tenue = ancienneteService.obtenirAnciennete();
+		List<TrancheAncienneteDto> reconstruite = ancienneteService.reconstruire();
+		for (int i = 0; i < tenue.size(); i++) {
+			assertThat(reconstruite.get(i).getTranche()).isEqualTo(tenue.get(i).getTranche());
+			assertThat(reconstruite.get(i).getMontantRestant()).isEqualByComparingTo(tenue.get(i).getMontantRestant());
+			assertThat(reconstruite.get(i).getNombreDettes()).isEqualTo(tenue.get(i).getNombreDettes());
+		}
+	}
+
+	private void assertTranche(List<TrancheAncienneteDto> tranches, TrancheAnciennete tranche,
+			String montantRestant, long nombreDettes) {
+		assertThat(tranches).hasSize(TrancheAnciennete.values().length);
+		TrancheAncienneteDto ligne = tranches.get(tranche.ordinal());
+		assertThat(ligne.getTranche()).isEqualTo(tranche);
+		assertThat(ligne.getMontantRestant()).isEqualByComparingTo(montantRestant);
+		assertThat(ligne.getNombreDettes()).isEqualTo(nombreDettes);
+	}
+}
@@ -0,0 +1,116 @@
+package sn.ism.gestion_dettes.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jakarta.persistence.EntityManagerFactory;
+import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.ClientResumeDto;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.ClientTrigrammeRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AnnuaireClientsServiceTests {
+
+	@Autowired
+	private AnnuaireClientsService annuaireClientsService;
+
+	@Autowired
+	private ClientService clientService;
+
+	@Autowired
+	private ImportClientsService importClientsService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private ClientTrigrammeRepository trigrammeRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+		trigrammeRepository.deleteAll();
+		annuaireClientsService.chargerAnnuaire();
+	}
+
+	@Test
+	void annuaireSuitLesEcrituresValidees() throws Exception {
+		ClientDto awa = clientService.ajouterClient(new ClientDto("Awa", "771110001", "Dakar"));
+		ClientDto moussa = clientService.ajouterClient(new ClientDto("Moussa", "771110002", "Thiès"));
+		importClientsService.importer(new ByteArrayInputStream(
+				"Fatou,771110003,Saint-Louis\nIbou,771110004,Kaolack\n".getBytes(StandardCharsets.UTF_8)),
+				FormatFichier.CSV);
+		clientService.mettreAJourClient(awa.getId(), new ClientDto("Awa Diop", "771110009", "Dakar"));
+		clientService.supprimerClient(moussa.getId());
+
+		AnnuaireClientsService.Instantane annuaire = annuaireClientsService.obtenirInstantane();
+		assertThat(annuaire.getClients())
+				.extracting(ClientResumeDto::getNom, ClientResumeDto::getTelephone)
+				.containsExactly(
+						tuple("Awa Diop", "771110009"),
+						tuple("Fatou", "771110003"),
+						tuple("Ibou", "771110004"));
+
+		// Un rechargement complet donne le même contenu
+		annuaireClientsService.chargerAnnuaire();
+		assertThat(annuaireClientsService.obtenirInstantane().getClients())
+				.usingRecursiveFieldByFieldElementComparator()
+				.containsExactlyElementsOf(annuaire.getClients());
+	}
+
+	@Test
+	void annuaireInchangeRenvoie304SansRequete() throws Exception {
+		clientService.ajouterClient(new ClientDto("Awa", "771110001", "Dakar"));
+		String etag = mockMvc.perform(get("/clients/simple"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data[0].nom").value("Awa"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		mockMvc.perform(get("/clients/simple").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+
+		clientService.ajouterClient(new ClientDto("Moussa", "771110002", "Thiès"));
+		mockMvc.perform(get("/clients/simple").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(2));
+	}
+}
@@ -0,0 +1,168 @@
+package sn.ism.gestion_dettes.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jakarta.persistence.EntityManagerFactory;
+import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.DebiteurDto;
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.PaiementDto;
+import sn.ism.gestion_dettes.events.MouvementSoldeEvent;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.ClientTrigrammeRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ClassementDebiteursServiceTests {
+
+	@Autowired
+	private ClassementDebiteursService classementService;
+
+	@Autowired
+	private AnnuaireClientsService annuaireClientsService;
+
+	@Autowired
+	private ClientService clientService;
+
+	@Autowired
+	private DetteService detteService;
+
+	@Autowired
+	private PaiementService paiementService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private ClientTrigrammeRepository trigrammeRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+		trigrammeRepository.deleteAll();
+		annuaireClientsService.chargerAnnuaire();
+		classementService.chargerClassement();
+	}
+
+	@Test
+	void classementSuitLesDettesEtPaiementsValides() throws Exception {
+		LocalDate aujourdhui = LocalDate.now();
+		ClientDto awa = clientService.ajouterClient(new ClientDto("Awa", "771120001", "Dakar"));
+		ClientDto moussa = clientService.ajouterClient(new ClientDto("Moussa", "771120002", "Thiès"));
+		ClientDto fatou = clientService.ajouterClient(new ClientDto("Fatou", "771120003", "Kaolack"));
+		clientService.ajouterClient(new ClientDto("Ibou", "771120004", "Ziguinchor"));
+
+		DetteDto detteAwa = detteService.ajouterDette(new DetteDto(aujourdhui, new BigDecimal("500.00"), awa.getId()));
+		detteService.ajouterPluseursDettes(List.of(
+				new DetteDto(aujourdhui, new BigDecimal("300.00"), moussa.getId()),
+				new DetteDto(aujourdhui, new BigDecimal("400.00"), moussa.getId()),
+				new DetteDto(aujourdhui, new BigDecimal("600.00"), fatou.getId())));
+		PaiementDto paiement = new PaiementDto();
+		paiement.setMontant(new BigDecimal("200.00"));
+		paiement.setDatePaiement(aujourdhui);
+		paiement.setDetteId(detteAwa.getId());
+		paiementService.ajouterPaiement(paiement);
+		// Tâche planifiée : les clients touchés sont relus ensemble
+		assertThat(classementService.relireClientsModifies()).isEqualTo(3);
+
+		assertThat(classementService.obtenirPlusGrosDebiteurs(10))
+				.extracting(DebiteurDto::getNom, debiteur -> debiteur.getMontantRestant().setScale(2))
+				.containsExactly(
+						tuple("Moussa", new BigDecimal("700.00")),
+						tuple("Fatou", new BigDecimal("600.00")),
+						tuple("Awa", new BigDecimal("300.00")));
+
+		// Dette soldée : la lecture reste sans SQL, le client ne sort qu'à la relecture suivante
+		paiementService.payerDetteCompletement(detteAwa.getId(), aujourdhui);
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		assertThat(classementService.nombreDebiteurs()).isEqualTo(3);
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		classementService.relireClientsModifies();
+		assertThat(classementService.nombreDebiteurs()).isEqualTo(2);
+
+		statistics.clear();
+		mockMvc.perform(get("/clients/top-debtors").param("n", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(1))
+				.andExpect(jsonPath("$.data[0].clientId").value(moussa.getId()))
+				.andExpect(jsonPath("$.data[0].telephone").value("771120002"));
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+
+		// Un rechargement depuis les agrégats donne le même classement
+		List<DebiteurDto> tenu = classementService.obtenirPlusGrosDebiteurs(10);
+		classementService.chargerClassement();
+		assertThat(classementService.obtenirPlusGrosDebiteurs(10))
+				.usingRecursiveFieldByFieldElementComparator()
+				.containsExactlyElementsOf(tenu);
+	}
+
+	@Test
+	void mouvementRejoueOuDesordonneNeFaitPasDeriverLeClassement() throws Exception {
+		ClientDto awa = clientService.ajouterClient(new ClientDto("Awa", "771120001", "Dakar"));
+		DetteDto dette = detteService.ajouterDette(new DetteDto(LocalDate.now(), new BigDecimal("500.00"), awa.getId()));
+
+		// Le même mouvement livré deux fois : le client est relu, pas incrémenté
+		MouvementSoldeEvent mouvement = MouvementSoldeEvent.creation(awa.getId(), dette.getId(),
+				dette.getTranche(), dette.getMontantDette(), dette.getMontantDette());
+		classementService.surMouvementSolde(mouvement);
+		classementService.relireClientsModifies();
+		assertThat(classementService.obtenirPlusGrosDebiteurs(1))
+				.extracting(debiteur -> debiteur.getMontantRestant().setScale(2))
+				.containsExactly(new BigDecimal("500.00"));
+
+		mockMvc.perform(post("/clients/top-debtors/reconstruire"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.nombreDebiteurs").value(1));
+	}
+
+	@Test
+	void egalitesRangeesParIdEtMontantsRemplaces() {
+		ClassementDebiteurs classement = new ClassementDebiteurs();
+		classement.fixer(3L, new BigDecimal("100.00"));
+		classement.fixer(1L, new BigDecimal("100"));
+		classement.fixer(2L, new BigDecimal("50.00"));
+		// Client soldé : il quitte le classement
+		classement.fixer(4L, new BigDecimal("80.00"));
+		classement.fixer(4L, BigDecimal.ZERO);
+		classement.fixer(2L, new BigDecimal("125.00"));
+
+		assertThat(classement.premiers(10)).extracting(DebiteurDto::getClientId).containsExactly(2L, 1L, 3L);
+		assertThat(classement.premiers(2)).extracting(DebiteurDto::getClientId).containsExactly(2L, 1L);
+		assertThat(classement.taille()).isEqualTo(3);
+	}
+}
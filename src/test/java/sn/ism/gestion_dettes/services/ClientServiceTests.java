@@ -0,0 +1,272 @@
+package sn.ism.gestion_dettes.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import sn.ism.gestion_dettes.config.CacheConfig;
+import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.PaiementDto;
+import sn.ism.gestion_dettes.dto.SuggestionTelephoneDto;
+import sn.ism.gestion_dettes.entities.ClientTrigramme;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.ClientTrigrammeRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+@SpringBootTest
+class ClientServiceTests {
+
+	@Autowired
+	private ClientService clientService;
+
+	@SpyBean
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private AutocompletionTelephoneService autocompletionService;
+
+	@Autowired
+	private ClientTrigrammeRepository trigrammeRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@Autowired
+	private DetteService detteService;
+
+	@Autowired
+	private PaiementService paiementService;
+
+	@Autowired
+	private TrigrammeService trigrammeService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+		trigrammeRepository.deleteAll();
+		trigrammeService.rafraichirFrequences();
+	}
+
+	@Test
+	void rechercherParTelephoneUtiliseLIndexMaintenuAuxEcritures() {
+		ClientDto awa = clientService.ajouterClient(new ClientDto("Awa", "771234567", "Dakar"));
+		clientService.ajouterClient(new ClientDto("Moussa", "781239999", "Thiès"));
+		clientService.ajouterClient(new ClientDto("Fatou", "765550000", "Saint-Louis"));
+
+		assertThat(rechercher("123")).extracting(ClientDto::getNom).containsExactlyInAnyOrder("Awa", "Moussa");
+		assertThat(rechercher("1234")).extracting(ClientDto::getNom).containsExactly("Awa");
+		assertThat(rechercher("55")).extracting(ClientDto::getNom).containsExactly("Fatou");
+
+		clientService.mettreAJourClient(awa.getId(), new ClientDto("Awa", "709998877", "Dakar"));
+
+		assertThat(rechercher("1234")).isEmpty();
+		assertThat(rechercher("9988")).extracting(ClientDto::getNom).containsExactly("Awa");
+
+		clientService.supprimerClient(awa.getId());
+
+		assertThat(rechercher("9988")).isEmpty();
+		assertThat(trigrammeRepository.findAll()).noneMatch(t -> t.getClientId().equals(awa.getId()));
+	}
+
+	@Test
+	void recherchesParCurseurEtSansTotalPassentAussiParLIndex() {
+		ClientDto awa = clientService.ajouterClient(new ClientDto("Awa", "771234567", "Dakar"));
+		ClientDto moussa = clientService.ajouterClient(new ClientDto("Moussa", "781239999", "Thiès"));
+		DetteDto detteAwa = detteService.ajouterDette(new DetteDto(LocalDate.now(), new BigDecimal("100.00"), awa.getId()));
+		DetteDto detteMoussa = detteService.ajouterDette(new DetteDto(LocalDate.now(), new BigDecimal("100.00"), moussa.getId()));
+		paiementService.ajouterPaiement(new PaiementDto(new BigDecimal("10.00"), LocalDate.now(), detteAwa.getId()));
+		paiementService.ajouterPaiement(new PaiementDto(new BigDecimal("10.00"), LocalDate.now(), detteMoussa.getId()));
+
+		// Awa retirée de l'index seulement : les requêtes indexées ne la trouvent plus, le LIKE seul la trouverait
+		trigrammeService.supprimerIndexClient(awa.getId());
+		PageRequest page = PageRequest.of(0, 10);
+
+		assertThat(clientService.rechercherClientsAvecFiltresApres(null, "123", null, 10).getContent())
+				.extracting(ClientDto::getNom).containsExactly("Moussa");
+		assertThat(clientService.rechercherClientsAvecFiltresSansTotal(null, "123", page).getContent())
+				.extracting(ClientDto::getNom).containsExactly("Moussa");
+		assertThat(detteService.rechercherDettesAvecFiltresApres(null, "123", null, null, null, null, null, 10)
+				.getContent()).extracting(DetteDto::getClientNom).containsExactly("Moussa");
+		assertThat(detteService.rechercherDettesAvecFiltresSansTotal(null, "123", null, null, null, null, page)
+				.getContent()).extracting(DetteDto::getClientNom).containsExactly("Moussa");
+		assertThat(paiementService.rechercherPaiementsAvecFiltresApres("123", null, null, null, null, null, null, 10)
+				.getContent()).extracting(PaiementDto::getClientNom).containsExactly("Moussa");
+		assertThat(paiementService.rechercherPaiementsAvecFiltresSansTotal("123", null, null, null, null, null, page)
+				.getContent()).extracting(PaiementDto::getClientNom).containsExactly("Moussa");
+
+		// Moins de 3 caractères : pas de trigramme, LIKE seul
+		assertThat(clientService.rechercherClientsAvecFiltresApres(null, "12", null, 10).getContent())
+				.extracting(ClientDto::getNom).containsExactly("Awa", "Moussa");
+	}
+
+	@Test
+	void trigrammeTropFrequentLaisseLaRechercheAuLike() {
+		ClientDto awa = clientService.ajouterClient(new ClientDto("Awa", "771234567", "Dakar"));
+		List<ClientDto> autres = new ArrayList<>();
+		for (int i = 10; i < 21; i++) {
+			autres.add(clientService.ajouterClient(new ClientDto("Client " + i, "7800000" + i, "Dakar")));
+		}
+
+		// Clients retirés de l'index seulement : seul le LIKE les trouve encore
+		trigrammeService.supprimerIndexClient(awa.getId());
+		trigrammeService.supprimerIndexClient(autres.get(0).getId());
+		trigrammeService.rafraichirFrequences();
+
+		// « 456 » est rare : la recherche passe par l'index, qui n'a plus Awa
+		assertThat(trigrammeService.choisirTrigramme("4567")).isEqualTo("456");
+		assertThat(rechercher("4567")).isEmpty();
+
+		// « 000 » est chez presque tous les clients : LIKE seul
+		assertThat(trigrammeService.choisirTrigramme("0000")).isNull();
+		assertThat(clientService.rechercherClientsAvecFiltresApres(null, "0000", null, 20).getContent())
+				.hasSize(11).extracting(ClientDto::getNom).contains("Client 10");
+	}
+
+	@Test
+	void miseAJourPendantUneReconstructionDeLIndexNEstPasEcrasee() throws Exception {
+		ClientDto awa = clientService.ajouterClient(new ClientDto("Awa", "771234567", "Dakar"));
+		clientService.ajouterClient(new ClientDto("Moussa", "781239999", "Thiès"));
+
+		// La reconstruction s'arrête après avoir lu le lot (ancien téléphone d'Awa), avant d'y insérer les trigrammes
+		List<ClientDto> lotLu = clientRepository.findDtosApres(null, PageRequest.of(0, 1000));
+		CountDownLatch lotCharge = new CountDownLatch(1);
+		CountDownLatch reprise = new CountDownLatch(1);
+		AtomicReference<String> trigrammePendantReconstruction = new AtomicReference<>("non lu");
+		doAnswer(invocation -> {
+			trigrammePendantReconstruction.set(trigrammeService.choisirTrigramme("4567"));
+			lotCharge.countDown();
+			reprise.await(10, TimeUnit.SECONDS);
+			return lotLu;
+		}).when(clientRepository).findDtosApres(isNull(), any());
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> reconstruction = executor.submit(trigrammeService::reconstruireIndex);
+			assertThat(lotCharge.await(10, TimeUnit.SECONDS)).isTrue();
+
+			Future<ClientDto> miseAJour = executor.submit(() ->
+					clientService.mettreAJourClient(awa.getId(), new ClientDto("Awa", "709998877", "Dakar")));
+			Thread.sleep(300);
+			reprise.countDown();
+			reconstruction.get(10, TimeUnit.SECONDS);
+			miseAJour.get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// Index partiel pendant la reconstruction : LIKE seul
+		assertThat(trigrammePendantReconstruction.get()).isNull();
+		assertThat(trigrammeRepository.findAll()).filteredOn(t -> t.getClientId().equals(awa.getId()))
+				.extracting(ClientTrigramme::getTrigramme)
+				.containsExactlyInAnyOrderElementsOf(trigrammeService.extraireTrigrammes("709998877"));
+		assertThat(rechercher("1234")).isEmpty();
+		assertThat(rechercher("9988")).extracting(ClientDto::getNom).containsExactly("Awa");
+	}
+
+	@Test
+	void autocompletionSuitLesEcrituresValidees() {
+		ClientDto awa = clientService.ajouterClient(new ClientDto("Awa", "+221 77 400 11 22", "Dakar"));
+		clientService.ajouterClient(new ClientDto("Moussa", "774001133", "Thiès"));
+
+		assertThat(autocompletionService.suggerer("77400", 10))
+				.extracting(SuggestionTelephoneDto::getTelephone)
+				.containsExactly("774001133");
+		assertThat(autocompletionService.suggerer("221774", 10))
+				.extracting(SuggestionTelephoneDto::getClientId)
+				.containsExactly(awa.getId());
+
+		clientService.mettreAJourClient(awa.getId(), new ClientDto("Awa", "774001100", "Dakar"));
+
+		assertThat(autocompletionService.suggerer("2217740", 10)).isEmpty();
+		assertThat(autocompletionService.suggerer("774001", 1))
+				.extracting(SuggestionTelephoneDto::getTelephone)
+				.containsExactly("774001100");
+
+		clientService.supprimerClient(awa.getId());
+
+		assertThat(autocompletionService.suggerer("774001", 10))
+				.extracting(SuggestionTelephoneDto::getTelephone)
+				.containsExactly("774001133");
+	}
+
+	@Test
+	void suppressionValideePendantLeChargementNEstPasDefaiteParLeLot() {
+		ClientDto awa = clientService.ajouterClient(new ClientDto("Awa", "774005566", "Dakar"));
+		List<ClientDto> lotLu = clientRepository.findDtosApres(null, PageRequest.of(0, 5000));
+
+		// Le lot contenant Awa est lu, puis sa suppression est validée avant que le lot soit fusionné
+		doAnswer(invocation -> {
+			clientService.supprimerClient(awa.getId());
+			return lotLu;
+		}).when(clientRepository).findDtosApres(isNull(), any());
+		autocompletionService.chargerIndex();
+
+		assertThat(autocompletionService.suggerer("774005566", 10)).isEmpty();
+	}
+
+	@Test
+	void clientEtTelephoneServisParLeCacheDeSecondNiveau() {
+		ClientDto awa = clientService.ajouterClient(new ClientDto("Awa", "771230001", "Dakar"));
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		assertThat(clientService.obtenirClientParTelephone("771230001")).isPresent();
+
+		// Une dette met à jour les agrégats du client sans l'évincer du cache
+		detteService.ajouterDette(new DetteDto(LocalDate.now(), new BigDecimal("100.00"), awa.getId()));
+		statistics.clear();
+		assertThat(clientService.obtenirClientParTelephone("771230001")).map(ClientDto::getNom).hasValue("Awa");
+		assertThat(clientService.obtenirClientParId(awa.getId())).isPresent();
+		assertThat(clientService.obtenirClientEntity(awa.getId()).getNom()).isEqualTo("Awa");
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+
+		// Changement de téléphone : l'ancien ne résout plus le client
+		clientService.mettreAJourClient(awa.getId(), new ClientDto("Awa Diop", "771230002", "Dakar"));
+		assertThat(clientService.obtenirClientParTelephone("771230001")).isEmpty();
+		assertThat(clientService.obtenirClientParTelephone("771230002")).map(ClientDto::getNom).hasValue("Awa Diop");
+
+		assertThat(meterRegistry.get("hibernate.cache.hit.ratio").tag("region", CacheConfig.REGION_CLIENTS)
+				.gauge().value()).isPositive();
+		assertThat(meterRegistry.get("cache.evictions").tag("cache", CacheConfig.REGION_CLIENTS).meter()).isNotNull();
+	}
+
+	private Page<ClientDto> rechercher(String telephone) {
+		return clientService.rechercherClientsParTelephone(telephone, PageRequest.of(0, 10));
+	}
+}
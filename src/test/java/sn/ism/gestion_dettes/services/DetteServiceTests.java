@@ -0,0 +1,214 @@
+package sn.ism.gestion_dettes.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import jakarta.persistence.EntityManagerFactory;
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.PageCurseurDto;
+import sn.ism.gestion_dettes.dto.PaiementDto;
+import sn.ism.gestion_dettes.entities.Client;
+import sn.ism.gestion_dettes.entities.Dette;
+import sn.ism.gestion_dettes.entities.StatutDette;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+@SpringBootTest
+class DetteServiceTests {
+
+	@Autowired
+	private DetteService detteService;
+
+	@Autowired
+	private PaiementService paiementService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+
+		for (int i = 0; i < 5; i++) {
+			Client client = clientRepository.save(new Client("Client " + i, "77000000" + i, "Dakar"));
+			detteRepository.save(new Dette(LocalDate.of(2024, 1, i + 1), new BigDecimal("1000.00"), client));
+			detteRepository.save(new Dette(LocalDate.of(2024, 2, i + 1), new BigDecimal("2500.00"), client));
+		}
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void obtenirToutesLesDettesExecuteUniquementDonneesEtComptage() {
+		Page<DetteDto> page = detteService.obtenirToutesLesDettes(
+				PageRequest.of(0, 4, Sort.by("id").descending()));
+
+		assertThat(page.getContent()).hasSize(4);
+		assertThat(page.getTotalElements()).isEqualTo(10);
+		assertThat(page.getContent()).allSatisfy(dette -> {
+			assertThat(dette.getClientNom()).startsWith("Client ");
+			assertThat(dette.getClientTelephone()).startsWith("77000000");
+			assertThat(dette.getMontantRestant()).isEqualByComparingTo(dette.getMontantDette());
+		});
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void rechercherDettesAvecFiltresExecuteUniquementDonneesEtComptage() {
+		Page<DetteDto> page = detteService.rechercherDettesAvecFiltres(
+				null, "7700", new BigDecimal("2000"), null, null, null, PageRequest.of(0, 3, Sort.by("id")));
+
+		assertThat(page.getContent()).hasSize(3);
+		assertThat(page.getTotalElements()).isEqualTo(5);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void rechercherDettesParIntervalleDeDates() {
+		Page<DetteDto> page = detteService.rechercherDettesAvecFiltres(null, null, null, null,
+				LocalDate.of(2024, 1, 4), LocalDate.of(2024, 2, 2), PageRequest.of(0, 10, Sort.by("date")));
+
+		assertThat(page.getContent()).extracting(DetteDto::getDate).containsExactly(
+				LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 5), LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 2));
+
+		PageCurseurDto<DetteDto> depuisFevrier = detteService.rechercherDettesAvecFiltresApres(
+				null, null, null, null, LocalDate.of(2024, 2, 1), null, null, 10);
+		assertThat(depuisFevrier.getContent()).hasSize(5)
+				.allSatisfy(dette -> assertThat(dette.getDate()).isAfterOrEqualTo(LocalDate.of(2024, 2, 1)));
+	}
+
+	@Test
+	void obtenirDettesNonPayeesExecuteUniquementDonneesEtComptage() {
+		Page<DetteDto> page = detteService.obtenirDettesNonPayees(null, PageRequest.of(1, 3, Sort.by("id")));
+
+		assertThat(page.getContent()).hasSize(3);
+		assertThat(page.getTotalElements()).isEqualTo(10);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void statutSuitLeRestantEtFiltreLesListesParClient() {
+		Client client = clientRepository.findAll().get(0);
+		List<Dette> dettes = detteRepository.findByClient(client);
+		Dette premiere = dettes.get(0);
+		Dette seconde = dettes.get(1);
+
+		PaiementDto solde = paiementService.payerDetteCompletement(premiere.getId(), LocalDate.of(2024, 3, 1));
+		PaiementDto partiel = new PaiementDto();
+		partiel.setMontant(new BigDecimal("500.00"));
+		partiel.setDatePaiement(LocalDate.of(2024, 3, 2));
+		partiel.setDetteId(seconde.getId());
+		paiementService.ajouterPaiement(partiel);
+
+		assertThat(statut(premiere)).isEqualTo(StatutDette.SOLDEE);
+		assertThat(statut(seconde)).isEqualTo(StatutDette.EN_COURS);
+		assertThat(detteService.obtenirDettesPayees(client.getId(), PageRequest.of(0, 10)).getContent())
+				.extracting(DetteDto::getId).containsExactly(premiere.getId());
+		assertThat(detteService.obtenirDettesNonPayeesApres(client.getId(), null, 10).getContent())
+				.extracting(DetteDto::getId).containsExactly(seconde.getId());
+		assertThat(detteService.obtenirDettesNonPayees(null, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(9);
+
+		paiementService.supprimerPaiement(solde.getId());
+		detteService.mettreAJourDette(seconde.getId(), new DetteDto(seconde.getDate(), new BigDecimal("500.00"), client.getId()));
+
+		assertThat(statut(premiere)).isEqualTo(StatutDette.EN_COURS);
+		assertThat(statut(seconde)).isEqualTo(StatutDette.SOLDEE);
+		assertThat(detteService.obtenirDettesPayeesSansTotal(client.getId(), PageRequest.of(0, 10)).getContent())
+				.extracting(DetteDto::getId).containsExactly(seconde.getId());
+	}
+
+	@Test
+	void obtenirToutesLesDettesSansTotalNExecuteAucunComptage() {
+		Slice<DetteDto> tranche = detteService.obtenirToutesLesDettesSansTotal(
+				PageRequest.of(0, 4, Sort.by("id").descending()));
+
+		assertThat(tranche.getContent()).hasSize(4);
+		assertThat(tranche.hasNext()).isTrue();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void parcourirLesDettesParCurseurSansDoublonNiOubli() {
+		List<Long> ids = new ArrayList<>();
+		PageCurseurDto<DetteDto> page = detteService.obtenirToutesLesDettesApres("", 3);
+		page.getContent().forEach(dette -> ids.add(dette.getId()));
+		while (page.hasNext()) {
+			page = detteService.obtenirToutesLesDettesApres(page.getNextCursor(), 3);
+			page.getContent().forEach(dette -> ids.add(dette.getId()));
+		}
+
+		assertThat(ids).hasSize(10).doesNotHaveDuplicates();
+		assertThat(ids).isSortedAccordingTo(Comparator.reverseOrder());
+		assertThat(page.getNextCursor()).isNull();
+	}
+
+	@Test
+	void ajouterPlusieursDettesChargeLesClientsEnUneRequeteEtInsereEnBatch() {
+		List<Client> clients = clientRepository.findAll();
+		List<DetteDto> lot = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			lot.add(new DetteDto(LocalDate.of(2024, 3, 1), new BigDecimal("100.00"), clients.get(i % clients.size()).getId()));
+		}
+		statistics.clear();
+
+		List<DetteDto> dettes = detteService.ajouterPluseursDettes(lot);
+
+		assertThat(dettes).hasSize(120).extracting(DetteDto::getId).doesNotContainNull().doesNotHaveDuplicates();
+		assertThat(statistics.getEntityLoadCount()).isEqualTo(clients.size());
+		// Côté Hibernate : les clients, une mise à jour d'agrégats et d'ancienneté par client (les INSERT partent
+		// en batch JDBC, toutes les dettes sont dans la même tranche), puis une seule écriture du tableau de bord
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + 2 * clients.size() + 1);
+		assertThat(detteRepository.count()).isEqualTo(130);
+		assertThat(detteRepository.findDtoById(dettes.get(119).getId()).orElseThrow().getClientId())
+				.isEqualTo(lot.get(119).getClientId());
+	}
+
+	@Test
+	void ajouterPlusieursDettesRejetteLeLotSiUnMontantNEstPasPositif() {
+		Long clientId = clientRepository.findAll().get(0).getId();
+		List<DetteDto> lot = List.of(
+				new DetteDto(LocalDate.of(2024, 3, 1), new BigDecimal("100.00"), clientId),
+				new DetteDto(LocalDate.of(2024, 3, 1), BigDecimal.ZERO, clientId),
+				new DetteDto(LocalDate.of(2024, 3, 1), new BigDecimal("-5.00"), clientId));
+
+		assertThatThrownBy(() -> detteService.ajouterPluseursDettes(lot))
+				.hasMessage("Dette n°2 : Le montant de la dette doit être positif");
+		assertThat(detteRepository.count()).isEqualTo(10);
+	}
+
+	private StatutDette statut(Dette dette) {
+		return detteRepository.findById(dette.getId()).orElseThrow().getStatut();
+	}
+}
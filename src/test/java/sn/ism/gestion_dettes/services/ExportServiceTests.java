@@ -0,0 +1,95 @@
+package sn.ism.gestion_dettes.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+import sn.ism.gestion_dettes.entities.Client;
+import sn.ism.gestion_dettes.entities.Dette;
+import sn.ism.gestion_dettes.entities.Paiement;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+@SpringBootTest
+class ExportServiceTests {
+
+	@Autowired
+	private ExportService exportService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Dette dette;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+
+		Client client = clientRepository.save(new Client("Diop, \"Awa\"", "770000010", "Dakar"));
+		dette = detteRepository.save(new Dette(LocalDate.of(2024, 3, 1), new BigDecimal("500.00"), client));
+		detteRepository.save(new Dette(LocalDate.of(2024, 3, 2), new BigDecimal("80.00"), client));
+		paiementRepository.save(new Paiement(new BigDecimal("120.00"), LocalDate.of(2024, 3, 5), dette));
+	}
+
+	@Test
+	void exporterDettesEnCsvSansChargerDEntites() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+
+		long lignes = exportService.exporterDettes(sortie, FormatFichier.CSV);
+
+		assertThat(lignes).isEqualTo(2);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(sortie.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+				"id,date,montantDette,montantPaye,montantRestant,clientId,clientNom,clientTelephone",
+				dette.getId() + ",2024-03-01,500.00,0.00,500.00," + dette.getClient().getId() + ",\"Diop, \"\"Awa\"\"\",770000010",
+				(dette.getId() + 1) + ",2024-03-02,80.00,0.00,80.00," + dette.getClient().getId() + ",\"Diop, \"\"Awa\"\"\",770000010");
+	}
+
+	@Test
+	void exporterPaiementsEnNdjson() throws Exception {
+		ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+
+		long lignes = exportService.exporterPaiements(sortie, FormatFichier.NDJSON);
+
+		String contenu = sortie.toString(StandardCharsets.UTF_8);
+		assertThat(lignes).isEqualTo(1);
+		assertThat(contenu).endsWith("}\n").doesNotContain("\n{");
+		JsonNode paiement = objectMapper.readTree(contenu);
+		assertThat(paiement.get("montant").decimalValue()).isEqualByComparingTo("120.00");
+		assertThat(paiement.get("detteId").asLong()).isEqualTo(dette.getId());
+		assertThat(paiement.get("datePaiement").asText()).isEqualTo("2024-03-05");
+		assertThat(paiement.get("clientNom").asText()).isEqualTo("Diop, \"Awa\"");
+	}
+}
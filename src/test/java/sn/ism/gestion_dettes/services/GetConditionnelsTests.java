@@ -0,0 +1,144 @@
+package sn.ism.gestion_dettes.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jakarta.persistence.EntityManagerFactory;
+import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.PaiementDto;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class GetConditionnelsTests {
+
+	@Autowired
+	private ClientService clientService;
+
+	@Autowired
+	private DetteService detteService;
+
+	@Autowired
+	private PaiementService paiementService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private ClientDto client;
+
+	private DetteDto dette;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+
+		client = clientService.ajouterClient(new ClientDto("Awa", "771120001", "Dakar"));
+		dette = detteService.ajouterDette(new DetteDto(LocalDate.of(2024, 1, 1), new BigDecimal("1000.00"), client.getId()));
+	}
+
+	@Test
+	void detteInchangeeRenvoie304AvecUneSeuleRequete() throws Exception {
+		String etag = mockMvc.perform(get("/dettes/" + dette.getId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.clientNom").value("Awa"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		mockMvc.perform(get("/dettes/" + dette.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+		// Un paiement passe par la mise à jour atomique des montants : la version avance quand même
+		paiementService.ajouterPaiement(new PaiementDto(new BigDecimal("300.00"), LocalDate.of(2024, 1, 2), dette.getId()));
+		String etagApresPaiement = mockMvc.perform(get("/dettes/" + dette.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.montantRestant").value(700.00))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etagApresPaiement).isNotEqualTo(etag);
+
+		// Le DTO reprend le nom du client : le renommer invalide aussi l'ETag de la dette
+		clientService.mettreAJourClient(client.getId(), new ClientDto("Awa Diop", "771120001", "Dakar"));
+		mockMvc.perform(get("/dettes/" + dette.getId()).header(HttpHeaders.IF_NONE_MATCH, etagApresPaiement))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.clientNom").value("Awa Diop"));
+	}
+
+	@Test
+	void clientInchangeRenvoie304() throws Exception {
+		String etag = mockMvc.perform(get("/clients/" + client.getId()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).isNotNull();
+
+		mockMvc.perform(get("/clients/" + client.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+
+		clientService.mettreAJourClient(client.getId(), new ClientDto("Awa", "771120001", "Thiès"));
+		mockMvc.perform(get("/clients/" + client.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.adresse").value("Thiès"));
+
+		mockMvc.perform(get("/clients/0"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void listePaiementsSuitAjoutsEtSuppressions() throws Exception {
+		PaiementDto premier = paiementService.ajouterPaiement(
+				new PaiementDto(new BigDecimal("100.00"), LocalDate.of(2024, 1, 2), dette.getId()));
+		String url = "/paiements/dette/" + dette.getId() + "/simple";
+		String etag = mockMvc.perform(get(url))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(1))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+
+		paiementService.ajouterPaiement(new PaiementDto(new BigDecimal("50.00"), LocalDate.of(2024, 1, 3), dette.getId()));
+		String etagDeuxPaiements = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(2))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		paiementService.supprimerPaiement(premier.getId());
+		mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etagDeuxPaiements))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(1));
+	}
+}
@@ -0,0 +1,111 @@
+package sn.ism.gestion_dettes.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.RapportImportDto;
+import sn.ism.gestion_dettes.dto.SuggestionTelephoneDto;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.ClientTrigrammeRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+@SpringBootTest
+class ImportClientsServiceTests {
+
+	@Autowired
+	private ImportClientsService importClientsService;
+
+	@Autowired
+	private ClientService clientService;
+
+	@Autowired
+	private AutocompletionTelephoneService autocompletionService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private ClientTrigrammeRepository trigrammeRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+		trigrammeRepository.deleteAll();
+	}
+
+	@Test
+	void importerCsvRapporteLesErreursParLigne() throws Exception {
+		clientService.ajouterClient(new ClientDto("Existant", "762000000", "Dakar"));
+		String csv = """
+				nom,telephone,adresse
+				Awa,762000001,Dakar
+				"Ndiaye, Moussa",762000002,"Rue 10, Thiès"
+				Fatou,76-ABC,Dakar
+				Awa bis,762000001,Dakar
+				Ancien,762000000,Dakar
+
+				Sans adresse,762000003
+				""";
+
+		RapportImportDto rapport = importer(csv, FormatFichier.CSV);
+
+		assertThat(rapport.getLignesLues()).isEqualTo(6);
+		assertThat(rapport.getClientsImportes()).isEqualTo(2);
+		assertThat(rapport.getErreurs())
+				.extracting(RapportImportDto.ErreurLigne::getLigne, RapportImportDto.ErreurLigne::getMessage)
+				.containsExactlyInAnyOrder(
+						tuple(4L, "Format de téléphone invalide"),
+						tuple(5L, "Téléphone en double dans le fichier"),
+						tuple(6L, "Un client avec ce numéro de téléphone existe déjà"),
+						tuple(8L, "3 colonnes attendues (nom,telephone,adresse), 2 trouvées"));
+		assertThat(clientService.obtenirClientParTelephone("762000002").orElseThrow().getAdresse())
+				.isEqualTo("Rue 10, Thiès");
+
+		// Les clients importés sont visibles de la recherche indexée et de l'autocomplétion
+		assertThat(clientService.rechercherClientsParTelephone("2000002", PageRequest.of(0, 10)).getContent())
+				.extracting(ClientDto::getNom).containsExactly("Ndiaye, Moussa");
+		assertThat(autocompletionService.suggerer("76200000", 10))
+				.extracting(SuggestionTelephoneDto::getTelephone)
+				.contains("762000001", "762000002");
+	}
+
+	@Test
+	void importerNdjsonSignaleLesLignesIllisibles() throws Exception {
+		String ndjson = """
+				{"nom":"Awa","telephone":"763000001","adresse":"Dakar"}
+				{"nom":"Moussa","telephone":
+				{"nom":"","telephone":"763000002","adresse":"Dakar"}
+				""";
+
+		RapportImportDto rapport = importer(ndjson, FormatFichier.NDJSON);
+
+		assertThat(rapport.getClientsImportes()).isEqualTo(1);
+		assertThat(rapport.getNombreErreurs()).isEqualTo(2);
+		assertThat(rapport.getErreurs().get(0).getMessage()).startsWith("JSON invalide");
+		assertThat(rapport.getErreurs().get(1).getMessage()).isEqualTo("Le nom est obligatoire");
+	}
+
+	private RapportImportDto importer(String contenu, FormatFichier format) throws Exception {
+		return importClientsService.importer(
+				new ByteArrayInputStream(contenu.getBytes(StandardCharsets.UTF_8)), format);
+	}
+}
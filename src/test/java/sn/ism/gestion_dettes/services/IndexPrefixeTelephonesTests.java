@@ -0,0 +1,43 @@
+package sn.ism.gestion_dettes.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import sn.ism.gestion_dettes.dto.SuggestionTelephoneDto;
+
+class IndexPrefixeTelephonesTests {
+
+	@Test
+	void rechercherRenvoieLesPrefixesDansLOrdre() {
+		IndexPrefixeTelephones index = new IndexPrefixeTelephones();
+		index.ajouterTous(Map.of(1L, "771234567", 2L, "77 123 00 00", 3L, "781234567", 4L, "7712"));
+		index.ajouter("771299999", 5L);
+
+		assertThat(index.rechercher("7712", 10))
+				.extracting(SuggestionTelephoneDto::getTelephone)
+				.containsExactly("7712", "771230000", "771234567", "771299999");
+		assertThat(index.rechercher("77123", 2))
+				.extracting(SuggestionTelephoneDto::getClientId)
+				.containsExactly(2L, 1L);
+		assertThat(index.rechercher("9", 10)).isEmpty();
+		assertThat(index.rechercher("", 10)).isEmpty();
+	}
+
+	@Test
+	void ajouterEtRetirerSontIdempotents() {
+		IndexPrefixeTelephones index = new IndexPrefixeTelephones();
+		index.ajouter("771234567", 1L);
+		index.ajouter("771234567", 1L);
+		index.ajouter("771234567", 2L);
+		assertThat(index.taille()).isEqualTo(2);
+
+		index.retirer("771234567", 1L);
+		index.retirer("771234567", 1L);
+		assertThat(index.rechercher("77", 10))
+				.extracting(SuggestionTelephoneDto::getClientId)
+				.containsExactly(2L);
+	}
+}
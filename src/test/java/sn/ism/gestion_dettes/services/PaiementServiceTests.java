@@ -0,0 +1,240 @@
+package sn.ism.gestion_dettes.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import jakarta.persistence.EntityManagerFactory;
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.PaiementDto;
+import sn.ism.gestion_dettes.dto.RapportImportDto;
+import sn.ism.gestion_dettes.dto.RapportLotPaiementsDto;
+import sn.ism.gestion_dettes.entities.Client;
+import sn.ism.gestion_dettes.entities.Dette;
+import sn.ism.gestion_dettes.entities.Paiement;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+@SpringBootTest
+class PaiementServiceTests {
+
+	@Autowired
+	private PaiementService paiementService;
+
+	@Autowired
+	private DetteService detteService;
+
+	@Autowired
+	private LotPaiementsService lotPaiementsService;
+
+	@Autowired
+	private SoldeClientService soldeClientService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	private Dette dette;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+
+		Client client = clientRepository.save(new Client("Awa", "770000001", "Dakar"));
+		dette = detteRepository.save(new Dette(LocalDate.of(2024, 1, 1), new BigDecimal("100000.00"), client));
+
+		// Paiements existants, insérés directement : la dette n'en tient pas compte ici
+		List<Paiement> paiements = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			paiements.add(new Paiement(new BigDecimal("10.00"), LocalDate.of(2024, 1, 2), dette));
+		}
+		paiementRepository.saveAll(paiements);
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void obtenirTousLesPaiementsExecuteUniquementDonneesEtComptage() {
+		Page<PaiementDto> page = paiementService.obtenirTousLesPaiements(PageRequest.of(1, 20, Sort.by("id")));
+
+		assertThat(page.getContent()).hasSize(20);
+		assertThat(page.getTotalElements()).isEqualTo(50);
+		assertThat(page.getContent()).allSatisfy(paiement -> {
+			assertThat(paiement.getDetteId()).isEqualTo(dette.getId());
+			assertThat(paiement.getClientNom()).isEqualTo("Awa");
+			assertThat(paiement.getClientTelephone()).isEqualTo("770000001");
+			assertThat(paiement.getMontantDetteTotal()).isEqualByComparingTo("100000.00");
+		});
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void rechercherPaiementsAvecFiltresExecuteUniquementDonneesEtComptage() {
+		Page<PaiementDto> page = paiementService.rechercherPaiementsAvecFiltres(
+				"7700", dette.getId(), new BigDecimal("10.00"), null, null, null, PageRequest.of(0, 15, Sort.by("id")));
+
+		assertThat(page.getContent()).hasSize(15)
+				.allSatisfy(paiement -> assertThat(paiement.getClientNom()).isEqualTo("Awa"));
+		assertThat(page.getTotalElements()).isEqualTo(50);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void statistiquesPaiementsDetteEnUneRequeteDAgregat() {
+		paiementService.ajouterPaiement(nouveauPaiement("5.00"));
+		paiementService.ajouterPaiement(nouveauPaiement("40.00"));
+		statistics.clear();
+
+		PaiementService.PaiementStatistiquesDto stats = paiementService.obtenirStatistiquesPaiementsDette(dette.getId());
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(stats.getNombrePaiements()).isEqualTo(52);
+		assertThat(stats.getMontantTotalPaiements()).isEqualByComparingTo("545.00");
+		assertThat(stats.getMontantMoyenPaiement()).isEqualByComparingTo("10.48");
+		assertThat(stats.getMontantMinPaiement()).isEqualByComparingTo("5.00");
+		assertThat(stats.getMontantMaxPaiement()).isEqualByComparingTo("40.00");
+		assertThat(stats.getMontantRestantDette()).isEqualByComparingTo("99955.00");
+		assertThat(stats.getPourcentagePaye()).isEqualByComparingTo("0.55");
+	}
+
+	@Test
+	void ecrirePaiementNeChargePasLesPaiementsDeLaDette() {
+		PaiementDto paiement = paiementService.ajouterPaiement(nouveauPaiement("250.00"));
+		paiement.setMontant(new BigDecimal("400.00"));
+		paiementService.mettreAJourPaiement(paiement.getId(), paiement);
+		paiementService.ajouterPaiement(nouveauPaiement("100.00"));
+
+		assertThat(statistics.getCollectionLoadCount()).isZero();
+		assertThat(detteService.obtenirDetteParId(dette.getId()).orElseThrow().getMontantPaye())
+				.isEqualByComparingTo("500.00");
+
+		paiementService.supprimerPaiement(paiement.getId());
+
+		assertThat(statistics.getCollectionLoadCount()).isZero();
+		assertThat(detteService.obtenirDetteParId(dette.getId()).orElseThrow().getMontantRestant())
+				.isEqualByComparingTo("99900.00");
+	}
+
+	@Test
+	void paiementsConcurrentsNeRendentJamaisUneDetteNegative() throws Exception {
+		Client client = clientRepository.save(new Client("Moussa", "770000002", "Thiès"));
+		List<Dette> dettes = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			dettes.add(detteRepository.save(new Dette(LocalDate.of(2024, 1, 1), new BigDecimal("1000.00"), client)));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		AtomicInteger acceptes = new AtomicInteger();
+		AtomicInteger refuses = new AtomicInteger();
+		List<Future<?>> taches = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			Dette cible = dettes.get(i % dettes.size());
+			BigDecimal montant = BigDecimal.valueOf(1 + i % 7).setScale(2);
+			taches.add(executor.submit(() -> {
+				PaiementDto paiement = new PaiementDto();
+				paiement.setMontant(montant);
+				paiement.setDatePaiement(LocalDate.of(2024, 1, 3));
+				paiement.setDetteId(cible.getId());
+				try {
+					paiementService.ajouterPaiement(paiement);
+					acceptes.incrementAndGet();
+				} catch (RuntimeException e) {
+					assertThat(e.getMessage()).contains("dépasse le montant restant");
+					refuses.incrementAndGet();
+				}
+			}));
+		}
+		for (Future<?> tache : taches) {
+			tache.get(60, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertThat(acceptes.get() + refuses.get()).isEqualTo(2000);
+		assertThat(refuses.get()).isPositive();
+		for (Dette dette : dettes) {
+			DetteDto etat = detteService.obtenirDetteParId(dette.getId()).orElseThrow();
+			assertThat(etat.getMontantRestant()).isGreaterThanOrEqualTo(BigDecimal.ZERO);
+			assertThat(etat.getMontantPaye()).isEqualByComparingTo(paiementRepository.getTotalPaiementsByDette(dette));
+		}
+	}
+
+	@Test
+	void lotDePaiementsRegroupeParDetteEtRefuseLesDepassements() {
+		Client client = clientRepository.save(new Client("Fatou", "770000003", "Saint-Louis"));
+		DetteDto premiere = detteService.ajouterDette(new DetteDto(LocalDate.of(2024, 2, 1), new BigDecimal("100.00"), client.getId()));
+		DetteDto seconde = detteService.ajouterDette(new DetteDto(LocalDate.of(2024, 2, 1), new BigDecimal("50.00"), client.getId()));
+
+		List<PaiementDto> lignes = List.of(
+				nouveauPaiement("60.00", premiere.getId()),
+				nouveauPaiement("30.00", seconde.getId()),
+				nouveauPaiement("50.00", premiere.getId()),	// dépasse les 40.00 restants
+				nouveauPaiement("40.00", premiere.getId()),
+				nouveauPaiement("10.00", -1L),
+				nouveauPaiement("0.00", seconde.getId()),
+				nouveauPaiement("20.00", seconde.getId()));
+		statistics.clear();
+
+		RapportLotPaiementsDto rapport = lotPaiementsService.enregistrer(lignes);
+
+		assertThat(rapport.getLignesRecues()).isEqualTo(7);
+		assertThat(rapport.getPaiementsEnregistres()).isEqualTo(4);
+		assertThat(rapport.getMontantTotal()).isEqualByComparingTo("150.00");
+		assertThat(rapport.getErreurs()).extracting(RapportImportDto.ErreurLigne::getLigne)
+				.containsExactlyInAnyOrder(3L, 5L, 6L);
+		assertThat(statistics.getCollectionLoadCount()).isZero();
+
+		DetteDto premiereApres = detteService.obtenirDetteParId(premiere.getId()).orElseThrow();
+		DetteDto secondeApres = detteService.obtenirDetteParId(seconde.getId()).orElseThrow();
+		assertThat(premiereApres.getMontantRestant()).isEqualByComparingTo("0.00");
+		assertThat(secondeApres.getMontantRestant()).isEqualByComparingTo("0.00");
+		assertThat(paiementRepository.getTotalPaiementsByDette(detteRepository.getReferenceById(premiere.getId())))
+				.isEqualByComparingTo("100.00");
+		assertThat(soldeClientService.obtenirSolde(client.getId()).getNombreDettesPayees()).isEqualTo(2);
+		assertThat(soldeClientService.verifierSoldes()).doesNotContain(client.getId());
+	}
+
+	private PaiementDto nouveauPaiement(String montant) {
+		return nouveauPaiement(montant, dette.getId());
+	}
+
+	private PaiementDto nouveauPaiement(String montant, Long detteId) {
+		PaiementDto paiement = new PaiementDto();
+		paiement.setMontant(new BigDecimal(montant));
+		paiement.setDatePaiement(LocalDate.of(2024, 1, 3));
+		paiement.setDetteId(detteId);
+		return paiement;
+	}
+}
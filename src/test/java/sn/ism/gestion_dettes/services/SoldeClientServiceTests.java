@@ -0,0 +1,221 @@
+package sn.ism.gestion_dettes.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import jakarta.persistence.EntityManagerFactory;
+import sn.ism.gestion_dettes.config.CacheConfig;
+import sn.ism.gestion_dettes.dto.ClientDto;
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.PaiementDto;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.ClientTrigrammeRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+@SpringBootTest
+class SoldeClientServiceTests {
+
+	@Autowired
+	private SoldeClientService soldeClientService;
+
+	@Autowired
+	private ClientService clientService;
+
+	@Autowired
+	private DetteService detteService;
+
+	@Autowired
+	private PaiementService paiementService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private ClientTrigrammeRepository trigrammeRepository;
+
+	@Autowired
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private LotPaiementsService lotPaiementsService;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+		trigrammeRepository.deleteAll();
+	}
+
+	@Test
+	void lesAgregatsNeDeriventPasAuFilDesEcritures() {
+		Random aleatoire = new Random(7);
+		List<Long> clients = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			clients.add(clientService.ajouterClient(new ClientDto("Client " + i, "76100000" + i, "Dakar")).getId());
+		}
+
+		List<Long> dettes = new ArrayList<>();
+		List<Long> paiements = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			int operation = aleatoire.nextInt(6);
+			if (operation == 0 || dettes.isEmpty()) {
+				DetteDto dette = new DetteDto();
+				dette.setDate(LocalDate.of(2024, 3, 1));
+				dette.setMontantDette(montant(aleatoire, 5000));
+				dette.setClientId(clients.get(aleatoire.nextInt(clients.size())));
+				dettes.add(detteService.ajouterDette(dette).getId());
+			} else if (operation == 1) {
+				Long detteId = dettes.get(aleatoire.nextInt(dettes.size()));
+				DetteDto dette = detteService.obtenirDetteParId(detteId).orElseThrow();
+				dette.setMontantDette(dette.getMontantPaye().add(montant(aleatoire, 3000)));
+				detteService.mettreAJourDette(detteId, dette);
+			} else if (operation == 2 && !paiements.isEmpty()) {
+				paiementService.supprimerPaiement(paiements.remove(aleatoire.nextInt(paiements.size())));
+			} else if (operation == 3) {
+				Long detteId = dettes.get(aleatoire.nextInt(dettes.size()));
+				if (detteService.obtenirDetteParId(detteId).orElseThrow().getMontantRestant().signum() > 0) {
+					paiements.add(paiementService.payerDetteCompletement(detteId, LocalDate.of(2024, 3, 2)).getId());
+				}
+			} else {
+				Long detteId = dettes.get(aleatoire.nextInt(dettes.size()));
+				BigDecimal restant = detteService.obtenirDetteParId(detteId).orElseThrow().getMontantRestant();
+				if (restant.compareTo(BigDecimal.ONE) > 0) {
+					PaiementDto paiement = new PaiementDto();
+					paiement.setMontant(restant.divide(BigDecimal.valueOf(2), 2, RoundingMode.DOWN));
+					paiement.setDatePaiement(LocalDate.of(2024, 3, 2));
+					paiement.setDetteId(detteId);
+					paiements.add(paiementService.ajouterPaiement(paiement).getId());
+				}
+			}
+		}
+
+		assertThat(soldeClientService.verifierSoldes()).isEmpty();
+		assertThat(clients.stream().mapToLong(id -> soldeClientService.obtenirSolde(id).getNombreDettes()).sum())
+				.isEqualTo(dettes.size());
+	}
+
+	@Test
+	void reconcilierCorrigeLesAgregatsDivergents() {
+		Long clientId = clientService.ajouterClient(new ClientDto("Moussa", "761888888", "Thiès")).getId();
+		DetteDto dette = new DetteDto();
+		dette.setDate(LocalDate.of(2024, 3, 1));
+		dette.setMontantDette(new BigDecimal("900.00"));
+		dette.setClientId(clientId);
+		detteService.ajouterDette(dette);
+		jdbcTemplate.update("UPDATE clients SET total_dettes = 0, nombre_dettes = 0 WHERE id = ?", clientId);
+
+		assertThat(soldeClientService.verifierSoldes()).containsExactly(clientId);
+		assertThat(soldeClientService.reconcilierSoldes()).isEqualTo(1);
+		assertThat(soldeClientService.verifierSoldes()).isEmpty();
+		assertThat(soldeClientService.obtenirSolde(clientId).getTotalDettes()).isEqualByComparingTo("900.00");
+	}
+
+	@Test
+	void statistiquesClientEnUneSeuleLecture() {
+		Long clientId = clientService.ajouterClient(new ClientDto("Awa", "761999999", "Dakar")).getId();
+		DetteDto dette = new DetteDto();
+		dette.setDate(LocalDate.of(2024, 3, 1));
+		dette.setMontantDette(new BigDecimal("1500.00"));
+		dette.setClientId(clientId);
+		Long detteId = detteService.ajouterDette(dette).getId();
+		paiementService.payerDetteCompletement(detteId, LocalDate.of(2024, 3, 2));
+		dette.setMontantDette(new BigDecimal("800.00"));
+		detteService.ajouterDette(dette);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		DetteService.DetteStatistiquesDto statistiques = detteService.obtenirStatistiquesClient(clientId);
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistiques.getMontantTotalDettes()).isEqualByComparingTo("2300.00");
+		assertThat(statistiques.getMontantTotalPaye()).isEqualByComparingTo("1500.00");
+		assertThat(statistiques.getMontantTotalRestant()).isEqualByComparingTo("800.00");
+		assertThat(statistiques.getNombreTotalDettes()).isEqualTo(2);
+		assertThat(statistiques.getNombreDettesPayees()).isEqualTo(1);
+	}
+
+	@Test
+	void resultatsEnCacheEvincesApresValidationDesMouvements() {
+		Long clientId = clientService.ajouterClient(new ClientDto("Fatou", "761777777", "Kaolack")).getId();
+		DetteDto dette = new DetteDto(LocalDate.of(2024, 3, 1), new BigDecimal("1000.00"), clientId);
+		Long detteId = detteService.ajouterDette(dette).getId();
+		detteService.obtenirMontantRestantClient(clientId);
+		paiementService.obtenirStatistiquesPaiementsDette(detteId);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		assertThat(detteService.obtenirMontantTotalDetteClient(clientId)).isEqualByComparingTo("1000.00");
+		assertThat(detteService.obtenirStatistiquesClient(clientId).getNombreTotalDettes()).isEqualTo(1);
+		assertThat(paiementService.obtenirStatistiquesPaiementsDette(detteId).getNombrePaiements()).isZero();
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+
+		// Paiements en lot : le solde du client et les statistiques de la dette sont évincés à la validation
+		PaiementDto paiement = new PaiementDto();
+		paiement.setMontant(new BigDecimal("300.00"));
+		paiement.setDatePaiement(LocalDate.of(2024, 3, 2));
+		paiement.setDetteId(detteId);
+		lotPaiementsService.enregistrer(List.of(paiement));
+
+		assertThat(detteService.obtenirMontantRestantClient(clientId)).isEqualByComparingTo("700.00");
+		assertThat(paiementService.obtenirStatistiquesPaiementsDette(detteId).getNombrePaiements()).isEqualTo(1);
+
+		// Un paiement refusé (transaction annulée) ne change pas le résultat en cache
+		paiement.setMontant(new BigDecimal("5000.00"));
+		assertThatThrownBy(() -> paiementService.ajouterPaiement(paiement)).isInstanceOf(RuntimeException.class);
+		assertThat(detteService.obtenirMontantRestantClient(clientId)).isEqualByComparingTo("700.00");
+	}
+
+	@Test
+	void poidsDesResultatsEnCacheSuitLeurContenu() {
+		Long petit = clientService.ajouterClient(new ClientDto("Awa", "761888881", "Dakar")).getId();
+		Long grand = clientService.ajouterClient(new ClientDto("Moussa", "761888882", "Dakar")).getId();
+		detteService.ajouterDette(new DetteDto(LocalDate.of(2024, 3, 1), new BigDecimal("10.00"), petit));
+		detteService.ajouterDette(new DetteDto(LocalDate.of(2024, 3, 1), new BigDecimal("12345678.00"), grand));
+
+		Policy.Eviction<Object, Object> eviction = ((CaffeineCache) cacheManager.getCache(CacheConfig.CACHE_SOLDES_CLIENTS))
+				.getNativeCache().policy().eviction().orElseThrow();
+		soldeClientService.obtenirSolde(petit);
+		soldeClientService.obtenirSolde(grand);
+
+		// Même DTO, montants plus longs : l'entrée pèse davantage
+		int poidsPetit = eviction.weightOf(petit).orElseThrow();
+		assertThat(poidsPetit).isGreaterThan(100);
+		assertThat(eviction.weightOf(grand).orElseThrow()).isGreaterThan(poidsPetit);
+	}
+
+	private static BigDecimal montant(Random aleatoire, int max) {
+		return BigDecimal.valueOf(100 + aleatoire.nextInt(max), 0).setScale(2);
+	}
+}
@@ -0,0 +1,149 @@
+package sn.ism.gestion_dettes.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import sn.ism.gestion_dettes.dto.DetteDto;
+import sn.ism.gestion_dettes.dto.PaiementDto;
+import sn.ism.gestion_dettes.dto.TableauDeBordDto;
+import sn.ism.gestion_dettes.entities.Client;
+import sn.ism.gestion_dettes.repositories.ClientRepository;
+import sn.ism.gestion_dettes.repositories.DetteRepository;
+import sn.ism.gestion_dettes.repositories.PaiementRepository;
+
+@SpringBootTest
+class TableauDeBordServiceTests {
+
+	@Autowired
+	private TableauDeBordService tableauDeBordService;
+
+	@Autowired
+	private DetteService detteService;
+
+	@Autowired
+	private PaiementService paiementService;
+
+	@Autowired
+	private LotPaiementsService lotPaiementsService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@SpyBean
+	private DetteRepository detteRepository;
+
+	@Autowired
+	private PaiementRepository paiementRepository;
+
+	private Client client;
+
+	@BeforeEach
+	void setUp() {
+		paiementRepository.deleteAll();
+		detteRepository.deleteAll();
+		clientRepository.deleteAll();
+		tableauDeBordService.reconstruire();
+
+		client = clientRepository.save(new Client("Awa", "770000001", "Dakar"));
+	}
+
+	@Test
+	void ecrituresMettentAJourLeTableauDeBordCommeUneReconstruction() {
+		LocalDate aujourdhui = LocalDate.now();
+		DetteDto premiere = detteService.ajouterDette(new DetteDto(aujourdhui, new BigDecimal("1000.00"), client.getId()));
+		DetteDto seconde = detteService.ajouterDette(new DetteDto(aujourdhui, new BigDecimal("500.00"), client.getId()));
+		detteService.ajouterPluseursDettes(List.of(new DetteDto(aujourdhui, new BigDecimal("200.00"), client.getId())));
+
+		PaiementDto hier = paiementService.ajouterPaiement(paiement("300.00", aujourdhui.minusDays(1), premiere.getId()));
+		paiementService.payerDetteCompletement(seconde.getId(), aujourdhui);
+		lotPaiementsService.enregistrer(List.of(
+				paiement("100.00", aujourdhui, premiere.getId()),
+				paiement("50.00", aujourdhui, premiere.getId())));
+		// Déplacé d'hier à aujourd'hui avec un nouveau montant, puis un paiement annulé
+		hier.setMontant(new BigDecimal("400.00"));
+		hier.setDatePaiement(aujourdhui);
+		paiementService.mettreAJourPaiement(hier.getId(), hier);
+		PaiementDto annule = paiementService.ajouterPaiement(paiement("10.00", aujourdhui, premiere.getId()));
+		paiementService.supprimerPaiement(annule.getId());
+
+		TableauDeBordDto tableau = tableauDeBordService.obtenirTableauDeBord();
+
+		assertThat(tableau.getTotalDettes()).isEqualByComparingTo("1700.00");
+		assertThat(tableau.getTotalEncaisse()).isEqualByComparingTo("1050.00");
+		assertThat(tableau.getTotalRestant()).isEqualByComparingTo("650.00");
+		assertThat(tableau.getNombreDettes()).isEqualTo(3);
+		assertThat(tableau.getNombreDettesSoldees()).isEqualTo(1);
+		assertThat(tableau.getNombreDettesEnCours()).isEqualTo(2);
+		assertThat(tableau.getEncaissementsDuJour().getMontant()).isEqualByComparingTo("1050.00");
+		assertThat(tableau.getEncaissementsDuJour().getNombrePaiements()).isEqualTo(4);
+
+		TableauDeBordDto reconstruit = tableauDeBordService.reconstruire();
+
+		assertThat(reconstruit.getTotalDettes()).isEqualByComparingTo(tableau.getTotalDettes());
+		assertThat(reconstruit.getTotalRestant()).isEqualByComparingTo(tableau.getTotalRestant());
+		assertThat(reconstruit.getNombreDettes()).isEqualTo(tableau.getNombreDettes());
+		assertThat(reconstruit.getNombreDettesSoldees()).isEqualTo(tableau.getNombreDettesSoldees());
+		assertThat(reconstruit.getEncaissementsDuJour().getMontant())
+				.isEqualByComparingTo(tableau.getEncaissementsDuJour().getMontant());
+		assertThat(reconstruit.getEncaissementsDuJour().getNombrePaiements()).isEqualTo(4);
+	}
+
+	@Test
+	void detteValideePendantUneReconstructionNEstPasEcrasee() throws Exception {
+		LocalDate aujourdhui = LocalDate.now();
+		detteService.ajouterDette(new DetteDto(aujourdhui, new BigDecimal("1000.00"), client.getId()));
+
+		// La reconstruction s'arrête entre le calcul des agrégats (un seul intervalle d'ids ici) et le remplacement des lignes
+		TableauDeBordDto agregat = detteRepository.agregerIntervalle(1L, detteRepository.findIdMax());
+		CountDownLatch agregatsCalcules = new CountDownLatch(1);
+		CountDownLatch reprise = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			agregatsCalcules.countDown();
+			reprise.await(10, TimeUnit.SECONDS);
+			return agregat;
+		}).when(detteRepository).agregerIntervalle(any(), any());
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<TableauDeBordDto> reconstruction = executor.submit(tableauDeBordService::reconstruire);
+			assertThat(agregatsCalcules.await(10, TimeUnit.SECONDS)).isTrue();
+
+			Future<DetteDto> ecriture = executor.submit(() ->
+					detteService.ajouterDette(new DetteDto(aujourdhui, new BigDecimal("500.00"), client.getId())));
+			Thread.sleep(300);
+			reprise.countDown();
+			reconstruction.get(10, TimeUnit.SECONDS);
+			ecriture.get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		TableauDeBordDto tableau = tableauDeBordService.obtenirTableauDeBord();
+		assertThat(tableau.getTotalDettes()).isEqualByComparingTo("1500.00");
+		assertThat(tableau.getNombreDettes()).isEqualTo(2);
+	}
+
+	private PaiementDto paiement(String montant, LocalDate date, Long detteId) {
+		PaiementDto paiement = new PaiementDto();
+		paiement.setMontant(new BigDecimal(montant));
+		paiement.setDatePaiement(date);
+		paiement.setDetteId(detteId);
+		return paiement;
+	}
+}